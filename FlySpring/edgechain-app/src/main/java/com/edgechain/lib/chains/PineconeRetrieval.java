@@ -1,27 +1,37 @@
 package com.edgechain.lib.chains;
 
-import com.edgechain.lib.embeddings.WordEmbeddings;
+import com.edgechain.lib.chains.ingestion.IngestionPipeline;
+import com.edgechain.lib.chains.ingestion.PineconeIngestionSink;
+import com.edgechain.lib.chains.manifest.ChunkManifest;
+import com.edgechain.lib.chains.manifest.ChunkManifestStore;
 import com.edgechain.lib.endpoint.impl.embeddings.BgeSmallEndpoint;
 import com.edgechain.lib.endpoint.impl.embeddings.MiniLMEndpoint;
 import com.edgechain.lib.endpoint.impl.embeddings.OpenAiEmbeddingEndpoint;
 import com.edgechain.lib.endpoint.impl.index.PineconeEndpoint;
 import com.edgechain.lib.request.ArkRequest;
-import io.reactivex.rxjava3.core.Completable;
-import io.reactivex.rxjava3.core.Observable;
-import io.reactivex.rxjava3.schedulers.Schedulers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
+import java.util.Objects;
 
 public class PineconeRetrieval {
 
+  // Pinecone accepts at most 1000 ids per delete request
+  private static final int DELETE_BATCH_SIZE = 1000;
+
   private final PineconeEndpoint pineconeEndpoint;
 
   private final ArkRequest arkRequest;
   private final String[] arr;
   private String namespace;
   private int batchSize = 30;
+  private int embedConcurrency = 2;
+  private int writeConcurrency = 1;
+
+  // Incremental re-ingestion: only chunks which changed since the last upsert are embedded
+  private ChunkManifestStore manifestStore;
+  private String documentKey;
 
   public PineconeRetrieval(
       String[] arr, PineconeEndpoint pineconeEndpoint, String namespace, ArkRequest arkRequest) {
@@ -39,34 +49,58 @@ public class PineconeRetrieval {
       logger.info(String.format("Using BgeSmall: " + bgeSmallEndpoint.getModelUrl()));
   }
 
+  /**
+   * Embeds and upserts the chunks. With a manifest store set, only the chunks which are new or
+   * changed since the last upsert of the document are embedded, and chunks which disappeared from
+   * it are deleted.
+   */
   public void upsert() {
-    Observable.fromArray(arr)
-        .buffer(batchSize)
-        .concatMapCompletable(
-            batch ->
-                Observable.fromIterable(batch)
-                    .flatMap(
-                        input ->
-                            Observable.fromCallable(() -> generateEmbeddings(input))
-                                .subscribeOn(Schedulers.io()))
-                    .toList()
-                    .flatMapCompletable(
-                        wordEmbeddingsList ->
-                            Completable.fromAction(() -> executeBatchUpsert(wordEmbeddingsList))
-                                .subscribeOn(Schedulers.io())))
-        .blockingAwait();
+    if (Objects.isNull(manifestStore)) {
+      upsert(arr);
+      return;
+    }
+
+    String key = String.join(":", namespace, documentKey);
+    ChunkManifest.Diff diff =
+        ChunkManifest.diff(
+            manifestStore.load(key),
+            arr,
+            pineconeEndpoint.getEmbeddingEndpoint().modelId());
+
+    upsert(diff.getChanged().toArray(String[]::new));
+
+    List<String> removed = diff.getRemoved();
+    for (int from = 0; from < removed.size(); from += DELETE_BATCH_SIZE) {
+      pineconeEndpoint.deleteByIds(
+          removed.subList(from, Math.min(from + DELETE_BATCH_SIZE, removed.size())), namespace);
+    }
+
+    manifestStore.save(key, diff.getManifest());
+  }
+
+  private void upsert(String[] chunks) {
+    pipeline().run(chunks);
   }
 
-  private WordEmbeddings generateEmbeddings(String input) {
-    return pineconeEndpoint
-        .getEmbeddingEndpoint()
-        .embeddings(input, arkRequest)
-        .firstOrError()
-        .blockingGet();
+  private IngestionPipeline pipeline() {
+    IngestionPipeline pipeline =
+        new IngestionPipeline(
+            pineconeEndpoint.getEmbeddingEndpoint(),
+            new PineconeIngestionSink(pineconeEndpoint, namespace),
+            arkRequest);
+    pipeline.setBatchSize(batchSize);
+    pipeline.setEmbedConcurrency(embedConcurrency);
+    pipeline.setWriteConcurrency(writeConcurrency);
+    return pipeline;
   }
 
-  private void executeBatchUpsert(List<WordEmbeddings> wordEmbeddingsList) {
-    pineconeEndpoint.batchUpsert(wordEmbeddingsList, this.namespace);
+  /**
+   * Enables incremental re-ingestion; the document key names the chunked document (e.g. its file
+   * name) within the namespace.
+   */
+  public void setManifestStore(ChunkManifestStore manifestStore, String documentKey) {
+    this.manifestStore = manifestStore;
+    this.documentKey = documentKey;
   }
 
   public int getBatchSize() {
@@ -76,4 +110,20 @@ public class PineconeRetrieval {
   public void setBatchSize(int batchSize) {
     this.batchSize = batchSize;
   }
+
+  public int getEmbedConcurrency() {
+    return embedConcurrency;
+  }
+
+  public void setEmbedConcurrency(int embedConcurrency) {
+    this.embedConcurrency = embedConcurrency;
+  }
+
+  public int getWriteConcurrency() {
+    return writeConcurrency;
+  }
+
+  public void setWriteConcurrency(int writeConcurrency) {
+    this.writeConcurrency = writeConcurrency;
+  }
 }
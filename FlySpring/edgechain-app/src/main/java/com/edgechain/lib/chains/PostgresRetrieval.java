@@ -1,6 +1,9 @@
 package com.edgechain.lib.chains;
 
-import com.edgechain.lib.embeddings.WordEmbeddings;
+import com.edgechain.lib.chains.ingestion.IngestionPipeline;
+import com.edgechain.lib.chains.ingestion.PostgresIngestionSink;
+import com.edgechain.lib.chains.manifest.ChunkManifest;
+import com.edgechain.lib.chains.manifest.ChunkManifestStore;
 import com.edgechain.lib.endpoint.impl.embeddings.BgeSmallEndpoint;
 import com.edgechain.lib.endpoint.impl.embeddings.MiniLMEndpoint;
 import com.edgechain.lib.endpoint.impl.embeddings.OpenAiEmbeddingEndpoint;
@@ -11,12 +14,12 @@ import com.edgechain.lib.request.ArkRequest;
 import com.edgechain.lib.response.StringResponse;
 import io.reactivex.rxjava3.core.Completable;
 import io.reactivex.rxjava3.core.Observable;
-import io.reactivex.rxjava3.schedulers.Schedulers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.concurrent.*;
 import java.util.stream.Collectors;
 
@@ -25,6 +28,8 @@ public class PostgresRetrieval {
   private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
   private int batchSize = 30;
+  private int embedConcurrency = 2;
+  private int writeConcurrency = 1;
 
   private final String[] arr;
 
@@ -39,6 +44,9 @@ public class PostgresRetrieval {
   private final PostgresDistanceMetric metric;
   private final int lists;
 
+  // Incremental re-ingestion: only chunks which changed since the last upsert are embedded
+  private ChunkManifestStore manifestStore;
+
   public PostgresRetrieval(
       String[] arr,
       PostgresEndpoint postgresEndpoint,
@@ -90,51 +98,57 @@ public class PostgresRetrieval {
       logger.info(String.format("Using BgeSmall: " + bgeSmallEndpoint.getModelUrl()));
   }
 
+  /**
+   * Embeds and upserts the chunks. With a manifest store set, only the chunks which are new or
+   * changed since the last upsert of the file are embedded, chunks which disappeared from the file
+   * are deleted, and only the ids of the rows written are returned.
+   */
   public List<String> upsert() {
 
     // Create Table...
     this.postgresEndpoint.createTable(dimensions, metric, lists);
 
-    ConcurrentLinkedQueue<String> uuidQueue = new ConcurrentLinkedQueue<>();
-
-    Observable.fromArray(arr)
-        .buffer(batchSize)
-        .concatMapCompletable(
-            batch ->
-                Observable.fromIterable(batch)
-                    .flatMap(
-                        input ->
-                            Observable.fromCallable(() -> generateEmbeddings(input))
-                                .subscribeOn(Schedulers.io()))
-                    .toList()
-                    .flatMapCompletable(
-                        wordEmbeddingsList ->
-                            Completable.fromAction(
-                                    () -> upsertAndCollectIds(wordEmbeddingsList, uuidQueue))
-                                .subscribeOn(Schedulers.io())))
-        .blockingAwait();
-
-    return new ArrayList<>(uuidQueue);
-  }
-
-  private WordEmbeddings generateEmbeddings(String input) {
-    return postgresEndpoint
-        .getEmbeddingEndpoint()
-        .embeddings(input, arkRequest)
-        .firstOrError()
-        .blockingGet();
+    if (Objects.isNull(manifestStore)) return upsert(arr);
+
+    String key =
+        String.join(
+            ":", postgresEndpoint.getTableName(), postgresEndpoint.getNamespace(), filename);
+    ChunkManifest.Diff diff =
+        ChunkManifest.diff(
+            manifestStore.load(key),
+            arr,
+            postgresEndpoint.getEmbeddingEndpoint().modelId());
+
+    List<String> ids = upsert(diff.getChanged().toArray(String[]::new));
+    if (!diff.getRemoved().isEmpty())
+      this.postgresEndpoint.deleteChunks(filename, diff.getRemoved());
+
+    manifestStore.save(key, diff.getManifest());
+    logger.info(
+        String.format(
+            "%s: %d chunks embedded, %d deleted, %d unchanged",
+            filename,
+            diff.getChanged().size(),
+            diff.getRemoved().size(),
+            diff.getManifest().getChunks().size() - diff.getChanged().size()));
+
+    return ids;
   }
 
-  private void upsertAndCollectIds(
-      List<WordEmbeddings> wordEmbeddingsList, ConcurrentLinkedQueue<String> uuidQueue) {
-    List<String> batchUuidList = executeBatchUpsert(wordEmbeddingsList);
-    uuidQueue.addAll(batchUuidList);
+  private List<String> upsert(String[] chunks) {
+    return pipeline().run(chunks);
   }
 
-  private List<String> executeBatchUpsert(List<WordEmbeddings> wordEmbeddingsList) {
-    return this.postgresEndpoint.upsert(wordEmbeddingsList, filename, postgresLanguage).stream()
-        .map(StringResponse::getResponse)
-        .collect(Collectors.toList());
+  private IngestionPipeline pipeline() {
+    IngestionPipeline pipeline =
+        new IngestionPipeline(
+            postgresEndpoint.getEmbeddingEndpoint(),
+            new PostgresIngestionSink(postgresEndpoint, filename, postgresLanguage),
+            arkRequest);
+    pipeline.setBatchSize(batchSize);
+    pipeline.setEmbedConcurrency(embedConcurrency);
+    pipeline.setWriteConcurrency(writeConcurrency);
+    return pipeline;
   }
 
   public List<String> insertMetadata(String metadataTableName) {
@@ -176,6 +190,14 @@ public class PostgresRetrieval {
         .collect(Collectors.toList());
   }
 
+  public ChunkManifestStore getManifestStore() {
+    return manifestStore;
+  }
+
+  public void setManifestStore(ChunkManifestStore manifestStore) {
+    this.manifestStore = manifestStore;
+  }
+
   public int getBatchSize() {
     return batchSize;
   }
@@ -183,4 +205,20 @@ public class PostgresRetrieval {
   public void setBatchSize(int batchSize) {
     this.batchSize = batchSize;
   }
+
+  public int getEmbedConcurrency() {
+    return embedConcurrency;
+  }
+
+  public void setEmbedConcurrency(int embedConcurrency) {
+    this.embedConcurrency = embedConcurrency;
+  }
+
+  public int getWriteConcurrency() {
+    return writeConcurrency;
+  }
+
+  public void setWriteConcurrency(int writeConcurrency) {
+    this.writeConcurrency = writeConcurrency;
+  }
 }
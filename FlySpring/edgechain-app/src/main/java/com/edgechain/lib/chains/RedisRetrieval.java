@@ -1,19 +1,19 @@
 package com.edgechain.lib.chains;
 
-import com.edgechain.lib.embeddings.WordEmbeddings;
+import com.edgechain.lib.chains.ingestion.IngestionPipeline;
+import com.edgechain.lib.chains.ingestion.RedisIngestionSink;
+import com.edgechain.lib.chains.manifest.ChunkManifest;
+import com.edgechain.lib.chains.manifest.ChunkManifestStore;
 import com.edgechain.lib.endpoint.impl.embeddings.BgeSmallEndpoint;
 import com.edgechain.lib.endpoint.impl.embeddings.MiniLMEndpoint;
 import com.edgechain.lib.endpoint.impl.embeddings.OpenAiEmbeddingEndpoint;
 import com.edgechain.lib.endpoint.impl.index.RedisEndpoint;
 import com.edgechain.lib.index.enums.RedisDistanceMetric;
 import com.edgechain.lib.request.ArkRequest;
-import io.reactivex.rxjava3.core.Completable;
-import io.reactivex.rxjava3.core.Observable;
-import io.reactivex.rxjava3.schedulers.Schedulers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.List;
+import java.util.Objects;
 
 public class RedisRetrieval {
   private final RedisEndpoint redisEndpoint;
@@ -22,6 +22,12 @@ public class RedisRetrieval {
   private final int dimension;
   private final RedisDistanceMetric metric;
   private int batchSize = 30;
+  private int embedConcurrency = 2;
+  private int writeConcurrency = 1;
+
+  // Incremental re-ingestion: only chunks which changed since the last upsert are embedded
+  private ChunkManifestStore manifestStore;
+  private String documentKey;
 
   public RedisRetrieval(
       String[] arr,
@@ -44,37 +50,58 @@ public class RedisRetrieval {
       logger.info(String.format("Using BgeSmall: " + bgeSmallEndpoint.getModelUrl()));
   }
 
+  /**
+   * Embeds and upserts the chunks. With a manifest store set, only the chunks which are new or
+   * changed since the last upsert of the document are embedded, and chunks which disappeared from
+   * it are deleted.
+   */
   public void upsert() {
 
     this.redisEndpoint.createIndex(redisEndpoint.getNamespace(), dimension, metric);
 
-    Observable.fromArray(arr)
-        .buffer(batchSize)
-        .concatMapCompletable(
-            batch ->
-                Observable.fromIterable(batch)
-                    .flatMap(
-                        input ->
-                            Observable.fromCallable(() -> generateEmbeddings(input))
-                                .subscribeOn(Schedulers.io()))
-                    .toList()
-                    .flatMapCompletable(
-                        wordEmbeddingsList ->
-                            Completable.fromAction(() -> executeBatchUpsert(wordEmbeddingsList))
-                                .subscribeOn(Schedulers.io())))
-        .blockingAwait();
+    if (Objects.isNull(manifestStore)) {
+      upsert(arr);
+      return;
+    }
+
+    String key =
+        String.join(
+            ":", redisEndpoint.getIndexName(), redisEndpoint.getNamespace(), documentKey);
+    ChunkManifest.Diff diff =
+        ChunkManifest.diff(
+            manifestStore.load(key),
+            arr,
+            redisEndpoint.getEmbeddingEndpoint().modelId());
+
+    upsert(diff.getChanged().toArray(String[]::new));
+    if (!diff.getRemoved().isEmpty()) redisEndpoint.deleteByIds(diff.getRemoved());
+
+    manifestStore.save(key, diff.getManifest());
   }
 
-  private WordEmbeddings generateEmbeddings(String input) {
-    return redisEndpoint
-        .getEmbeddingEndpoint()
-        .embeddings(input, arkRequest)
-        .firstOrError()
-        .blockingGet();
+  private void upsert(String[] chunks) {
+    pipeline().run(chunks);
   }
 
-  private void executeBatchUpsert(List<WordEmbeddings> wordEmbeddingsList) {
-    redisEndpoint.batchUpsert(wordEmbeddingsList);
+  private IngestionPipeline pipeline() {
+    IngestionPipeline pipeline =
+        new IngestionPipeline(
+            redisEndpoint.getEmbeddingEndpoint(),
+            new RedisIngestionSink(redisEndpoint),
+            arkRequest);
+    pipeline.setBatchSize(batchSize);
+    pipeline.setEmbedConcurrency(embedConcurrency);
+    pipeline.setWriteConcurrency(writeConcurrency);
+    return pipeline;
+  }
+
+  /**
+   * Enables incremental re-ingestion; the document key names the chunked document (e.g. its file
+   * name) within the index and namespace.
+   */
+  public void setManifestStore(ChunkManifestStore manifestStore, String documentKey) {
+    this.manifestStore = manifestStore;
+    this.documentKey = documentKey;
   }
 
   public void setBatchSize(int batchSize) {
@@ -84,4 +111,20 @@ public class RedisRetrieval {
   public int getBatchSize() {
     return batchSize;
   }
+
+  public int getEmbedConcurrency() {
+    return embedConcurrency;
+  }
+
+  public void setEmbedConcurrency(int embedConcurrency) {
+    this.embedConcurrency = embedConcurrency;
+  }
+
+  public int getWriteConcurrency() {
+    return writeConcurrency;
+  }
+
+  public void setWriteConcurrency(int writeConcurrency) {
+    this.writeConcurrency = writeConcurrency;
+  }
 }
@@ -0,0 +1,59 @@
+package com.edgechain.lib.chains.ingestion;
+
+/** The state of one file of an {@link IngestionJob}, as last saved by the job. */
+public class FileCheckpoint {
+
+  public enum Status {
+    RUNNING,
+    DONE,
+    FAILED
+  }
+
+  private String fingerprint;
+  private Status status;
+  private int chunks;
+  private String error;
+
+  public FileCheckpoint() {}
+
+  public FileCheckpoint(String fingerprint, Status status, int chunks, String error) {
+    this.fingerprint = fingerprint;
+    this.status = status;
+    this.chunks = chunks;
+    this.error = error;
+  }
+
+  /** Size and modification time of the file when it was ingested. */
+  public String getFingerprint() {
+    return fingerprint;
+  }
+
+  public void setFingerprint(String fingerprint) {
+    this.fingerprint = fingerprint;
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  public void setStatus(Status status) {
+    this.status = status;
+  }
+
+  /** Chunks written for the file by the run which saved the checkpoint. */
+  public int getChunks() {
+    return chunks;
+  }
+
+  public void setChunks(int chunks) {
+    this.chunks = chunks;
+  }
+
+  public String getError() {
+    return error;
+  }
+
+  public void setError(String error) {
+    this.error = error;
+  }
+}
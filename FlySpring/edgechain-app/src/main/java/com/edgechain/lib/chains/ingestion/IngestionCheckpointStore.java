@@ -0,0 +1,25 @@
+package com.edgechain.lib.chains.ingestion;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Persists the progress of {@link IngestionJob}s: a checkpoint per file and, within a file, the
+ * chunks of every batch already written to the index.
+ */
+public interface IngestionCheckpointStore {
+
+  /** Returns the checkpoint of the file, or null when the job never started it. */
+  FileCheckpoint loadFile(String jobId, String file);
+
+  void saveFile(String jobId, String file, FileCheckpoint checkpoint);
+
+  /** Returns the hashes of the chunks of the file written by previous runs of the job. */
+  Set<String> loadWrittenChunks(String jobId, String file);
+
+  /** Records one written batch by the hashes of its chunks. */
+  void saveBatch(String jobId, String file, List<String> chunkHashes);
+
+  /** Forgets every checkpoint of the job, so that its next run ingests everything again. */
+  void deleteJob(String jobId);
+}
@@ -0,0 +1,242 @@
+package com.edgechain.lib.chains.ingestion;
+
+import com.edgechain.lib.chains.manifest.ChunkManifest;
+import com.edgechain.lib.endpoint.impl.embeddings.EmbeddingEndpoint;
+import com.edgechain.lib.reader.Reader;
+import com.edgechain.lib.request.ArkRequest;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Ingests many files, e.g. a whole directory, as one resumable job. Up to {@code fileParallelism}
+ * files run at once, each through its own {@link IngestionPipeline}; every batch written is
+ * checkpointed by the hashes of its chunks, and every file by its size and modification time.
+ *
+ * <p>Running the job again with the same id, after a failure or a crash, skips the files completed
+ * since and unchanged, and within the other files only embeds the chunks not written yet. Files
+ * which failed are logged and recorded, and don't stop the others.
+ */
+public class IngestionJob {
+
+  private static final long PROGRESS_LOG_INTERVAL = TimeUnit.SECONDS.toNanos(10);
+
+  private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+  private final String jobId;
+  private final List<Path> files;
+  private final Function<Path, Flowable<String>> chunker;
+  private final EmbeddingEndpoint embeddingEndpoint;
+  private final Function<Path, IngestionSink> sinks;
+  private final IngestionCheckpointStore checkpointStore;
+  private final ArkRequest arkRequest;
+
+  private int fileParallelism = 4;
+  private int batchSize = 30;
+  private int embedConcurrency = 2;
+  private int writeConcurrency = 1;
+
+  private volatile IngestionProgress progress;
+  private final AtomicLong lastProgressLog = new AtomicLong();
+
+  /**
+   * @param chunker reads the chunks of a file, e.g. {@link #chunker(Reader, int)}
+   * @param sinks creates the sink of a file, e.g. a {@link PostgresIngestionSink} which records the
+   *     file name; the index (table) must already exist
+   */
+  public IngestionJob(
+      String jobId,
+      List<Path> files,
+      Function<Path, Flowable<String>> chunker,
+      EmbeddingEndpoint embeddingEndpoint,
+      Function<Path, IngestionSink> sinks,
+      IngestionCheckpointStore checkpointStore,
+      ArkRequest arkRequest) {
+    this.jobId = jobId;
+    this.files = files;
+    this.chunker = chunker;
+    this.embeddingEndpoint = embeddingEndpoint;
+    this.sinks = sinks;
+    this.checkpointStore = checkpointStore;
+    this.arkRequest = arkRequest;
+  }
+
+  /** Lists the regular files under the directory, recursively, in a stable order. */
+  public static List<Path> files(Path directory) {
+    try (Stream<Path> paths = Files.walk(directory)) {
+      return paths.filter(Files::isRegularFile).sorted().toList();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Chunks each file with the reader, streaming its chunks as it is parsed; the file is opened only
+   * once its chunks are requested.
+   */
+  public static Function<Path, Flowable<String>> chunker(Reader reader, int chunkSize) {
+    return file ->
+        Flowable.using(
+            () -> Files.newInputStream(file),
+            in -> reader.streamByChunkSize(in, chunkSize),
+            InputStream::close);
+  }
+
+  /** Runs the job, blocking until every file is ingested or failed. */
+  public IngestionProgress run() {
+    IngestionProgress progress = new IngestionProgress(files.size());
+    this.progress = progress;
+    lastProgressLog.set(System.nanoTime());
+    logger.info(String.format("Ingestion job %s: %d files", jobId, files.size()));
+
+    Flowable.fromIterable(files)
+        .flatMapCompletable(
+            file ->
+                Completable.fromAction(() -> ingest(file, progress))
+                    .subscribeOn(Schedulers.io()),
+            false,
+            fileParallelism)
+        .blockingAwait();
+
+    progress.finish();
+    logger.info(String.format("Ingestion job %s finished: %s", jobId, progress));
+    return progress;
+  }
+
+  private void ingest(Path file, IngestionProgress progress) {
+    String name = file.toString();
+    AtomicInteger written = new AtomicInteger();
+    String fingerprint = null;
+
+    try {
+      fingerprint = Files.size(file) + ":" + Files.getLastModifiedTime(file).toMillis();
+
+      FileCheckpoint checkpoint = checkpointStore.loadFile(jobId, name);
+      if (Objects.nonNull(checkpoint)
+          && checkpoint.getStatus() == FileCheckpoint.Status.DONE
+          && fingerprint.equals(checkpoint.getFingerprint())) {
+        progress.fileSkipped();
+        return;
+      }
+
+      Set<String> writtenBefore =
+          Objects.isNull(checkpoint) ? Set.of() : checkpointStore.loadWrittenChunks(jobId, name);
+      checkpointStore.saveFile(
+          jobId, name, new FileCheckpoint(fingerprint, FileCheckpoint.Status.RUNNING, 0, null));
+
+      IngestionSink sink = sinks.apply(file);
+      IngestionPipeline pipeline =
+          new IngestionPipeline(
+              embeddingEndpoint,
+              batch -> {
+                List<String> ids = sink.write(batch);
+                checkpointStore.saveBatch(
+                    jobId, name, batch.stream().map(e -> ChunkManifest.hash(e.getId())).toList());
+                written.addAndGet(batch.size());
+                progress.chunksWritten(batch.size());
+                return ids;
+              },
+              arkRequest);
+      pipeline.setBatchSize(batchSize);
+      pipeline.setEmbedConcurrency(embedConcurrency);
+      pipeline.setWriteConcurrency(writeConcurrency);
+
+      Flowable<String> chunks =
+          chunker
+              .apply(file)
+              .filter(
+                  chunk -> {
+                    if (!writtenBefore.contains(ChunkManifest.hash(chunk))) return true;
+                    progress.chunkSkipped();
+                    return false;
+                  });
+      pipeline.ingest(chunks).ignoreElements().blockingAwait();
+
+      checkpointStore.saveFile(
+          jobId,
+          name,
+          new FileCheckpoint(fingerprint, FileCheckpoint.Status.DONE, written.get(), null));
+      progress.fileCompleted();
+
+    } catch (final Exception e) {
+      logger.error(String.format("Ingestion job %s: failed to ingest %s", jobId, name), e);
+      progress.fileFailed();
+      try {
+        checkpointStore.saveFile(
+            jobId,
+            name,
+            new FileCheckpoint(
+                fingerprint, FileCheckpoint.Status.FAILED, written.get(), e.getMessage()));
+      } catch (final Exception saveError) {
+        // the file isn't marked done either way, so the next run retries it
+        logger.error("Failed to save checkpoint of " + name, saveError);
+      }
+    }
+
+    logProgress(progress);
+  }
+
+  private void logProgress(IngestionProgress progress) {
+    long now = System.nanoTime();
+    long last = lastProgressLog.get();
+    if (now - last >= PROGRESS_LOG_INTERVAL && lastProgressLog.compareAndSet(last, now)) {
+      logger.info(String.format("Ingestion job %s: %s", jobId, progress));
+    }
+  }
+
+  /** The progress of the current or last run, or null before the first run. */
+  public IngestionProgress getProgress() {
+    return progress;
+  }
+
+  public String getJobId() {
+    return jobId;
+  }
+
+  public int getFileParallelism() {
+    return fileParallelism;
+  }
+
+  public void setFileParallelism(int fileParallelism) {
+    this.fileParallelism = fileParallelism;
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  public void setBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+  }
+
+  public int getEmbedConcurrency() {
+    return embedConcurrency;
+  }
+
+  public void setEmbedConcurrency(int embedConcurrency) {
+    this.embedConcurrency = embedConcurrency;
+  }
+
+  public int getWriteConcurrency() {
+    return writeConcurrency;
+  }
+
+  public void setWriteConcurrency(int writeConcurrency) {
+    this.writeConcurrency = writeConcurrency;
+  }
+}
@@ -0,0 +1,150 @@
+package com.edgechain.lib.chains.ingestion;
+
+import com.edgechain.lib.chains.manifest.ChunkManifest;
+import com.edgechain.lib.embeddings.WordEmbeddings;
+import com.edgechain.lib.endpoint.impl.embeddings.EmbeddingEndpoint;
+import com.edgechain.lib.request.ArkRequest;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Ingests chunks into an index in explicit, backpressured stages:
+ *
+ * <ol>
+ *   <li>read: the chunks are pulled from the source as the next stages ask for them;
+ *   <li>dedupe: blank chunks, and chunks repeating one of the last {@code dedupeWindow} distinct
+ *       chunks, are dropped;
+ *   <li>batch: chunks are grouped into batches of {@code batchSize};
+ *   <li>embed: up to {@code embedConcurrency} batches are embedded at once, one call each;
+ *   <li>write: up to {@code writeConcurrency} embedded batches are written to the {@link
+ *       IngestionSink} at once.
+ * </ol>
+ *
+ * Embedded batches wait for the write stage in a queue of at most {@code queueCapacity} batches,
+ * so the next batches are embedded while the previous ones are written, and a slow index pauses
+ * embedding instead of piling embeddings up in memory (and vice versa).
+ *
+ * <p>Deduplication remembers the SHA-256 of the chunks (see {@link ChunkManifest#hash}), not the
+ * chunks, and only of the {@code dedupeWindow} most recently seen ones, so its memory is bounded
+ * whatever the size of the source: about 10 MB with the default window of 65536. A chunk repeated
+ * further apart than the window is ingested again; sinks upsert on the chunk text, so it is
+ * embedded twice but stored once.
+ */
+public class IngestionPipeline {
+
+  private final EmbeddingEndpoint embeddingEndpoint;
+  private final IngestionSink sink;
+  private final ArkRequest arkRequest;
+
+  private int batchSize = 30;
+  private int embedConcurrency = 2;
+  private int writeConcurrency = 1;
+  private int queueCapacity = 4;
+  private boolean dedupe = true;
+  private int dedupeWindow = 65536;
+
+  public IngestionPipeline(
+      EmbeddingEndpoint embeddingEndpoint, IngestionSink sink, ArkRequest arkRequest) {
+    this.embeddingEndpoint = embeddingEndpoint;
+    this.sink = sink;
+    this.arkRequest = arkRequest;
+  }
+
+  /** Runs the pipeline over the chunks, blocking until every batch is written. */
+  public List<String> run(String[] chunks) {
+    return ingest(Flowable.fromArray(chunks)).toList().blockingGet();
+  }
+
+  /**
+   * Returns the pipeline over the source, emitting the ids reported by the sink as batches are
+   * written. Nothing is read before subscription.
+   */
+  public Flowable<String> ingest(Flowable<String> chunks) {
+    Flowable<String> read = chunks.subscribeOn(Schedulers.io()).filter(c -> !c.isBlank());
+
+    Flowable<List<String>> batches =
+        (dedupe ? read.distinct(ChunkManifest::hash, () -> recentHashes(dedupeWindow)) : read)
+            .buffer(batchSize);
+
+    Flowable<List<WordEmbeddings>> embedded =
+        batches.flatMapSingle(
+            batch -> embed(batch).subscribeOn(Schedulers.io()), false, embedConcurrency);
+
+    return embedded
+        .observeOn(Schedulers.io(), false, queueCapacity)
+        .flatMapSingle(
+            batch -> Single.fromCallable(() -> sink.write(batch)).subscribeOn(Schedulers.io()),
+            false,
+            writeConcurrency)
+        .concatMapIterable(ids -> ids);
+  }
+
+  /** Set of the most recently added hashes; adding one already in it refreshes it. */
+  private static Set<String> recentHashes(int capacity) {
+    return Collections.newSetFromMap(
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > capacity;
+          }
+        });
+  }
+
+  private Single<List<WordEmbeddings>> embed(List<String> batch) {
+    return embeddingEndpoint.embeddings(batch, arkRequest).firstOrError();
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  public void setBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+  }
+
+  public int getEmbedConcurrency() {
+    return embedConcurrency;
+  }
+
+  public void setEmbedConcurrency(int embedConcurrency) {
+    this.embedConcurrency = embedConcurrency;
+  }
+
+  public int getWriteConcurrency() {
+    return writeConcurrency;
+  }
+
+  public void setWriteConcurrency(int writeConcurrency) {
+    this.writeConcurrency = writeConcurrency;
+  }
+
+  public int getQueueCapacity() {
+    return queueCapacity;
+  }
+
+  public void setQueueCapacity(int queueCapacity) {
+    this.queueCapacity = queueCapacity;
+  }
+
+  public boolean isDedupe() {
+    return dedupe;
+  }
+
+  public void setDedupe(boolean dedupe) {
+    this.dedupe = dedupe;
+  }
+
+  public int getDedupeWindow() {
+    return dedupeWindow;
+  }
+
+  public void setDedupeWindow(int dedupeWindow) {
+    this.dedupeWindow = dedupeWindow;
+  }
+}
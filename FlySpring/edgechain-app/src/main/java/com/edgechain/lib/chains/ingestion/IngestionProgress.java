@@ -0,0 +1,110 @@
+package com.edgechain.lib.chains.ingestion;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Live counters of an {@link IngestionJob} run; safe to read while the job is running. */
+public class IngestionProgress {
+
+  private final int totalFiles;
+  private final long startNanos = System.nanoTime();
+
+  private final AtomicInteger completedFiles = new AtomicInteger();
+  private final AtomicInteger skippedFiles = new AtomicInteger();
+  private final AtomicInteger failedFiles = new AtomicInteger();
+  private final AtomicLong chunksWritten = new AtomicLong();
+  private final AtomicLong chunksSkipped = new AtomicLong();
+
+  private volatile long endNanos;
+
+  IngestionProgress(int totalFiles) {
+    this.totalFiles = totalFiles;
+  }
+
+  void fileCompleted() {
+    completedFiles.incrementAndGet();
+  }
+
+  void fileSkipped() {
+    skippedFiles.incrementAndGet();
+  }
+
+  void fileFailed() {
+    failedFiles.incrementAndGet();
+  }
+
+  void chunksWritten(int chunks) {
+    chunksWritten.addAndGet(chunks);
+  }
+
+  void chunkSkipped() {
+    chunksSkipped.incrementAndGet();
+  }
+
+  void finish() {
+    endNanos = System.nanoTime();
+  }
+
+  public int getTotalFiles() {
+    return totalFiles;
+  }
+
+  /** Files ingested by this run. */
+  public int getCompletedFiles() {
+    return completedFiles.get();
+  }
+
+  /** Files left alone because a previous run completed them and they haven't changed since. */
+  public int getSkippedFiles() {
+    return skippedFiles.get();
+  }
+
+  public int getFailedFiles() {
+    return failedFiles.get();
+  }
+
+  public int getRemainingFiles() {
+    return totalFiles - getCompletedFiles() - getSkippedFiles() - getFailedFiles();
+  }
+
+  public long getChunksWritten() {
+    return chunksWritten.get();
+  }
+
+  /** Chunks not embedded again because a previous run already wrote them. */
+  public long getChunksSkipped() {
+    return chunksSkipped.get();
+  }
+
+  public boolean isFinished() {
+    return endNanos != 0;
+  }
+
+  public Duration getElapsed() {
+    return Duration.ofNanos((isFinished() ? endNanos : System.nanoTime()) - startNanos);
+  }
+
+  /** Chunks embedded and written per second, since the run started. */
+  public double getChunksPerSecond() {
+    return getChunksWritten() / Math.max(getElapsed().toNanos() / 1e9, 1e-3);
+  }
+
+  /** Files ingested per second, since the run started. */
+  public double getFilesPerSecond() {
+    return getCompletedFiles() / Math.max(getElapsed().toNanos() / 1e9, 1e-3);
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "%d/%d files (%d skipped, %d failed), %d chunks written, %d skipped, %.1f chunks/s",
+        getCompletedFiles() + getSkippedFiles() + getFailedFiles(),
+        totalFiles,
+        getSkippedFiles(),
+        getFailedFiles(),
+        getChunksWritten(),
+        getChunksSkipped(),
+        getChunksPerSecond());
+  }
+}
@@ -0,0 +1,17 @@
+package com.edgechain.lib.chains.ingestion;
+
+import com.edgechain.lib.embeddings.WordEmbeddings;
+import java.util.List;
+
+/** The write stage of an {@link IngestionPipeline}: stores one batch of embedded chunks. */
+@FunctionalInterface
+public interface IngestionSink {
+
+  /**
+   * Writes the batch, blocking until it is stored. Called concurrently for different batches when
+   * the pipeline's write concurrency is above one.
+   *
+   * @return the ids of the rows written, or an empty list if the index doesn't report them
+   */
+  List<String> write(List<WordEmbeddings> batch);
+}
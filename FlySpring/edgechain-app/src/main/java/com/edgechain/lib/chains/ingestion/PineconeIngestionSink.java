@@ -0,0 +1,23 @@
+package com.edgechain.lib.chains.ingestion;
+
+import com.edgechain.lib.embeddings.WordEmbeddings;
+import com.edgechain.lib.endpoint.impl.index.PineconeEndpoint;
+import java.util.List;
+
+/** Upserts the chunks into a namespace of the endpoint's index. */
+public class PineconeIngestionSink implements IngestionSink {
+
+  private final PineconeEndpoint pineconeEndpoint;
+  private final String namespace;
+
+  public PineconeIngestionSink(PineconeEndpoint pineconeEndpoint, String namespace) {
+    this.pineconeEndpoint = pineconeEndpoint;
+    this.namespace = namespace;
+  }
+
+  @Override
+  public List<String> write(List<WordEmbeddings> batch) {
+    pineconeEndpoint.batchUpsert(batch, namespace);
+    return List.of();
+  }
+}
@@ -0,0 +1,119 @@
+package com.edgechain.lib.chains.ingestion;
+
+import com.edgechain.lib.configuration.PostgreSQLSchemaRegistry;
+import java.sql.PreparedStatement;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Keeps the checkpoints in the {@code ingestion_files} and {@code ingestion_batches} tables, which
+ * are created on first use. Every save is its own transaction, so a crash loses at most the batch
+ * being written.
+ */
+@Repository
+public class PostgresIngestionCheckpointStore implements IngestionCheckpointStore {
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+  @Autowired private PostgreSQLSchemaRegistry schemaRegistry;
+
+  private static final String SQL_CREATE_TABLES =
+      """
+      CREATE TABLE IF NOT EXISTS ingestion_files (
+              job_id TEXT NOT NULL,
+              file TEXT NOT NULL,
+              fingerprint TEXT,
+              status VARCHAR(16) NOT NULL,
+              chunks INTEGER NOT NULL DEFAULT 0,
+              error TEXT,
+              updated_at TIMESTAMP NOT NULL DEFAULT now(),
+              PRIMARY KEY (job_id, file)
+          );
+      CREATE TABLE IF NOT EXISTS ingestion_batches (
+              job_id TEXT NOT NULL,
+              file TEXT NOT NULL,
+              chunk_hashes TEXT[] NOT NULL,
+              created_at TIMESTAMP NOT NULL DEFAULT now()
+          );
+      CREATE INDEX IF NOT EXISTS idx_ingestion_batches ON ingestion_batches (job_id, file);
+              """;
+
+  @Override
+  public FileCheckpoint loadFile(String jobId, String file) {
+    ensureTables();
+    List<FileCheckpoint> checkpoints =
+        jdbcTemplate.query(
+            "SELECT fingerprint, status, chunks, error FROM ingestion_files"
+                + " WHERE job_id = ? AND file = ?;",
+            (rs, rowNum) ->
+                new FileCheckpoint(
+                    rs.getString("fingerprint"),
+                    FileCheckpoint.Status.valueOf(rs.getString("status")),
+                    rs.getInt("chunks"),
+                    rs.getString("error")),
+            jobId,
+            file);
+    return checkpoints.isEmpty() ? null : checkpoints.get(0);
+  }
+
+  @Override
+  @Transactional
+  public void saveFile(String jobId, String file, FileCheckpoint checkpoint) {
+    ensureTables();
+    jdbcTemplate.update(
+        "INSERT INTO ingestion_files (job_id, file, fingerprint, status, chunks, error)"
+            + " VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT (job_id, file) DO UPDATE SET"
+            + " fingerprint = EXCLUDED.fingerprint, status = EXCLUDED.status,"
+            + " chunks = EXCLUDED.chunks, error = EXCLUDED.error, updated_at = now();",
+        jobId,
+        file,
+        checkpoint.getFingerprint(),
+        checkpoint.getStatus().name(),
+        checkpoint.getChunks(),
+        checkpoint.getError());
+  }
+
+  @Override
+  public Set<String> loadWrittenChunks(String jobId, String file) {
+    ensureTables();
+    return new HashSet<>(
+        jdbcTemplate.queryForList(
+            "SELECT unnest(chunk_hashes) FROM ingestion_batches WHERE job_id = ? AND file = ?;",
+            String.class,
+            jobId,
+            file));
+  }
+
+  @Override
+  @Transactional
+  public void saveBatch(String jobId, String file, List<String> chunkHashes) {
+    ensureTables();
+    String[] hashes = chunkHashes.toArray(String[]::new);
+    jdbcTemplate.update(
+        con -> {
+          PreparedStatement ps =
+              con.prepareStatement(
+                  "INSERT INTO ingestion_batches (job_id, file, chunk_hashes) VALUES (?, ?, ?);");
+          ps.setString(1, jobId);
+          ps.setString(2, file);
+          ps.setArray(3, con.createArrayOf("text", hashes));
+          return ps;
+        });
+  }
+
+  @Override
+  @Transactional
+  public void deleteJob(String jobId) {
+    ensureTables();
+    jdbcTemplate.update("DELETE FROM ingestion_batches WHERE job_id = ?;", jobId);
+    jdbcTemplate.update("DELETE FROM ingestion_files WHERE job_id = ?;", jobId);
+  }
+
+  private void ensureTables() {
+    schemaRegistry.ensure("ingestion_checkpoints", () -> jdbcTemplate.execute(SQL_CREATE_TABLES));
+  }
+}
@@ -0,0 +1,29 @@
+package com.edgechain.lib.chains.ingestion;
+
+import com.edgechain.lib.embeddings.WordEmbeddings;
+import com.edgechain.lib.endpoint.impl.index.PostgresEndpoint;
+import com.edgechain.lib.index.enums.PostgresLanguage;
+import com.edgechain.lib.response.StringResponse;
+import java.util.List;
+
+/** Upserts the chunks of one file into the endpoint's table. */
+public class PostgresIngestionSink implements IngestionSink {
+
+  private final PostgresEndpoint postgresEndpoint;
+  private final String filename;
+  private final PostgresLanguage postgresLanguage;
+
+  public PostgresIngestionSink(
+      PostgresEndpoint postgresEndpoint, String filename, PostgresLanguage postgresLanguage) {
+    this.postgresEndpoint = postgresEndpoint;
+    this.filename = filename;
+    this.postgresLanguage = postgresLanguage;
+  }
+
+  @Override
+  public List<String> write(List<WordEmbeddings> batch) {
+    return postgresEndpoint.upsert(batch, filename, postgresLanguage).stream()
+        .map(StringResponse::getResponse)
+        .toList();
+  }
+}
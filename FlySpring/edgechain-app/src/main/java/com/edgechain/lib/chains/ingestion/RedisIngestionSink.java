@@ -0,0 +1,21 @@
+package com.edgechain.lib.chains.ingestion;
+
+import com.edgechain.lib.embeddings.WordEmbeddings;
+import com.edgechain.lib.endpoint.impl.index.RedisEndpoint;
+import java.util.List;
+
+/** Upserts the chunks into the endpoint's index. */
+public class RedisIngestionSink implements IngestionSink {
+
+  private final RedisEndpoint redisEndpoint;
+
+  public RedisIngestionSink(RedisEndpoint redisEndpoint) {
+    this.redisEndpoint = redisEndpoint;
+  }
+
+  @Override
+  public List<String> write(List<WordEmbeddings> batch) {
+    redisEndpoint.batchUpsert(batch);
+    return List.of();
+  }
+}
@@ -0,0 +1,115 @@
+package com.edgechain.lib.chains.manifest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * What was last ingested for one file: the embedding model and, per chunk, the SHA-256 of its text
+ * mapped to the id the chunk is stored under. The embedding endpoints use the chunk text itself as
+ * the WordEmbeddings id, which is what the vector stores key their rows on.
+ *
+ * <p>{@link #diff(ChunkManifest, String[], String)} compares a new chunk set against it, so a
+ * re-ingestion only embeds new or changed chunks and deletes the ones that disappeared.
+ */
+public class ChunkManifest {
+
+  private String modelId;
+
+  private Map<String, String> chunks = new LinkedHashMap<>();
+
+  public ChunkManifest() {}
+
+  public ChunkManifest(String modelId, Map<String, String> chunks) {
+    this.modelId = modelId;
+    this.chunks = chunks;
+  }
+
+  public String getModelId() {
+    return modelId;
+  }
+
+  public void setModelId(String modelId) {
+    this.modelId = modelId;
+  }
+
+  public Map<String, String> getChunks() {
+    return chunks;
+  }
+
+  public void setChunks(Map<String, String> chunks) {
+    this.chunks = chunks;
+  }
+
+  /**
+   * Diffs the chunks against the previous manifest (null when the file was never ingested). When
+   * the embedding model changed, every chunk is embedded again.
+   */
+  public static Diff diff(ChunkManifest previous, String[] chunks, String modelId) {
+    Map<String, String> current = new LinkedHashMap<>();
+    for (String chunk : chunks) {
+      current.putIfAbsent(hash(chunk), chunk);
+    }
+
+    Map<String, String> stored =
+        Objects.isNull(previous) || Objects.isNull(previous.getChunks())
+            ? Map.of()
+            : previous.getChunks();
+    boolean sameModel = Objects.nonNull(previous) && Objects.equals(previous.getModelId(), modelId);
+
+    List<String> changed = new ArrayList<>();
+    for (Map.Entry<String, String> entry : current.entrySet()) {
+      if (!sameModel || !stored.containsKey(entry.getKey())) changed.add(entry.getValue());
+    }
+
+    List<String> removed = new ArrayList<>();
+    for (Map.Entry<String, String> entry : stored.entrySet()) {
+      if (!current.containsKey(entry.getKey())) removed.add(entry.getValue());
+    }
+
+    return new Diff(changed, removed, new ChunkManifest(modelId, current));
+  }
+
+  public static String hash(String chunk) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      return HexFormat.of().formatHex(digest.digest(chunk.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  public static class Diff {
+
+    private final List<String> changed;
+    private final List<String> removed;
+    private final ChunkManifest manifest;
+
+    private Diff(List<String> changed, List<String> removed, ChunkManifest manifest) {
+      this.changed = changed;
+      this.removed = removed;
+      this.manifest = manifest;
+    }
+
+    /** New or changed chunks, which have to be embedded and upserted. */
+    public List<String> getChanged() {
+      return changed;
+    }
+
+    /** Ids of the chunks no longer in the file, which have to be deleted. */
+    public List<String> getRemoved() {
+      return removed;
+    }
+
+    /** Manifest to save once the changed chunks are upserted and the removed ones deleted. */
+    public ChunkManifest getManifest() {
+      return manifest;
+    }
+  }
+}
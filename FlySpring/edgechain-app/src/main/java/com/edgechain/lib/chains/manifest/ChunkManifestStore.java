@@ -0,0 +1,10 @@
+package com.edgechain.lib.chains.manifest;
+
+/** Persists the {@link ChunkManifest} of each ingested file between runs. */
+public interface ChunkManifestStore {
+
+  /** Returns the manifest saved under the key, or null when there is none. */
+  ChunkManifest load(String key);
+
+  void save(String key, ChunkManifest manifest);
+}
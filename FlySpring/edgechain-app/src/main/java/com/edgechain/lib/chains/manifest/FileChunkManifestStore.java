@@ -0,0 +1,55 @@
+package com.edgechain.lib.chains.manifest;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Keeps one JSON file per manifest in a directory. The file is named after the hash of the key,
+ * since keys contain table names and file paths; it is replaced atomically so an interrupted run
+ * leaves the previous manifest in place.
+ */
+public class FileChunkManifestStore implements ChunkManifestStore {
+
+  private final ObjectMapper objectMapper =
+      new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+  private final Path directory;
+
+  public FileChunkManifestStore(Path directory) {
+    this.directory = directory;
+  }
+
+  @Override
+  public ChunkManifest load(String key) {
+    Path file = file(key);
+    if (!Files.exists(file)) return null;
+
+    try {
+      return objectMapper.readValue(file.toFile(), ChunkManifest.class);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public void save(String key, ChunkManifest manifest) {
+    try {
+      Files.createDirectories(directory);
+      Path tmp = Files.createTempFile(directory, "manifest", ".tmp");
+      objectMapper.writeValue(tmp.toFile(), manifest);
+      Files.move(
+          tmp, file(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private Path file(String key) {
+    return directory.resolve(ChunkManifest.hash(key) + ".json");
+  }
+}
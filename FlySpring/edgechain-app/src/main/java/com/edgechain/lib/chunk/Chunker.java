@@ -6,7 +6,6 @@ import opennlp.tools.sentdetect.SentenceModel;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Objects;
 import java.util.stream.IntStream;
 
 public class Chunker {
@@ -33,37 +32,12 @@ public class Chunker {
   }
 
   public String[] bySentence(LangType langType) {
-    SentenceModel model = null;
-    try {
-
-      if (langType.equals(LangType.EN))
-        model =
-            new SentenceModel(
-                Objects.requireNonNull(getClass().getResourceAsStream("/en-sent.zip")));
-      else if (langType.equals(LangType.FR))
-        model =
-            new SentenceModel(
-                Objects.requireNonNull(getClass().getResourceAsStream("/fr-sent.zip")));
-      else if (langType.equals(LangType.DE))
-        model =
-            new SentenceModel(
-                Objects.requireNonNull(getClass().getResourceAsStream("/de-sent.zip")));
-      else if (langType.equals(LangType.IT))
-        model =
-            new SentenceModel(
-                Objects.requireNonNull(getClass().getResourceAsStream("/it-sent.zip")));
-      else
-        model =
-            new SentenceModel(
-                Objects.requireNonNull(getClass().getResourceAsStream("/nl-sent.zip")));
-
-    } catch (IOException e) {
-      throw new RuntimeException(e);
-    }
-    SentenceDetectorME sdetector = new SentenceDetectorME(model);
+    return SentenceSegmenter.of(langType).segment(this.input);
+  }
 
-    // detect sentences in the paragraph
-    return sdetector.sentDetect(this.input);
+  /** Returns the bundled sentence detection model of the language, read once per process. */
+  public static SentenceModel sentenceModel(LangType langType) {
+    return SentenceSegmenter.of(langType).getModel();
   }
 
   public String[] bySentence(InputStream inputStream) {
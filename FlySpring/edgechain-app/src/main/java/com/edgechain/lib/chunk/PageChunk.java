@@ -0,0 +1,32 @@
+package com.edgechain.lib.chunk;
+
+/** A chunk of a paged document, with the pages its text was taken from (1-based, inclusive). */
+public class PageChunk {
+
+  private final String text;
+  private final int startPage;
+  private final int endPage;
+
+  public PageChunk(String text, int startPage, int endPage) {
+    this.text = text;
+    this.startPage = startPage;
+    this.endPage = endPage;
+  }
+
+  public String getText() {
+    return text;
+  }
+
+  public int getStartPage() {
+    return startPage;
+  }
+
+  public int getEndPage() {
+    return endPage;
+  }
+
+  @Override
+  public String toString() {
+    return "PageChunk{startPage=" + startPage + ", endPage=" + endPage + ", text=" + text + '}';
+  }
+}
@@ -0,0 +1,68 @@
+package com.edgechain.lib.chunk;
+
+import com.edgechain.lib.chunk.enums.LangType;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import opennlp.tools.sentdetect.SentenceDetectorME;
+import opennlp.tools.sentdetect.SentenceModel;
+
+/**
+ * Splits text into sentences with an OpenNLP model. The bundled model of each language is read
+ * once per process and shared, since a {@link SentenceModel} is immutable; the detector isn't
+ * thread-safe, so every thread gets its own, created on its first use.
+ */
+public class SentenceSegmenter {
+
+  private static final Map<LangType, SentenceSegmenter> SEGMENTERS = new ConcurrentHashMap<>();
+
+  private final SentenceModel model;
+  private final ThreadLocal<SentenceDetectorME> detector;
+
+  public SentenceSegmenter(SentenceModel model) {
+    this.model = model;
+    this.detector = ThreadLocal.withInitial(() -> new SentenceDetectorME(model));
+  }
+
+  /** Returns the shared segmenter of the language, loading its model on first use. */
+  public static SentenceSegmenter of(LangType langType) {
+    return SEGMENTERS.computeIfAbsent(
+        langType, lang -> new SentenceSegmenter(loadModel(resource(lang))));
+  }
+
+  public String[] segment(String text) {
+    return detector.get().sentDetect(text);
+  }
+
+  /** Segments the documents in parallel; the sentences are returned in the documents' order. */
+  public List<String[]> segmentAll(List<String> texts) {
+    return texts.parallelStream().map(this::segment).toList();
+  }
+
+  public SentenceModel getModel() {
+    return model;
+  }
+
+  private static String resource(LangType langType) {
+    return switch (langType) {
+      case EN -> "/en-sent.zip";
+      case FR -> "/fr-sent.zip";
+      case DE -> "/de-sent.zip";
+      case IT -> "/it-sent.zip";
+      default -> "/nl-sent.zip";
+    };
+  }
+
+  private static SentenceModel loadModel(String resource) {
+    try (InputStream inputStream =
+        Objects.requireNonNull(SentenceSegmenter.class.getResourceAsStream(resource))) {
+      return new SentenceModel(inputStream);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
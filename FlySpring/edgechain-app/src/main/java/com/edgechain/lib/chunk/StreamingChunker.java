@@ -0,0 +1,133 @@
+package com.edgechain.lib.chunk;
+
+import java.util.Objects;
+import java.util.function.Consumer;
+import me.xuender.unidecode.Unidecode;
+import opennlp.tools.sentdetect.SentenceDetectorME;
+import opennlp.tools.sentdetect.SentenceModel;
+import opennlp.tools.util.Span;
+
+/**
+ * Incremental counterpart of {@link Chunker}: text is appended piece by piece, as a parser produces
+ * it, and every chunk is handed to the consumer as soon as it is complete. Only the chunk being
+ * built is held in memory (for sentences, a window of text), whatever the size of the document.
+ *
+ * <p>Text is normalized like the readers do: transliterated to ASCII, with every run of tabs and
+ * line breaks replaced by one space. Blank chunks are dropped.
+ */
+public class StreamingChunker {
+
+  // text detected for sentences at once; the last, maybe incomplete, sentence is carried over
+  private static final int SENTENCE_WINDOW = 8192;
+
+  // a run of text without any sentence boundary is cut at this length
+  private static final int MAX_SENTENCE_LENGTH = 8 * SENTENCE_WINDOW;
+
+  private final Consumer<String> chunks;
+  private final int chunkSize;
+  private final SentenceDetectorME sentenceDetector;
+
+  private final StringBuilder buffer = new StringBuilder();
+  private int detectAt = SENTENCE_WINDOW;
+  private boolean inLineBreak;
+  private char highSurrogate;
+
+  private StreamingChunker(
+      Consumer<String> chunks, int chunkSize, SentenceDetectorME sentenceDetector) {
+    this.chunks = chunks;
+    this.chunkSize = chunkSize;
+    this.sentenceDetector = sentenceDetector;
+  }
+
+  /** Cuts the text into chunks of {@code chunkSize} characters, as {@link Chunker#byChunkSize}. */
+  public static StreamingChunker bySize(int chunkSize, Consumer<String> chunks) {
+    if (chunkSize <= 0) throw new IllegalArgumentException("chunkSize must be positive");
+    return new StreamingChunker(chunks, chunkSize, null);
+  }
+
+  /** Cuts the text into sentences, as {@link Chunker#bySentence}. */
+  public static StreamingChunker bySentence(SentenceModel model, Consumer<String> chunks) {
+    return new StreamingChunker(chunks, 0, new SentenceDetectorME(model));
+  }
+
+  public void append(char[] ch, int start, int length) {
+    if (length == 0) return;
+
+    // a surrogate pair split between two pieces is decoded as a whole
+    String piece = new String(ch, start, length);
+    if (highSurrogate != 0) {
+      piece = highSurrogate + piece;
+      highSurrogate = 0;
+    }
+    if (Character.isHighSurrogate(piece.charAt(piece.length() - 1))) {
+      highSurrogate = piece.charAt(piece.length() - 1);
+      piece = piece.substring(0, piece.length() - 1);
+    }
+
+    String decoded = Unidecode.decode(piece);
+    for (int i = 0; i < decoded.length(); i++) {
+      char c = decoded.charAt(i);
+      if (c == '\t' || c == '\n' || c == '\r') {
+        if (inLineBreak) continue;
+        inLineBreak = true;
+        c = ' ';
+      } else {
+        inLineBreak = false;
+      }
+
+      buffer.append(c);
+      if (Objects.isNull(sentenceDetector) && buffer.length() == chunkSize) emitBuffer();
+    }
+
+    if (Objects.nonNull(sentenceDetector) && buffer.length() >= detectAt) emitSentences(false);
+  }
+
+  public void append(String text) {
+    append(text.toCharArray(), 0, text.length());
+  }
+
+  /** Whether text was appended since the last chunk was emitted. */
+  public boolean hasPending() {
+    return buffer.length() > 0 || highSurrogate != 0;
+  }
+
+  /** Emits the rest of the text; call once the whole document was appended. */
+  public void finish() {
+    if (highSurrogate != 0) {
+      buffer.append(Unidecode.decode(String.valueOf(highSurrogate)));
+      highSurrogate = 0;
+    }
+    if (Objects.isNull(sentenceDetector)) emitBuffer();
+    else emitSentences(true);
+  }
+
+  private void emitSentences(boolean last) {
+    String text = buffer.toString();
+    Span[] sentences = sentenceDetector.sentPosDetect(text);
+
+    // all but the last sentence are complete, unless the document ended
+    int complete = last ? sentences.length : sentences.length - 1;
+    for (int i = 0; i < complete; i++) {
+      emit(sentences[i].getCoveredText(text));
+    }
+
+    if (last) {
+      buffer.setLength(0);
+    } else if (complete > 0) {
+      buffer.delete(0, sentences[complete].getStart());
+    } else if (buffer.length() >= MAX_SENTENCE_LENGTH) {
+      emitBuffer();
+    }
+    detectAt = buffer.length() + SENTENCE_WINDOW;
+  }
+
+  private void emitBuffer() {
+    emit(buffer);
+    buffer.setLength(0);
+  }
+
+  private void emit(CharSequence text) {
+    String chunk = text.toString().strip();
+    if (!chunk.isEmpty()) chunks.accept(chunk);
+  }
+}
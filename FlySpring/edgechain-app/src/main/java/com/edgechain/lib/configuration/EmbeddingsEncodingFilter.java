@@ -0,0 +1,35 @@
+package com.edgechain.lib.configuration;
+
+import com.edgechain.lib.embeddings.FloatVector;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Accepts the base64 embedding encoding asked for by the endpoints' {@link
+ * FloatVector#ENCODING_HEADER} on the internal {@code /edgechains/**} routes, by echoing the header
+ * on the response; the {@link EmbeddingsJsonHttpMessageConverter} then writes the vectors as
+ * base64. Responses of other routes, and of requests without the header, keep plain arrays.
+ */
+public class EmbeddingsEncodingFilter extends OncePerRequestFilter {
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return !request.getRequestURI().startsWith(WebConfiguration.CONTEXT_PATH);
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filter)
+      throws ServletException, IOException {
+
+    if (FloatVector.BASE64_ENCODING.equalsIgnoreCase(
+        request.getHeader(FloatVector.ENCODING_HEADER))) {
+      response.setHeader(FloatVector.ENCODING_HEADER, FloatVector.BASE64_ENCODING);
+    }
+    filter.doFilter(request, response);
+  }
+}
@@ -0,0 +1,50 @@
+package com.edgechain.lib.configuration;
+
+import com.edgechain.lib.embeddings.FloatVector;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.Objects;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.util.StreamUtils;
+
+/**
+ * Spring MVC's JSON converter, writing embedding vectors as base64 only into responses that carry
+ * the {@link FloatVector#ENCODING_HEADER} set by the {@link EmbeddingsEncodingFilter}. The shared
+ * {@code ObjectMapper} itself is left untouched.
+ */
+public class EmbeddingsJsonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+  public EmbeddingsJsonHttpMessageConverter(ObjectMapper objectMapper) {
+    super(objectMapper);
+  }
+
+  @Override
+  protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+      throws IOException, HttpMessageNotWritableException {
+    String encoding = outputMessage.getHeaders().getFirst(FloatVector.ENCODING_HEADER);
+    if (!FloatVector.BASE64_ENCODING.equals(encoding)) {
+      super.writeInternal(object, type, outputMessage);
+      return;
+    }
+
+    ObjectWriter writer =
+        getObjectMapper().writer().withAttribute(FloatVector.BASE64_ATTRIBUTE, true);
+    JavaType javaType = Objects.nonNull(type) ? getJavaType(type, null) : null;
+    if (Objects.nonNull(javaType) && javaType.isContainerType()) {
+      writer = writer.forType(javaType);
+    }
+    try (OutputStream out = StreamUtils.nonClosing(outputMessage.getBody())) {
+      writer.writeValue(out, object);
+    } catch (JsonProcessingException ex) {
+      throw new HttpMessageNotWritableException(
+          "Could not write JSON: " + ex.getOriginalMessage(), ex);
+    }
+  }
+}
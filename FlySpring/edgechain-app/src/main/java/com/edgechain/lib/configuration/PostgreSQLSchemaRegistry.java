@@ -0,0 +1,90 @@
+package com.edgechain.lib.configuration;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Remembers which tables, indexes and extensions this process has already created or checked, so
+ * the CREATE ... IF NOT EXISTS statements and catalog lookups run once per key instead of on every
+ * write. Entries never expire unless {@code postgres.schema.cache.ttl} (seconds) is set.
+ *
+ * <p>A key is recorded only after the DDL succeeded and, when it ran inside a transaction, after
+ * that transaction committed; failures are retried on the next call.
+ */
+@Component
+public class PostgreSQLSchemaRegistry {
+
+  public static final String TTL_PROPERTY = "postgres.schema.cache.ttl";
+
+  @Autowired(required = false)
+  private Environment env;
+
+  private final Map<String, Long> verified = new ConcurrentHashMap<>();
+  private final Map<String, Object> locks = new ConcurrentHashMap<>();
+
+  private volatile Long ttlNanos;
+
+  /** Runs the DDL for the key unless it already ran in this process (within the TTL). */
+  public void ensure(String key, Runnable ddl) {
+    if (isVerified(key)) return;
+
+    // concurrent first calls for the same key run the DDL once
+    synchronized (locks.computeIfAbsent(key, k -> new Object())) {
+      if (isVerified(key)) return;
+      ddl.run();
+      markVerified(key);
+    }
+  }
+
+  public boolean isVerified(String key) {
+    Long verifiedAt = verified.get(key);
+    if (Objects.isNull(verifiedAt)) return false;
+
+    long ttl = getTtlNanos();
+    return ttl <= 0 || System.nanoTime() - verifiedAt < ttl;
+  }
+
+  /** Forgets a key, e.g. after the table was dropped, so the next ensure() recreates it. */
+  public void invalidate(String key) {
+    verified.remove(key);
+  }
+
+  /** Forgets every key starting with the prefix. */
+  public void invalidateAll(String prefix) {
+    verified.keySet().removeIf(key -> key.startsWith(prefix));
+  }
+
+  public void invalidateAll() {
+    verified.clear();
+  }
+
+  private void markVerified(String key) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              verified.put(key, System.nanoTime());
+            }
+          });
+    } else {
+      verified.put(key, System.nanoTime());
+    }
+  }
+
+  private long getTtlNanos() {
+    if (Objects.isNull(ttlNanos)) {
+      long seconds =
+          Objects.isNull(env) ? 0 : env.getProperty(TTL_PROPERTY, Long.class, 0L);
+      ttlNanos = Duration.ofSeconds(seconds).toNanos();
+    }
+    return ttlNanos;
+  }
+}
@@ -3,6 +3,8 @@ package com.edgechain.lib.configuration;
 import com.edgechain.lib.configuration.domain.AuthFilter;
 import com.edgechain.lib.configuration.domain.MethodAuthentication;
 import com.edgechain.lib.configuration.domain.SecurityUUID;
+import com.edgechain.lib.retrofit.client.RetrofitClientInstance;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import java.util.List;
 import java.util.UUID;
 import org.modelmapper.ModelMapper;
@@ -10,6 +12,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.Primary;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.web.client.RestTemplate;
 
 @Configuration("WebConfiguration")
@@ -28,6 +31,22 @@ public class WebConfiguration {
     return new RestTemplate();
   }
 
+  /**
+   * Writes embedding vectors as base64 float32 strings in responses of the internal routes whose
+   * requests ask for it, as {@link RetrofitClientInstance} does with {@code
+   * edgechains.embeddings.base64} set. Replaces Boot's default JSON converter.
+   */
+  @Bean
+  MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(
+      ObjectMapper objectMapper) {
+    return new EmbeddingsJsonHttpMessageConverter(objectMapper);
+  }
+
+  @Bean
+  EmbeddingsEncodingFilter embeddingsEncodingFilter() {
+    return new EmbeddingsEncodingFilter();
+  }
+
   @Bean
   @Primary
   SecurityUUID securityUUID() {
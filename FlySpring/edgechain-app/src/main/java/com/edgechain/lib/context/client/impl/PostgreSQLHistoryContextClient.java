@@ -1,5 +1,6 @@
 package com.edgechain.lib.context.client.impl;
 
+import com.edgechain.lib.configuration.PostgreSQLSchemaRegistry;
 import com.edgechain.lib.context.client.HistoryContextClient;
 import com.edgechain.lib.context.client.repositories.PostgreSQLHistoryContextRepository;
 import com.edgechain.lib.context.domain.HistoryContext;
@@ -25,6 +26,8 @@ public class PostgreSQLHistoryContextClient
 
   @Autowired private JdbcTemplate jdbcTemplate;
 
+  @Autowired private PostgreSQLSchemaRegistry schemaRegistry;
+
   private static final String PREFIX = "historycontext:";
 
   @Transactional
@@ -38,7 +41,7 @@ public class PostgreSQLHistoryContextClient
                 if (Objects.isNull(id) || id.isEmpty())
                   throw new RuntimeException("Postgres history_context id cannot be empty or null");
 
-                this.createTable(); // Create Table IF NOT EXISTS;
+                schemaRegistry.ensure("history_context", this::createTable);
 
                 HistoryContext context = new HistoryContext(PREFIX + id, "", LocalDateTime.now());
 
@@ -0,0 +1,135 @@
+package com.edgechain.lib.embeddings;
+
+import com.edgechain.lib.utils.FloatUtils;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Embedding vector backed by a {@code float[]}: 4 bytes per dimension instead of a boxed {@link
+ * Float} and a reference per element. It is a read-only {@code List<Float>}, so code reading
+ * embeddings as lists is unaffected; {@link #array()} exposes the floats without copying them.
+ *
+ * <p>In JSON it is a plain array of numbers. With the {@link #BASE64_ATTRIBUTE} set on the writing
+ * {@code ObjectMapper} it is written as a base64 string of little-endian float32 values instead,
+ * about a third of the size; properties deserialized with {@link Deserializer} accept both forms.
+ * Between the endpoints and the service controllers the encoding is negotiated per request with the
+ * {@link #ENCODING_HEADER}, so other clients of the application keep getting arrays.
+ */
+@JsonSerialize(using = FloatVector.Serializer.class)
+public final class FloatVector extends AbstractList<Float> implements RandomAccess, Serializable {
+
+  private static final long serialVersionUID = -2717433129565296341L;
+
+  /** Jackson attribute (and application property) enabling the base64 encoding. */
+  public static final String BASE64_ATTRIBUTE = "edgechains.embeddings.base64";
+
+  /** Request (and response) header asking for the {@link #BASE64_ENCODING}. */
+  public static final String ENCODING_HEADER = "X-EdgeChains-Embeddings";
+
+  public static final String BASE64_ENCODING = "base64";
+
+  private final float[] values;
+
+  /** Wraps the array; it must not be modified afterwards. */
+  public FloatVector(float[] values) {
+    this.values = Objects.requireNonNull(values);
+  }
+
+  /** Returns the list itself when it is already a vector, else a vector of its values. */
+  public static FloatVector of(List<Float> values) {
+    if (Objects.isNull(values)) return null;
+    if (values instanceof FloatVector vector) return vector;
+    return new FloatVector(FloatUtils.toFloatArray(values));
+  }
+
+  /** The backing array, not a copy: read it, never modify it. */
+  public float[] array() {
+    return values;
+  }
+
+  @Override
+  public Float get(int index) {
+    return values[index];
+  }
+
+  @Override
+  public int size() {
+    return values.length;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o instanceof FloatVector that) return Arrays.equals(values, that.values);
+    return super.equals(o);
+  }
+
+  @Override
+  public int hashCode() {
+    return super.hashCode();
+  }
+
+  public static class Serializer extends StdSerializer<FloatVector> {
+
+    public Serializer() {
+      super(FloatVector.class);
+    }
+
+    @Override
+    public void serialize(FloatVector vector, JsonGenerator gen, SerializerProvider provider)
+        throws IOException {
+      if (Boolean.TRUE.equals(provider.getAttribute(BASE64_ATTRIBUTE))) {
+        gen.writeString(Base64.getEncoder().encodeToString(FloatUtils.toByteArray(vector.values)));
+        return;
+      }
+
+      gen.writeStartArray(vector, vector.values.length);
+      for (float value : vector.values) {
+        gen.writeNumber(value);
+      }
+      gen.writeEndArray();
+    }
+  }
+
+  /** Reads a JSON array of numbers, or a base64 string, straight into a {@code float[]}. */
+  public static class Deserializer extends StdDeserializer<FloatVector> {
+
+    public Deserializer() {
+      super(FloatVector.class);
+    }
+
+    @Override
+    public FloatVector deserialize(JsonParser parser, DeserializationContext context)
+        throws IOException {
+      if (parser.currentToken() == JsonToken.VALUE_STRING) {
+        return new FloatVector(
+            FloatUtils.toFloatArray(Base64.getDecoder().decode(parser.getText())));
+      }
+      if (parser.currentToken() != JsonToken.START_ARRAY) {
+        return (FloatVector) context.handleUnexpectedToken(FloatVector.class, parser);
+      }
+
+      float[] values = new float[64];
+      int size = 0;
+      JsonToken token;
+      while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+        if (size == values.length) values = Arrays.copyOf(values, size * 2);
+        values[size++] = token == JsonToken.VALUE_NULL ? Float.NaN : parser.getFloatValue();
+      }
+      return new FloatVector(size == values.length ? values : Arrays.copyOf(values, size));
+    }
+  }
+}
@@ -1,6 +1,7 @@
 package com.edgechain.lib.embeddings;
 
 import com.edgechain.lib.response.ArkObject;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
@@ -11,7 +12,7 @@ public class WordEmbeddings implements ArkObject, Serializable {
 
   private static final long serialVersionUID = 2210956496609994219L;
   private String id;
-  private List<Float> values;
+  private FloatVector values;
   private Double score;
 
   public WordEmbeddings() {}
@@ -23,12 +24,17 @@ public class WordEmbeddings implements ArkObject, Serializable {
 
   public WordEmbeddings(String id, List<Float> values) {
     this.id = id;
-    this.values = values;
+    this.values = FloatVector.of(values);
+  }
+
+  public WordEmbeddings(String id, float[] values) {
+    this.id = id;
+    this.values = new FloatVector(values);
   }
 
   public WordEmbeddings(String id, List<Float> values, Double score) {
     this.id = id;
-    this.values = values;
+    this.values = FloatVector.of(values);
     this.score = score;
   }
 
@@ -45,8 +51,9 @@ public class WordEmbeddings implements ArkObject, Serializable {
     return values;
   }
 
+  @JsonDeserialize(using = FloatVector.Deserializer.class)
   public void setValues(List<Float> values) {
-    this.values = values;
+    this.values = FloatVector.of(values);
   }
 
   public Double getScore() {
@@ -1,22 +1,29 @@
 package com.edgechain.lib.embeddings.bgeSmall.response;
 
+import com.edgechain.lib.embeddings.FloatVector;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import java.util.List;
 
 public class BgeSmallResponse {
 
-  private List<Float> embedding;
+  private FloatVector embedding;
 
   public BgeSmallResponse() {}
 
+  public BgeSmallResponse(float[] embedding) {
+    this.embedding = new FloatVector(embedding);
+  }
+
   public BgeSmallResponse(List<Float> embedding) {
-    this.embedding = embedding;
+    this.embedding = FloatVector.of(embedding);
   }
 
   public List<Float> getEmbedding() {
     return embedding;
   }
 
+  @JsonDeserialize(using = FloatVector.Deserializer.class)
   public void setEmbedding(List<Float> embedding) {
-    this.embedding = embedding;
+    this.embedding = FloatVector.of(embedding);
   }
 }
@@ -0,0 +1,278 @@
+package com.edgechain.lib.embeddings.cache;
+
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.subjects.SingleSubject;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Two-tier cache of embeddings keyed on (model id, hash of the normalized text): a bounded
+ * in-memory LRU in front of an optional persistent {@link EmbeddingStore}.
+ *
+ * <p>Concurrent misses for the same key share one load, so a popular query arriving on many
+ * threads at once calls the embedding endpoint once. Failed loads are not cached. The persistent
+ * tier is best effort: its errors are logged and the lookup falls through to the endpoint.
+ */
+public class EmbeddingCache {
+
+  public static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+  private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+  private final EmbeddingStore store;
+
+  private final Map<String, List<Float>> memory;
+
+  private final Map<String, Single<List<Float>>> inFlight = new ConcurrentHashMap<>();
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder storeHits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  public EmbeddingCache() {
+    this(DEFAULT_MAX_ENTRIES, null);
+  }
+
+  public EmbeddingCache(int maxEntries) {
+    this(maxEntries, null);
+  }
+
+  public EmbeddingCache(int maxEntries, EmbeddingStore store) {
+    this.store = store;
+    this.memory =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, List<Float>> eldest) {
+            boolean evict = size() > maxEntries;
+            if (evict) evictions.increment();
+            return evict;
+          }
+        };
+  }
+
+  /**
+   * Returns the cached embedding for the key, or subscribes to the loader once for all concurrent
+   * callers missing the same key.
+   */
+  public Single<List<Float>> get(String key, Supplier<Single<List<Float>>> loader) {
+    return Single.defer(
+        () -> {
+          List<Float> cached = getFromMemory(key);
+          if (Objects.nonNull(cached)) {
+            hits.increment();
+            return Single.just(cached);
+          }
+
+          AtomicReference<Single<List<Float>>> created = new AtomicReference<>();
+          Single<List<Float>> load =
+              inFlight.computeIfAbsent(
+                  key,
+                  k -> {
+                    Single<List<Float>> single =
+                        load(k, loader)
+                            .doFinally(() -> inFlight.remove(k, created.get()))
+                            .cache();
+                    created.set(single);
+                    return single;
+                  });
+          return load;
+        });
+  }
+
+  /**
+   * Batch form of {@link #get}: resolves every key it can from memory, from keys already being
+   * loaded and from the store, then calls the loader once with the remaining misses (in order,
+   * without duplicates). The loader must return one embedding per key it is given.
+   */
+  public Single<List<List<Float>>> getAll(
+      List<String> keys, Function<List<String>, Single<List<List<Float>>>> loader) {
+    return Single.defer(
+        () -> {
+          if (keys.isEmpty()) return Single.just(List.of());
+
+          Map<String, Single<List<Float>>> resolved = new HashMap<>();
+          Map<String, SingleSubject<List<Float>>> owned = new LinkedHashMap<>();
+          for (String key : keys) {
+            if (resolved.containsKey(key)) continue;
+
+            List<Float> cached = getFromMemory(key);
+            if (Objects.nonNull(cached)) {
+              hits.increment();
+              resolved.put(key, Single.just(cached));
+              continue;
+            }
+
+            SingleSubject<List<Float>> subject = SingleSubject.create();
+            Single<List<Float>> loading = inFlight.putIfAbsent(key, subject);
+            if (Objects.nonNull(loading)) {
+              resolved.put(key, loading);
+            } else {
+              owned.put(key, subject);
+              resolved.put(key, subject);
+            }
+          }
+
+          List<String> missing = new ArrayList<>();
+          for (Map.Entry<String, SingleSubject<List<Float>>> entry : owned.entrySet()) {
+            List<Float> stored = getFromStore(entry.getKey());
+            if (Objects.nonNull(stored)) {
+              storeHits.increment();
+              complete(entry.getKey(), entry.getValue(), stored);
+            } else {
+              misses.increment();
+              missing.add(entry.getKey());
+            }
+          }
+
+          if (!missing.isEmpty()) {
+            Single.defer(() -> loader.apply(missing))
+                .subscribe(
+                    values -> {
+                      if (values.size() != missing.size()) {
+                        fail(
+                            missing,
+                            owned,
+                            new IllegalStateException(
+                                "Expected "
+                                    + missing.size()
+                                    + " embeddings, got "
+                                    + values.size()));
+                        return;
+                      }
+                      for (int i = 0; i < missing.size(); i++) {
+                        String key = missing.get(i);
+                        putInStore(key, values.get(i));
+                        complete(key, owned.get(key), values.get(i));
+                      }
+                    },
+                    error -> fail(missing, owned, error));
+          }
+
+          List<Single<List<Float>>> results = new ArrayList<>(keys.size());
+          for (String key : keys) {
+            results.add(resolved.get(key));
+          }
+          return Single.zip(results, EmbeddingCache::toList);
+        });
+  }
+
+  public EmbeddingCacheStats getStats() {
+    int size;
+    synchronized (memory) {
+      size = memory.size();
+    }
+    return new EmbeddingCacheStats(
+        hits.sum(), storeHits.sum(), misses.sum(), evictions.sum(), size);
+  }
+
+  /** Drops the in-memory tier; the persistent tier is kept. */
+  public void clear() {
+    synchronized (memory) {
+      memory.clear();
+    }
+  }
+
+  /**
+   * Cache key of a text embedded by the given model. The text is normalized (Unicode NFC, outer
+   * whitespace stripped, inner whitespace runs collapsed) so trivially different copies of a chunk
+   * share an entry.
+   */
+  public static String key(String modelId, String text) {
+    String normalized =
+        Normalizer.normalize(text, Normalizer.Form.NFC).strip().replaceAll("\\s+", " ");
+    try {
+      byte[] hash =
+          MessageDigest.getInstance("SHA-256").digest(normalized.getBytes(StandardCharsets.UTF_8));
+      return modelId + ":" + HexFormat.of().formatHex(hash);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private Single<List<Float>> load(String key, Supplier<Single<List<Float>>> loader) {
+    return Single.defer(
+            () -> {
+              List<Float> stored = getFromStore(key);
+              if (Objects.nonNull(stored)) {
+                storeHits.increment();
+                return Single.just(stored);
+              }
+
+              misses.increment();
+              return loader.get().doOnSuccess(values -> putInStore(key, values));
+            })
+        .doOnSuccess(values -> putInMemory(key, values));
+  }
+
+  private void complete(String key, SingleSubject<List<Float>> subject, List<Float> values) {
+    putInMemory(key, values);
+    inFlight.remove(key, subject);
+    subject.onSuccess(values);
+  }
+
+  private void fail(
+      List<String> keys, Map<String, SingleSubject<List<Float>>> owned, Throwable error) {
+    for (String key : keys) {
+      SingleSubject<List<Float>> subject = owned.get(key);
+      inFlight.remove(key, subject);
+      subject.onError(error);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<List<Float>> toList(Object[] values) {
+    List<List<Float>> list = new ArrayList<>(values.length);
+    for (Object value : values) {
+      list.add((List<Float>) value);
+    }
+    return list;
+  }
+
+  private List<Float> getFromMemory(String key) {
+    synchronized (memory) {
+      return memory.get(key);
+    }
+  }
+
+  private void putInMemory(String key, List<Float> values) {
+    synchronized (memory) {
+      memory.put(key, values);
+    }
+  }
+
+  private List<Float> getFromStore(String key) {
+    if (Objects.isNull(store)) return null;
+    try {
+      return store.get(key);
+    } catch (Exception e) {
+      logger.warn("Embedding store lookup failed: " + e.getMessage());
+      return null;
+    }
+  }
+
+  private void putInStore(String key, List<Float> values) {
+    if (Objects.isNull(store)) return;
+    try {
+      store.put(key, values);
+    } catch (Exception e) {
+      logger.warn("Embedding store write failed: " + e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,61 @@
+package com.edgechain.lib.embeddings.cache;
+
+/** Point-in-time counters of an {@link EmbeddingCache}. */
+public class EmbeddingCacheStats {
+
+  private final long hits;
+  private final long storeHits;
+  private final long misses;
+  private final long evictions;
+  private final int size;
+
+  public EmbeddingCacheStats(long hits, long storeHits, long misses, long evictions, int size) {
+    this.hits = hits;
+    this.storeHits = storeHits;
+    this.misses = misses;
+    this.evictions = evictions;
+    this.size = size;
+  }
+
+  /** Lookups answered by the in-memory tier. */
+  public long getHits() {
+    return hits;
+  }
+
+  /** Lookups answered by the persistent tier. */
+  public long getStoreHits() {
+    return storeHits;
+  }
+
+  /** Lookups which called the embedding endpoint; concurrent identical misses count once. */
+  public long getMisses() {
+    return misses;
+  }
+
+  /** Entries dropped from the in-memory tier to stay within its size. */
+  public long getEvictions() {
+    return evictions;
+  }
+
+  /** Entries currently held in memory. */
+  public int getSize() {
+    return size;
+  }
+
+  public double getHitRate() {
+    long total = hits + storeHits + misses;
+    return total == 0 ? 0 : (double) (hits + storeHits) / total;
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder("EmbeddingCacheStats{");
+    sb.append("hits=").append(hits);
+    sb.append(", storeHits=").append(storeHits);
+    sb.append(", misses=").append(misses);
+    sb.append(", evictions=").append(evictions);
+    sb.append(", size=").append(size);
+    sb.append('}');
+    return sb.toString();
+  }
+}
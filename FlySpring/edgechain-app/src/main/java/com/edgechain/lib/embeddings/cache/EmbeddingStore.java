@@ -0,0 +1,12 @@
+package com.edgechain.lib.embeddings.cache;
+
+import java.util.List;
+
+/** Persistent tier of the {@link EmbeddingCache}, shared across restarts (and processes). */
+public interface EmbeddingStore {
+
+  /** Returns the embedding stored under the key, or null. */
+  List<Float> get(String key);
+
+  void put(String key, List<Float> values);
+}
@@ -0,0 +1,131 @@
+package com.edgechain.lib.embeddings.cache;
+
+import com.edgechain.lib.embeddings.FloatVector;
+import com.edgechain.lib.utils.FloatUtils;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Local persistent tier: an append-only file of (key, vector) records read and written through a
+ * memory mapping, so lookups are served from the page cache without a read call. Only the key
+ * offsets are kept on the heap; the index is rebuilt by scanning the file on open.
+ *
+ * <p>A record is {@code [int keyLength][key (UTF-8)][int dimensions][float * dimensions]}. The key
+ * length is written last, so a record cut short by a crash ends the scan instead of being read.
+ * The mapping doubles as the file grows, up to 2 GB.
+ */
+public class MappedFileEmbeddingStore implements EmbeddingStore, Closeable {
+
+  private static final int INITIAL_CAPACITY = 1 << 20;
+
+  private final FileChannel channel;
+  private final Map<String, Integer> offsets = new HashMap<>();
+
+  private MappedByteBuffer buffer;
+  private int position;
+
+  public MappedFileEmbeddingStore(Path file) {
+    try {
+      this.channel =
+          FileChannel.open(
+              file,
+              StandardOpenOption.CREATE,
+              StandardOpenOption.READ,
+              StandardOpenOption.WRITE);
+      this.buffer =
+          channel.map(
+              FileChannel.MapMode.READ_WRITE, 0, Math.max(channel.size(), INITIAL_CAPACITY));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    scan();
+  }
+
+  @Override
+  public synchronized List<Float> get(String key) {
+    Integer offset = offsets.get(key);
+    if (offset == null) return null;
+
+    int dimensionsAt = offset + Integer.BYTES + buffer.getInt(offset);
+    int dimensions = buffer.getInt(dimensionsAt);
+
+    float[] values = new float[dimensions];
+    for (int i = 0; i < dimensions; i++) {
+      values[i] = buffer.getFloat(dimensionsAt + Integer.BYTES + i * Float.BYTES);
+    }
+    return new FloatVector(values);
+  }
+
+  @Override
+  public synchronized void put(String key, List<Float> values) {
+    if (offsets.containsKey(key)) return;
+
+    byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+    int length = 2 * Integer.BYTES + keyBytes.length + values.size() * Float.BYTES;
+    // keep room for the zero key length which ends the scan
+    ensureCapacity((long) position + length + Integer.BYTES);
+
+    int at = position + Integer.BYTES;
+    buffer.put(at, keyBytes);
+    at += keyBytes.length;
+    buffer.putInt(at, values.size());
+    at += Integer.BYTES;
+    for (float value : FloatUtils.toFloatArray(values)) {
+      buffer.putFloat(at, value);
+      at += Float.BYTES;
+    }
+    buffer.putInt(position, keyBytes.length);
+
+    offsets.put(key, position);
+    position += length;
+  }
+
+  public synchronized int size() {
+    return offsets.size();
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    buffer.force();
+    channel.close();
+  }
+
+  private void scan() {
+    while (position + Integer.BYTES <= buffer.capacity()) {
+      int keyLength = buffer.getInt(position);
+      if (keyLength <= 0 || position + 2L * Integer.BYTES + keyLength > buffer.capacity()) break;
+
+      int dimensions = buffer.getInt(position + Integer.BYTES + keyLength);
+      long length = 2L * Integer.BYTES + keyLength + (long) dimensions * Float.BYTES;
+      if (dimensions < 0 || position + length > buffer.capacity()) break;
+
+      byte[] keyBytes = new byte[keyLength];
+      buffer.get(position + Integer.BYTES, keyBytes);
+      offsets.put(new String(keyBytes, StandardCharsets.UTF_8), position);
+      position += (int) length;
+    }
+  }
+
+  private void ensureCapacity(long required) {
+    if (required <= buffer.capacity()) return;
+    if (required > Integer.MAX_VALUE)
+      throw new IllegalStateException("Embedding store file is full (2 GB)");
+
+    long capacity = Math.min(Integer.MAX_VALUE, Math.max(required, 2L * buffer.capacity()));
+    try {
+      buffer.force();
+      buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,47 @@
+package com.edgechain.lib.embeddings.cache;
+
+import com.edgechain.lib.utils.FloatUtils;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+import redis.clients.jedis.JedisPooled;
+
+/**
+ * Persistent tier in Redis, shared by every instance using the same Redis. Vectors are stored as
+ * little-endian float32 bytes, as RedisClient stores them for the search index.
+ */
+public class RedisEmbeddingStore implements EmbeddingStore {
+
+  private static final String KEY_PREFIX = "embedding-cache:";
+
+  private final JedisPooled jedisPooled;
+
+  // seconds; 0 keeps entries until Redis evicts them
+  private final long ttl;
+
+  public RedisEmbeddingStore(JedisPooled jedisPooled) {
+    this(jedisPooled, 0);
+  }
+
+  public RedisEmbeddingStore(JedisPooled jedisPooled, long ttl) {
+    this.jedisPooled = jedisPooled;
+    this.ttl = ttl;
+  }
+
+  @Override
+  public List<Float> get(String key) {
+    byte[] bytes = jedisPooled.get(redisKey(key));
+    return Objects.isNull(bytes) ? null : FloatUtils.toFloatList(FloatUtils.toFloatArray(bytes));
+  }
+
+  @Override
+  public void put(String key, List<Float> values) {
+    byte[] bytes = FloatUtils.toByteArray(FloatUtils.toFloatArray(values));
+    if (ttl > 0) jedisPooled.setex(redisKey(key), ttl, bytes);
+    else jedisPooled.set(redisKey(key), bytes);
+  }
+
+  private byte[] redisKey(String key) {
+    return (KEY_PREFIX + key).getBytes(StandardCharsets.UTF_8);
+  }
+}
@@ -1,100 +1,82 @@
 package com.edgechain.lib.embeddings.miniLLM;
 
-import ai.djl.MalformedModelException;
 import ai.djl.huggingface.translator.TextEmbeddingTranslatorFactory;
-import ai.djl.inference.Predictor;
 import ai.djl.repository.zoo.Criteria;
-import ai.djl.repository.zoo.ModelNotFoundException;
-import ai.djl.repository.zoo.ZooModel;
 import ai.djl.training.util.ProgressBar;
 import com.edgechain.lib.embeddings.miniLLM.enums.MiniLMModel;
 import com.edgechain.lib.embeddings.miniLLM.response.MiniLMResponse;
+import com.edgechain.lib.embeddings.model.EmbeddingModelRegistry;
+import com.edgechain.lib.embeddings.model.MicroBatcher;
+import com.edgechain.lib.embeddings.model.OnnxTextEmbeddingTranslator;
+import com.edgechain.lib.embeddings.model.Pooling;
 import com.edgechain.lib.endpoint.impl.embeddings.MiniLMEndpoint;
 import com.edgechain.lib.rxjava.transformer.observable.EdgeChain;
 import io.reactivex.rxjava3.core.Observable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
 
-import java.io.IOException;
-import java.util.LinkedList;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
-
+import java.util.Objects;
+
+/**
+ * Runs the MiniLM models locally, on PyTorch by default. With {@code
+ * embeddings.minilm.engine=OnnxRuntime} the ONNX exports are used instead, pooled on plain arrays
+ * by the {@link OnnxTextEmbeddingTranslator}; {@code embeddings.minilm.onnx.model-name} selects
+ * another graph of the model directory, e.g. an int8-quantized {@code model_quantized}.
+ */
 @Service
 public class MiniLMClient {
 
-  private static volatile ZooModel<String, float[]> allMiniL6V2;
-  private static volatile ZooModel<String, float[]> allMiniL12V2;
+  public static final String ENGINE_PROPERTY = "embeddings.minilm.engine";
+  public static final String ONNX_MODEL_NAME_PROPERTY = "embeddings.minilm.onnx.model-name";
+
+  private static final String ONNX_RUNTIME = "OnnxRuntime";
 
-  private static volatile ZooModel<String, float[]> paraphraseMiniLML3v2;
+  @Autowired private EmbeddingModelRegistry modelRegistry;
 
-  private static volatile ZooModel<String, float[]> multiQAMiniLML6CosV1;
+  @Autowired private Environment env;
 
+  /**
+   * Embeds one text. Concurrent calls are coalesced by the model's {@link MicroBatcher} into one
+   * forward pass.
+   */
   public EdgeChain<MiniLMResponse> createEmbeddings(String input, MiniLMEndpoint endpoint) {
+    return new EdgeChain<>(
+        modelRegistry
+            .submit(
+                modelUrl(endpoint.getMiniLMModel()),
+                cached -> criteria(endpoint.getMiniLMModel(), cached),
+                input)
+            .map(predict -> new MiniLMResponse(predict))
+            .toObservable(),
+        endpoint);
+  }
+
+  /** Embeds all inputs with a single batched forward pass; responses follow the input order. */
+  public EdgeChain<List<MiniLMResponse>> createEmbeddings(
+      List<String> inputs, MiniLMEndpoint endpoint) {
 
     return new EdgeChain<>(
         Observable.create(
             emitter -> {
               try {
-
-                if (endpoint.getMiniLMModel().equals(MiniLMModel.ALL_MINILM_L6_V2)) {
-
-                  Predictor<String, float[]> predictor =
-                      loadAllMiniL6V2(endpoint.getMiniLMModel()).newPredictor();
-
-                  float[] predict = predictor.predict(input);
-
-                  List<Float> floatList = new LinkedList<>();
-                  for (float v : predict) {
-                    floatList.add(v);
-                  }
-
-                  emitter.onNext(new MiniLMResponse(floatList));
-                  emitter.onComplete();
-                } else if (endpoint.getMiniLMModel().equals(MiniLMModel.ALL_MINILM_L12_V2)) {
-
-                  Predictor<String, float[]> predictor =
-                      loadAllMiniL12V2(endpoint.getMiniLMModel()).newPredictor();
-
-                  float[] predict = predictor.predict(input);
-
-                  List<Float> floatList = new LinkedList<>();
-                  for (float v : predict) {
-                    floatList.add(v);
-                  }
-
-                  emitter.onNext(new MiniLMResponse(floatList));
-                  emitter.onComplete();
-                } else if (endpoint.getMiniLMModel().equals(MiniLMModel.PARAPHRASE_MINILM_L3_V2)) {
-                  Predictor<String, float[]> predictor =
-                      loadParaphraseMiniLML3v2(endpoint.getMiniLMModel()).newPredictor();
-
-                  float[] predict = predictor.predict(input);
-
-                  List<Float> floatList = new LinkedList<>();
-                  for (float v : predict) {
-                    floatList.add(v);
-                  }
-
-                  emitter.onNext(new MiniLMResponse(floatList));
-                  emitter.onComplete();
-                } else {
-
-                  System.out.println("d");
-                  ZooModel<String, float[]> zooModel =
-                      loadMultiQAMiniLML6CosV1(endpoint.getMiniLMModel());
-
-                  Predictor<String, float[]> predictor = zooModel.newPredictor();
-
-                  float[] predict = predictor.predict(input);
-
-                  List<Float> floatList = new LinkedList<>();
-                  for (float v : predict) {
-                    floatList.add(v);
-                  }
-
-                  emitter.onNext(new MiniLMResponse(floatList));
-                  emitter.onComplete();
+                List<float[]> predictions =
+                    modelRegistry.embed(
+                        modelUrl(endpoint.getMiniLMModel()),
+                        cached -> criteria(endpoint.getMiniLMModel(), cached),
+                        inputs);
+
+                List<MiniLMResponse> responses = new ArrayList<>(predictions.size());
+                for (float[] predict : predictions) {
+                  responses.add(new MiniLMResponse(predict));
                 }
 
+                emitter.onNext(responses);
+                emitter.onComplete();
+
               } catch (final Exception e) {
                 emitter.onError(e);
               }
@@ -102,124 +84,40 @@ public class MiniLMClient {
         endpoint);
   }
 
-  private ZooModel<String, float[]> loadAllMiniL6V2(MiniLMModel miniLMModel) {
-
-    ZooModel<String, float[]> r = allMiniL6V2;
-
-    if (r == null) {
-      synchronized (this) {
-        r = allMiniL6V2;
-        if (r == null) {
-
-          Criteria<String, float[]> criteria =
-              Criteria.builder()
-                  .setTypes(String.class, float[].class)
-                  .optModelUrls(MiniLMModel.getURL(miniLMModel))
-                  .optEngine("PyTorch")
-                  .optTranslatorFactory(new TextEmbeddingTranslatorFactory())
-                  .optProgress(new ProgressBar())
-                  .build();
-
-          try {
-            r = criteria.loadModel();
-            allMiniL6V2 = r;
-          } catch (IOException | ModelNotFoundException | MalformedModelException e) {
-            throw new RuntimeException(e);
-          }
-        }
-      }
-    }
-    return r;
+  /** Loads the model ahead of the first request. */
+  public void preload(MiniLMModel miniLMModel) {
+    modelRegistry.getPool(modelUrl(miniLMModel), cached -> criteria(miniLMModel, cached));
   }
 
-  private ZooModel<String, float[]> loadAllMiniL12V2(MiniLMModel miniLMModel) {
-
-    ZooModel<String, float[]> r = allMiniL12V2;
-
-    if (r == null) {
-      synchronized (this) {
-        r = allMiniL12V2;
-        if (r == null) {
-
-          Criteria<String, float[]> criteria =
-              Criteria.builder()
-                  .setTypes(String.class, float[].class)
-                  .optModelUrls(MiniLMModel.getURL(miniLMModel))
-                  .optEngine("PyTorch")
-                  .optTranslatorFactory(new TextEmbeddingTranslatorFactory())
-                  .optProgress(new ProgressBar())
-                  .build();
-
-          try {
-            r = criteria.loadModel();
-            allMiniL12V2 = r;
-          } catch (IOException | ModelNotFoundException | MalformedModelException e) {
-            throw new RuntimeException(e);
-          }
-        }
-      }
-    }
-
-    return r;
+  private boolean isOnnx() {
+    return ONNX_RUNTIME.equalsIgnoreCase(env.getProperty(ENGINE_PROPERTY, "PyTorch"));
   }
 
-  private ZooModel<String, float[]> loadParaphraseMiniLML3v2(MiniLMModel miniLMModel) {
-
-    ZooModel<String, float[]> r = paraphraseMiniLML3v2;
-
-    if (r == null) {
-      synchronized (this) {
-        r = paraphraseMiniLML3v2;
-        if (r == null) {
-
-          Criteria<String, float[]> criteria =
-              Criteria.builder()
-                  .setTypes(String.class, float[].class)
-                  .optModelUrls(MiniLMModel.getURL(miniLMModel))
-                  .optEngine("PyTorch")
-                  .optTranslatorFactory(new TextEmbeddingTranslatorFactory())
-                  .optProgress(new ProgressBar())
-                  .build();
-
-          try {
-            r = criteria.loadModel();
-            paraphraseMiniLML3v2 = r;
-          } catch (IOException | ModelNotFoundException | MalformedModelException e) {
-            throw new RuntimeException(e);
-          }
-        }
-      }
-    }
-    return r;
+  // also the registry key, so the two exports of a model are cached and loaded apart
+  private String modelUrl(MiniLMModel miniLMModel) {
+    return isOnnx() ? MiniLMModel.getOnnxURL(miniLMModel) : MiniLMModel.getURL(miniLMModel);
   }
 
-  private ZooModel<String, float[]> loadMultiQAMiniLML6CosV1(MiniLMModel miniLMModel) {
-
-    ZooModel<String, float[]> r = multiQAMiniLML6CosV1;
-
-    if (r == null) {
-      synchronized (this) {
-        r = multiQAMiniLML6CosV1;
-        if (r == null) {
-          Criteria<String, float[]> criteria =
-              Criteria.builder()
-                  .setTypes(String.class, float[].class)
-                  .optModelUrls(MiniLMModel.getURL(miniLMModel))
-                  .optEngine("PyTorch")
-                  .optTranslatorFactory(new TextEmbeddingTranslatorFactory())
-                  .optProgress(new ProgressBar())
-                  .build();
-
-          try {
-            r = criteria.loadModel();
-            multiQAMiniLML6CosV1 = r;
-          } catch (IOException | ModelNotFoundException | MalformedModelException e) {
-            throw new RuntimeException(e);
-          }
-        }
-      }
+  private Criteria<String, float[]> criteria(MiniLMModel miniLMModel, Path cached) {
+    Criteria.Builder<String, float[]> builder =
+        Criteria.builder().setTypes(String.class, float[].class).optProgress(new ProgressBar());
+
+    String modelName = null;
+    if (isOnnx()) {
+      builder
+          .optEngine(ONNX_RUNTIME)
+          .optTranslatorFactory(
+              new OnnxTextEmbeddingTranslator.Factory(Pooling.MEAN, true, true));
+      modelName = env.getProperty(ONNX_MODEL_NAME_PROPERTY);
+    } else {
+      builder.optEngine("PyTorch").optTranslatorFactory(new TextEmbeddingTranslatorFactory());
     }
 
-    return r;
+    if (Objects.nonNull(cached)) {
+      if (Objects.isNull(modelName)) modelName = cached.getFileName().toString();
+      return builder.optModelPath(cached).optModelName(modelName).build();
+    }
+    if (Objects.nonNull(modelName)) builder.optModelName(modelName);
+    return builder.optModelUrls(modelUrl(miniLMModel)).build();
   }
 }
@@ -8,6 +8,8 @@ public enum MiniLMModel {
   MULTI_QA_MINILM_L6_COS_V1("multi-qa-MiniLM-L6-cos-v1");
 
   private static final String BASE_URL = "djl://ai.djl.huggingface.pytorch/sentence-transformers/";
+  private static final String ONNX_BASE_URL =
+      "djl://ai.djl.huggingface.onnxruntime/sentence-transformers/";
 
   private final String name;
 
@@ -42,4 +44,9 @@ public enum MiniLMModel {
       }
     }
   }
+
+  /** The ONNX Runtime export of the model in the DJL model zoo. */
+  public static String getOnnxURL(MiniLMModel model) {
+    return ONNX_BASE_URL + model.getName();
+  }
 }
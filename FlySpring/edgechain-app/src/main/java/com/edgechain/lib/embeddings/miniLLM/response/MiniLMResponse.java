@@ -1,22 +1,29 @@
 package com.edgechain.lib.embeddings.miniLLM.response;
 
+import com.edgechain.lib.embeddings.FloatVector;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import java.util.List;
 
 public class MiniLMResponse {
 
-  private List<Float> embedding;
+  private FloatVector embedding;
 
   public MiniLMResponse() {}
 
+  public MiniLMResponse(float[] embedding) {
+    this.embedding = new FloatVector(embedding);
+  }
+
   public MiniLMResponse(List<Float> embedding) {
-    this.embedding = embedding;
+    this.embedding = FloatVector.of(embedding);
   }
 
   public List<Float> getEmbedding() {
     return embedding;
   }
 
+  @JsonDeserialize(using = FloatVector.Deserializer.class)
   public void setEmbedding(List<Float> embedding) {
-    this.embedding = embedding;
+    this.embedding = FloatVector.of(embedding);
   }
 }
@@ -0,0 +1,54 @@
+package com.edgechain.lib.embeddings.model;
+
+import com.edgechain.lib.embeddings.bgeSmall.BgeSmallClient;
+import com.edgechain.lib.embeddings.miniLLM.MiniLMClient;
+import com.edgechain.lib.embeddings.miniLLM.enums.MiniLMModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Loads the models listed in {@code embeddings.models.preload} (MiniLM model names such as {@code
+ * ALL_MINILM_L6_V2}, or {@code BGE_SMALL}) once the application has started, so the first requests
+ * after a deploy don't pay for the download and load. Spring Boot only reports the application as
+ * accepting traffic after this listener returns.
+ */
+@Component
+public class EmbeddingModelPreloader {
+
+  public static final String PRELOAD_PROPERTY = "embeddings.models.preload";
+  public static final String BGE_SMALL = "BGE_SMALL";
+
+  private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+  @Autowired private EmbeddingModelRegistry modelRegistry;
+
+  @Autowired private MiniLMClient miniLMClient;
+
+  @Autowired private BgeSmallClient bgeSmallClient;
+
+  @Autowired private Environment env;
+
+  @EventListener(ApplicationStartedEvent.class)
+  public void preload() {
+    String[] models = env.getProperty(PRELOAD_PROPERTY, String[].class, new String[0]);
+
+    for (String model : models) {
+      String name = model.trim().toUpperCase();
+      if (name.isEmpty()) continue;
+      try {
+        if (name.equals(BGE_SMALL)) bgeSmallClient.preload();
+        else miniLMClient.preload(MiniLMModel.valueOf(name));
+      } catch (Exception e) {
+        // loaded on first use instead
+        logger.error("Failed to preload embedding model " + name, e);
+      }
+    }
+
+    modelRegistry.setReady(true);
+  }
+}
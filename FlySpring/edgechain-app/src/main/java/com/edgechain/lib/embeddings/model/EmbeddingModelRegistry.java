@@ -0,0 +1,360 @@
+package com.edgechain.lib.embeddings.model;
+
+import ai.djl.repository.zoo.Criteria;
+import ai.djl.repository.zoo.ZooModel;
+import io.reactivex.rxjava3.core.Single;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Loads each local embedding model once and hands out its {@link PredictorPool}, and the {@link
+ * MicroBatcher} coalescing single-text requests in front of it.
+ *
+ * <ul>
+ *   <li>{@code embeddings.predictor.pool-size}: predictors per model, one per core by default.
+ *   <li>{@code embeddings.batching.*}: micro-batching limits.
+ *   <li>{@code embeddings.models.cache-dir}: {@link LocalModelCache} directory, tried before the
+ *       network; unset disables it.
+ *   <li>{@code embeddings.models.memory-budget-mb}: once the loaded models (sized by their files)
+ *       exceed it, the least recently used ones are unloaded; unset means no limit.
+ * </ul>
+ *
+ * Models listed in {@code embeddings.models.preload} are loaded at startup by the {@link
+ * EmbeddingModelPreloader}, which marks the registry {@link #isReady() ready} afterwards.
+ */
+@Component
+public class EmbeddingModelRegistry {
+
+  public static final String POOL_SIZE_PROPERTY = "embeddings.predictor.pool-size";
+  public static final String MAX_BATCH_SIZE_PROPERTY = "embeddings.batching.max-batch-size";
+  public static final String MAX_WAIT_PROPERTY = "embeddings.batching.max-wait-ms";
+  public static final String MAX_QUEUE_DEPTH_PROPERTY = "embeddings.batching.max-queue-depth";
+  public static final String CACHE_DIR_PROPERTY = "embeddings.models.cache-dir";
+  public static final String MEMORY_BUDGET_PROPERTY = "embeddings.models.memory-budget-mb";
+
+  private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+  private final Map<String, LoadedModel> models = new ConcurrentHashMap<>();
+  private final Map<String, CompletableFuture<LoadedModel>> loading = new ConcurrentHashMap<>();
+
+  // access-ordered ids of the loaded models, least recently used first
+  private final Map<String, Boolean> usage = new LinkedHashMap<>(16, 0.75f, true);
+
+  private final Environment env;
+  private final LocalModelCache modelCache;
+  private final long memoryBudget;
+
+  private volatile boolean ready;
+
+  public EmbeddingModelRegistry(Environment env) {
+    this.env = env;
+
+    String cacheDir = env.getProperty(CACHE_DIR_PROPERTY);
+    this.modelCache = Objects.isNull(cacheDir) ? null : new LocalModelCache(Path.of(cacheDir));
+
+    Long budgetMb = env.getProperty(MEMORY_BUDGET_PROPERTY, Long.class);
+    this.memoryBudget = Objects.isNull(budgetMb) ? Long.MAX_VALUE : budgetMb * 1024 * 1024;
+  }
+
+  /**
+   * Embeds the texts with one call of the model's batch function, loading the model on first use;
+   * embeddings follow the input order. The model is not unloaded while the batch runs.
+   *
+   * @param criteria builds the criteria of the model; it is given the model's verified directory in
+   *     the local model cache, or null when the model must be fetched from its original location
+   */
+  public List<float[]> embed(
+      String modelId, Function<Path, Criteria<String, float[]>> criteria, List<String> inputs)
+      throws Exception {
+    LoadedModel model = acquire(modelId, criteria);
+    try {
+      return model.batchFunction.apply(inputs);
+    } finally {
+      release(model);
+    }
+  }
+
+  /**
+   * Embeds one text through the model's {@link MicroBatcher}, loading the model on first use. The
+   * model is not unloaded until the embedding completes.
+   */
+  public Single<float[]> submit(
+      String modelId, Function<Path, Criteria<String, float[]>> criteria, String input) {
+    return Single.defer(
+        () -> {
+          LoadedModel model = acquire(modelId, criteria);
+          try {
+            return batcherOf(modelId, model).submit(input).doFinally(() -> release(model));
+          } catch (RuntimeException e) {
+            release(model);
+            throw e;
+          }
+        });
+  }
+
+  /**
+   * Returns the pool of the model, loading the model on first use. Concurrent first calls for the
+   * same model load it once. The pool is closed if the model is unloaded to stay within the memory
+   * budget; {@link #embed} keeps the model loaded while it runs.
+   */
+  public PredictorPool<?, ?> getPool(
+      String modelId, Function<Path, Criteria<String, float[]>> criteria) {
+    return getModel(modelId, criteria).pool;
+  }
+
+  /**
+   * Returns the micro-batcher of the model, whose batches run on the model's predictor pool. Like
+   * the pool, it is closed if the model is unloaded; {@link #submit} keeps the model loaded.
+   */
+  public MicroBatcher getBatcher(
+      String modelId, Function<Path, Criteria<String, float[]>> criteria) {
+    return batcherOf(modelId, getModel(modelId, criteria));
+  }
+
+  public Map<String, MicroBatcherStats> getBatchingStats() {
+    Map<String, MicroBatcherStats> stats = new TreeMap<>();
+    models.forEach(
+        (id, model) -> {
+          MicroBatcher batcher = model.batcher;
+          if (Objects.nonNull(batcher)) stats.put(id, batcher.getStats());
+        });
+    return stats;
+  }
+
+  /** Ids of the loaded models, least recently used first. */
+  public List<String> getLoadedModels() {
+    synchronized (usage) {
+      return new ArrayList<>(usage.keySet());
+    }
+  }
+
+  public int getPoolSize() {
+    return env.getProperty(
+        POOL_SIZE_PROPERTY, Integer.class, Runtime.getRuntime().availableProcessors());
+  }
+
+  /** True once the models configured for preloading have been loaded (or failed to). */
+  public boolean isReady() {
+    return ready;
+  }
+
+  public void setReady(boolean ready) {
+    this.ready = ready;
+  }
+
+  @PreDestroy
+  public void close() {
+    models.values().forEach(LoadedModel::close);
+    models.clear();
+    synchronized (usage) {
+      usage.clear();
+    }
+  }
+
+  private MicroBatcher batcherOf(String modelId, LoadedModel model) {
+    synchronized (model) {
+      if (Objects.isNull(model.batcher)) {
+        model.batcher =
+            new MicroBatcher(
+                modelId,
+                model.batchFunction,
+                model.pool.getSize(),
+                env.getProperty(MAX_BATCH_SIZE_PROPERTY, Integer.class, 32),
+                Duration.ofMillis(env.getProperty(MAX_WAIT_PROPERTY, Long.class, 5L)),
+                env.getProperty(MAX_QUEUE_DEPTH_PROPERTY, Integer.class, 1024));
+      }
+      return model.batcher;
+    }
+  }
+
+  /** Returns the loaded model marked in use, so that it is not unloaded until {@link #release}. */
+  private LoadedModel acquire(
+      String modelId, Function<Path, Criteria<String, float[]>> criteria) {
+    while (true) {
+      LoadedModel model = getModel(modelId, criteria);
+      synchronized (usage) {
+        if (models.get(modelId) == model) {
+          model.users++;
+          return model;
+        }
+      }
+      // unloaded between loading and marking it in use: load it again
+    }
+  }
+
+  private void release(LoadedModel model) {
+    synchronized (usage) {
+      model.users--;
+    }
+    // the model may have been kept loaded over the budget while in use
+    evictOverBudget();
+  }
+
+  private LoadedModel getModel(String modelId, Function<Path, Criteria<String, float[]>> criteria) {
+    LoadedModel model = models.get(modelId);
+    if (Objects.nonNull(model)) {
+      synchronized (usage) {
+        usage.get(modelId);
+      }
+      return model;
+    }
+
+    // one thread loads the model, concurrent callers for the same model wait on its future;
+    // callers of other models are not blocked by the download
+    CompletableFuture<LoadedModel> loaded = new CompletableFuture<>();
+    CompletableFuture<LoadedModel> loading = this.loading.putIfAbsent(modelId, loaded);
+    if (Objects.nonNull(loading)) {
+      try {
+        return loading.join();
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+        throw e;
+      }
+    }
+
+    try {
+      // another thread may have finished loading it after the first look
+      model = models.get(modelId);
+      if (Objects.isNull(model)) {
+        model = load(modelId, criteria);
+        synchronized (usage) {
+          models.put(modelId, model);
+          usage.put(modelId, Boolean.TRUE);
+        }
+      }
+      loaded.complete(model);
+    } catch (RuntimeException e) {
+      loaded.completeExceptionally(e);
+      throw e;
+    } finally {
+      this.loading.remove(modelId, loaded);
+    }
+
+    evictOverBudget();
+    return model;
+  }
+
+  private LoadedModel load(String modelId, Function<Path, Criteria<String, float[]>> criteria) {
+    Path cached = Objects.isNull(modelCache) ? null : modelCache.resolve(modelId);
+    logger.info(
+        "Loading embedding model " + modelId + (Objects.isNull(cached) ? "" : " from " + cached));
+
+    long start = System.nanoTime();
+    ZooModel<String, float[]> model;
+    try {
+      model = criteria.apply(cached).loadModel();
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+    logger.info(
+        String.format(
+            "Loaded embedding model %s in %d ms",
+            modelId, Duration.ofNanos(System.nanoTime() - start).toMillis()));
+
+    if (Objects.nonNull(modelCache) && Objects.isNull(cached)) {
+      modelCache.store(modelId, model.getModelPath());
+    }
+    long size = sizeOf(model.getModelPath());
+    if (model.getTranslator() instanceof OnnxTextEmbeddingTranslator translator) {
+      // one padded forward pass per batch, see OnnxTextEmbeddingTranslator
+      PredictorPool<List<String>, List<float[]>> pool =
+          new PredictorPool<>(model, translator.batch(), getPoolSize());
+      return new LoadedModel(
+          pool, inputs -> pool.execute(predictor -> predictor.predict(inputs)), size);
+    }
+
+    PredictorPool<String, float[]> pool = new PredictorPool<>(model, getPoolSize());
+    return new LoadedModel(
+        pool,
+        inputs -> pool.execute(predictor -> predictor.batchPredict(inputs)),
+        size);
+  }
+
+  /**
+   * Unloads least recently used models until within the budget. The most recently used model, and
+   * models in use, are kept; the latter are unloaded once released if still over the budget.
+   */
+  private void evictOverBudget() {
+    if (memoryBudget == Long.MAX_VALUE) return;
+
+    List<LoadedModel> evicted = new ArrayList<>();
+    synchronized (usage) {
+      long total = 0;
+      for (String id : usage.keySet()) {
+        LoadedModel model = models.get(id);
+        if (Objects.nonNull(model)) total += model.size;
+      }
+
+      List<String> lru = new ArrayList<>(usage.keySet());
+      for (String id : lru.subList(0, Math.max(lru.size() - 1, 0))) {
+        if (total <= memoryBudget) break;
+
+        LoadedModel model = models.get(id);
+        if (Objects.nonNull(model) && model.users > 0) continue;
+
+        models.remove(id);
+        usage.remove(id);
+        if (Objects.isNull(model)) continue;
+
+        total -= model.size;
+        evicted.add(model);
+        logger.info("Unloading embedding model " + id + " to stay within the memory budget");
+      }
+    }
+
+    // running batches finish on the evicted models before they are closed
+    evicted.forEach(model -> CompletableFuture.runAsync(model::close));
+  }
+
+  private static long sizeOf(Path path) {
+    if (Objects.isNull(path)) return 0;
+    try (Stream<Path> files = Files.walk(path)) {
+      return files.filter(Files::isRegularFile).mapToLong(p -> p.toFile().length()).sum();
+    } catch (IOException e) {
+      return 0;
+    }
+  }
+
+  private static final class LoadedModel {
+    private final PredictorPool<?, ?> pool;
+    // embeds a batch of texts with a predictor of the pool
+    private final MicroBatcher.BatchFunction batchFunction;
+    private final long size;
+    private volatile MicroBatcher batcher;
+
+    // callers of embed and submit running on the model, guarded by the usage lock
+    private int users;
+
+    private LoadedModel(
+        PredictorPool<?, ?> pool, MicroBatcher.BatchFunction batchFunction, long size) {
+      this.pool = pool;
+      this.batchFunction = batchFunction;
+      this.size = size;
+    }
+
+    private void close() {
+      synchronized (this) {
+        if (Objects.nonNull(batcher)) batcher.close();
+      }
+      pool.closeWhenIdle();
+    }
+  }
+}
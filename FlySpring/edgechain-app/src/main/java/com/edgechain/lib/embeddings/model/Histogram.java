@@ -0,0 +1,87 @@
+package com.edgechain.lib.embeddings.model;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram over fixed bucket upper bounds; values above the last bound are counted in a
+ * final overflow bucket. Percentiles are reported as the upper bound of the bucket they fall in.
+ */
+public class Histogram {
+
+  private final long[] bounds;
+  private final LongAdder[] buckets;
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+  public Histogram(long... bounds) {
+    this.bounds = bounds.clone();
+    Arrays.sort(this.bounds);
+    this.buckets = new LongAdder[bounds.length + 1];
+    for (int i = 0; i < buckets.length; i++) {
+      buckets[i] = new LongAdder();
+    }
+  }
+
+  public void record(long value) {
+    int i = Arrays.binarySearch(bounds, value);
+    buckets[i >= 0 ? i : -i - 1].increment();
+    count.increment();
+    sum.add(value);
+    max.accumulate(value);
+  }
+
+  public long[] getBounds() {
+    return bounds.clone();
+  }
+
+  /** Count per bucket; the last one counts the values above every bound. */
+  public long[] getCounts() {
+    long[] counts = new long[buckets.length];
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] = buckets[i].sum();
+    }
+    return counts;
+  }
+
+  public long getCount() {
+    return count.sum();
+  }
+
+  public long getSum() {
+    return sum.sum();
+  }
+
+  public long getMax() {
+    return max.get();
+  }
+
+  public double getMean() {
+    long n = getCount();
+    return n == 0 ? 0 : (double) getSum() / n;
+  }
+
+  public long getP50() {
+    return percentile(0.5);
+  }
+
+  public long getP99() {
+    return percentile(0.99);
+  }
+
+  public long percentile(double quantile) {
+    long[] counts = getCounts();
+    long total = Arrays.stream(counts).sum();
+    if (total == 0) return 0;
+
+    long rank = (long) Math.ceil(quantile * total);
+    long seen = 0;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= rank) return i < bounds.length ? bounds[i] : getMax();
+    }
+    return getMax();
+  }
+}
@@ -0,0 +1,131 @@
+package com.edgechain.lib.embeddings.model;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * On-disk cache of model directories, so a restarted service loads its models from local disk
+ * instead of the network. Each model is kept as {@code <root>/<model id>/<model dir>} next to a
+ * {@code checksums.sha256} listing the SHA-256 of every file; a model is only served from the cache
+ * when all of them match, otherwise it is dropped and downloaded again.
+ */
+public class LocalModelCache {
+
+  static final String CHECKSUMS = "checksums.sha256";
+
+  private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+  private final Path root;
+
+  public LocalModelCache(Path root) {
+    this.root = root;
+  }
+
+  /** Returns the verified cached directory of the model, or null when it is not cached. */
+  public Path resolve(String modelId) {
+    Path entry = root.resolve(directoryName(modelId));
+    Path checksums = entry.resolve(CHECKSUMS);
+    if (!Files.isRegularFile(checksums)) return null;
+
+    try {
+      Path modelDir = null;
+      for (String line : Files.readAllLines(checksums)) {
+        if (line.isBlank()) continue;
+        String expected = line.substring(0, line.indexOf(' '));
+        Path file = entry.resolve(line.substring(line.indexOf(' ') + 2));
+        if (!Files.isRegularFile(file) || !expected.equals(sha256(file))) {
+          logger.warn("Cached model " + modelId + " failed verification at " + file);
+          delete(entry);
+          return null;
+        }
+        if (Objects.isNull(modelDir)) modelDir = entry.resolve(entry.relativize(file).getName(0));
+      }
+      return modelDir;
+    } catch (IOException | RuntimeException e) {
+      logger.warn("Cached model " + modelId + " is unreadable: " + e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Copies the loaded model's directory into the cache. The entry becomes visible only once it is
+   * complete; failures are logged, the cache being an optimization.
+   */
+  public void store(String modelId, Path modelDir) {
+    Path entry = root.resolve(directoryName(modelId));
+    if (Files.exists(entry)) return;
+
+    Path staging = root.resolve("." + directoryName(modelId) + "." + System.nanoTime());
+    try {
+      Path target = staging.resolve(modelDir.getFileName().toString());
+      List<String> checksums = new ArrayList<>();
+      try (Stream<Path> files = Files.walk(modelDir)) {
+        for (Path source : files.toList()) {
+          Path copy = target.resolve(modelDir.relativize(source).toString());
+          if (Files.isDirectory(source)) {
+            Files.createDirectories(copy);
+          } else {
+            Files.copy(source, copy, StandardCopyOption.REPLACE_EXISTING);
+            checksums.add(sha256(copy) + "  " + staging.relativize(copy));
+          }
+        }
+      }
+      Files.write(staging.resolve(CHECKSUMS), checksums);
+      Files.move(staging, entry, StandardCopyOption.ATOMIC_MOVE);
+      logger.info("Cached model " + modelId + " in " + entry);
+    } catch (IOException | RuntimeException e) {
+      logger.warn("Failed to cache model " + modelId + ": " + e.getMessage());
+      delete(staging);
+    }
+  }
+
+  static String directoryName(String modelId) {
+    return modelId.replaceAll("[^A-Za-z0-9._-]", "_");
+  }
+
+  private static String sha256(Path file) throws IOException {
+    try (InputStream in = Files.newInputStream(file)) {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      byte[] buffer = new byte[64 * 1024];
+      int read;
+      while ((read = in.read(buffer)) > 0) {
+        digest.update(buffer, 0, read);
+      }
+      return HexFormat.of().formatHex(digest.digest());
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private void delete(Path path) {
+    if (!Files.exists(path)) return;
+    try (Stream<Path> files = Files.walk(path)) {
+      files
+          .sorted(Comparator.reverseOrder())
+          .forEach(
+              p -> {
+                try {
+                  Files.delete(p);
+                } catch (IOException e) {
+                  throw new UncheckedIOException(e);
+                }
+              });
+    } catch (IOException | UncheckedIOException e) {
+      logger.warn("Failed to delete " + path + ": " + e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,218 @@
+package com.edgechain.lib.embeddings.model;
+
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.subjects.SingleSubject;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Coalesces concurrent single-text embedding requests into batches for one forward pass each. A
+ * batch is flushed when it holds {@code maxBatchSize} texts or when its oldest text has waited
+ * {@code maxWait}. At most {@code parallelism} batches run at once; while they do, new texts keep
+ * queueing, so batches grow with load. Texts beyond {@code maxQueueDepth} are rejected.
+ */
+public class MicroBatcher implements AutoCloseable {
+
+  private static final long[] QUEUE_WAIT_BOUNDS_MICROS = {
+    100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000, 100_000, 250_000, 1_000_000
+  };
+  private static final long[] BATCH_SIZE_BOUNDS = {1, 2, 4, 8, 16, 32, 64, 128, 256};
+
+  private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+  private final String name;
+  private final BatchFunction batchFunction;
+  private final int maxBatchSize;
+  private final long maxWaitNanos;
+  private final int maxQueueDepth;
+
+  private final LinkedBlockingQueue<Pending> queue;
+  private final Semaphore running;
+  private final ExecutorService executor;
+  private final Thread dispatcher;
+
+  private final Histogram queueWait = new Histogram(QUEUE_WAIT_BOUNDS_MICROS);
+  private final Histogram batchSize = new Histogram(BATCH_SIZE_BOUNDS);
+  private final LongAdder rejected = new LongAdder();
+
+  private volatile boolean closed;
+
+  public MicroBatcher(
+      String name,
+      BatchFunction batchFunction,
+      int parallelism,
+      int maxBatchSize,
+      Duration maxWait,
+      int maxQueueDepth) {
+    this.name = name;
+    this.batchFunction = batchFunction;
+    this.maxBatchSize = maxBatchSize;
+    this.maxWaitNanos = maxWait.toNanos();
+    this.maxQueueDepth = maxQueueDepth;
+
+    this.queue = new LinkedBlockingQueue<>(maxQueueDepth);
+    this.running = new Semaphore(parallelism);
+
+    AtomicInteger workers = new AtomicInteger();
+    this.executor =
+        Executors.newFixedThreadPool(
+            parallelism,
+            runnable -> {
+              Thread thread =
+                  new Thread(runnable, "micro-batcher-" + name + "-" + workers.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+
+    this.dispatcher = new Thread(this::dispatch, "micro-batcher-" + name);
+    this.dispatcher.setDaemon(true);
+    this.dispatcher.start();
+  }
+
+  /**
+   * Queues the text for the next batch. Fails with a {@link RejectedExecutionException} when the
+   * queue is full.
+   */
+  public Single<float[]> submit(String input) {
+    return Single.defer(
+        () -> {
+          if (closed) return Single.error(new RejectedExecutionException(name + " is closed"));
+
+          Pending pending = new Pending(input);
+          if (!queue.offer(pending)) {
+            rejected.increment();
+            return Single.error(
+                new RejectedExecutionException(
+                    name + " embedding queue is full (" + maxQueueDepth + " texts)"));
+          }
+          // closed between the check and the offer, maybe after close() drained the queue
+          if (closed && queue.remove(pending)) {
+            pending.result.onError(new RejectedExecutionException(name + " is closed"));
+          }
+          return pending.result;
+        });
+  }
+
+  public MicroBatcherStats getStats() {
+    return new MicroBatcherStats(queue.size(), rejected.sum(), queueWait, batchSize);
+  }
+
+  /**
+   * Stops batching; queued texts and the batch being built fail, running batches complete. The
+   * dispatcher is interrupted to wake it up, and fails whatever it holds on its way out.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    dispatcher.interrupt();
+    executor.shutdown();
+    failQueued();
+  }
+
+  private void dispatch() {
+    // the batch being built, until a worker owns it
+    List<Pending> batch = null;
+    try {
+      while (!closed) {
+        // wait for a free worker first: while every worker is busy, the queue fills up
+        running.acquire();
+
+        Pending first = queue.take();
+        batch = new ArrayList<>(maxBatchSize);
+        batch.add(first);
+
+        long deadline = first.enqueuedAt + maxWaitNanos;
+        while (batch.size() < maxBatchSize) {
+          long remaining = deadline - System.nanoTime();
+          Pending next =
+              remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+          if (Objects.isNull(next)) break;
+          batch.add(next);
+        }
+
+        List<Pending> ready = batch;
+        executor.execute(
+            () -> {
+              try {
+                run(ready);
+              } finally {
+                running.release();
+              }
+            });
+        batch = null;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (RejectedExecutionException e) {
+      logger.debug(name + " stopped dispatching: " + e.getMessage());
+    } finally {
+      if (Objects.nonNull(batch)) fail(batch);
+      failQueued();
+    }
+  }
+
+  private void failQueued() {
+    Pending pending;
+    while (Objects.nonNull(pending = queue.poll())) {
+      pending.result.onError(new RejectedExecutionException(name + " is closed"));
+    }
+  }
+
+  private void fail(List<Pending> batch) {
+    for (Pending pending : batch) {
+      pending.result.onError(new RejectedExecutionException(name + " is closed"));
+    }
+  }
+
+  private void run(List<Pending> batch) {
+    long now = System.nanoTime();
+    List<String> inputs = new ArrayList<>(batch.size());
+    for (Pending pending : batch) {
+      queueWait.record(TimeUnit.NANOSECONDS.toMicros(now - pending.enqueuedAt));
+      inputs.add(pending.input);
+    }
+    batchSize.record(batch.size());
+
+    try {
+      List<float[]> outputs = batchFunction.apply(inputs);
+      if (outputs.size() != batch.size()) {
+        throw new IllegalStateException(
+            "Expected " + batch.size() + " embeddings, got " + outputs.size());
+      }
+      for (int i = 0; i < batch.size(); i++) {
+        batch.get(i).result.onSuccess(outputs.get(i));
+      }
+    } catch (Exception e) {
+      for (Pending pending : batch) {
+        pending.result.onError(e);
+      }
+    }
+  }
+
+  @FunctionalInterface
+  public interface BatchFunction {
+    List<float[]> apply(List<String> inputs) throws Exception;
+  }
+
+  private static final class Pending {
+    private final String input;
+    private final long enqueuedAt = System.nanoTime();
+    private final SingleSubject<float[]> result = SingleSubject.create();
+
+    private Pending(String input) {
+      this.input = input;
+    }
+  }
+}
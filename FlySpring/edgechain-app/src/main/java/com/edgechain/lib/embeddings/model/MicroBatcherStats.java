@@ -0,0 +1,51 @@
+package com.edgechain.lib.embeddings.model;
+
+/** Point-in-time view of a {@link MicroBatcher}, for tuning batch size against latency. */
+public class MicroBatcherStats {
+
+  private final int queueDepth;
+  private final long rejected;
+  private final Histogram queueWaitMicros;
+  private final Histogram batchSize;
+
+  public MicroBatcherStats(
+      int queueDepth, long rejected, Histogram queueWaitMicros, Histogram batchSize) {
+    this.queueDepth = queueDepth;
+    this.rejected = rejected;
+    this.queueWaitMicros = queueWaitMicros;
+    this.batchSize = batchSize;
+  }
+
+  public int getQueueDepth() {
+    return queueDepth;
+  }
+
+  public long getRejected() {
+    return rejected;
+  }
+
+  /** Time from submission until the batch containing the text started, in microseconds. */
+  public Histogram getQueueWaitMicros() {
+    return queueWaitMicros;
+  }
+
+  public Histogram getBatchSize() {
+    return batchSize;
+  }
+
+  @Override
+  public String toString() {
+    return "MicroBatcherStats{"
+        + "queueDepth="
+        + queueDepth
+        + ", rejected="
+        + rejected
+        + ", batches="
+        + batchSize.getCount()
+        + ", meanBatchSize="
+        + batchSize.getMean()
+        + ", p99QueueWaitMicros="
+        + queueWaitMicros.getP99()
+        + '}';
+  }
+}
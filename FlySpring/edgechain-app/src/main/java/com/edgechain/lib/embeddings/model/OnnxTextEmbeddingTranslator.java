@@ -0,0 +1,197 @@
+package com.edgechain.lib.embeddings.model;
+
+import ai.djl.Model;
+import ai.djl.huggingface.tokenizers.Encoding;
+import ai.djl.huggingface.tokenizers.HuggingFaceTokenizer;
+import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.NDList;
+import ai.djl.ndarray.NDManager;
+import ai.djl.translate.Batchifier;
+import ai.djl.translate.TranslateException;
+import ai.djl.translate.Translator;
+import ai.djl.translate.TranslatorContext;
+import ai.djl.translate.TranslatorFactory;
+import ai.djl.util.Pair;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Text embedding translator for ONNX Runtime models. The engine only runs the transformer: inputs
+ * are padded to the longest text of the batch on the Java side, and {@link Pooling} plus L2
+ * normalization run on the returned float array, so neither a second engine (e.g. PyTorch) nor an
+ * engine array per operation is needed. Works with fp32 and int8-quantized exports alike.
+ *
+ * <p>DJL's {@code Predictor.batchPredict} runs {@link #processInput} once per text and stacks the
+ * results, which cannot stack token sequences of different length, so this translator has no
+ * batchifier and embeds one text per call. Whole batches go through the {@link #batch()}
+ * translator, whose single input is the list of texts.
+ */
+public class OnnxTextEmbeddingTranslator implements Translator<String, float[]> {
+
+  private final HuggingFaceTokenizer tokenizer;
+  private final String pooling;
+  private final boolean normalize;
+  private final boolean includeTokenTypes;
+
+  public OnnxTextEmbeddingTranslator(
+      HuggingFaceTokenizer tokenizer,
+      String pooling,
+      boolean normalize,
+      boolean includeTokenTypes) {
+    this.tokenizer = tokenizer;
+    this.pooling = pooling;
+    this.normalize = normalize;
+    this.includeTokenTypes = includeTokenTypes;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public Batchifier getBatchifier() {
+    // the input is already a batch of one row
+    return null;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public NDList processInput(TranslatorContext ctx, String input) {
+    return encode(ctx, List.of(input));
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public float[] processOutput(TranslatorContext ctx, NDList list) {
+    return pool(ctx, list).get(0);
+  }
+
+  /**
+   * Translator embedding a list of texts with one forward pass; create its predictors with {@code
+   * model.newPredictor(translator.batch())}.
+   */
+  public Translator<List<String>, List<float[]>> batch() {
+    return new Batch();
+  }
+
+  /** Encodes the inputs, right-padded to the longest one, as one batch. */
+  private NDList encode(TranslatorContext ctx, List<String> inputs) {
+    Encoding[] encodings = new Encoding[inputs.size()];
+    int maxLength = 0;
+    for (int i = 0; i < encodings.length; i++) {
+      encodings[i] = tokenizer.encode(inputs.get(i));
+      maxLength = Math.max(maxLength, encodings[i].getIds().length);
+    }
+    ctx.setAttachment("encodings", encodings);
+
+    long[][] inputIds = new long[encodings.length][maxLength];
+    long[][] attentionMask = new long[encodings.length][maxLength];
+    long[][] typeIds = new long[encodings.length][maxLength];
+    for (int i = 0; i < encodings.length; i++) {
+      long[] ids = encodings[i].getIds();
+      System.arraycopy(ids, 0, inputIds[i], 0, ids.length);
+      System.arraycopy(encodings[i].getAttentionMask(), 0, attentionMask[i], 0, ids.length);
+      System.arraycopy(encodings[i].getTypeIds(), 0, typeIds[i], 0, ids.length);
+    }
+
+    NDManager manager = ctx.getNDManager();
+    NDArray inputIdsArray = manager.create(inputIds);
+    inputIdsArray.setName("input_ids");
+    NDArray attentionMaskArray = manager.create(attentionMask);
+    attentionMaskArray.setName("attention_mask");
+    if (!includeTokenTypes) {
+      return new NDList(inputIdsArray, attentionMaskArray);
+    }
+    NDArray typeIdsArray = manager.create(typeIds);
+    typeIdsArray.setName("token_type_ids");
+    return new NDList(inputIdsArray, attentionMaskArray, typeIdsArray);
+  }
+
+  /** Pools each row of the batch over its own, unpadded tokens. */
+  private List<float[]> pool(TranslatorContext ctx, NDList list) {
+    Encoding[] encodings = (Encoding[]) ctx.getAttachment("encodings");
+
+    NDArray hiddenStates = list.get("last_hidden_state");
+    if (Objects.isNull(hiddenStates)) {
+      // For Onnx model, NDArray name is not present
+      hiddenStates = list.head();
+    }
+    long[] shape = hiddenStates.getShape().getShape();
+    int tokens = (int) shape[1];
+    int dimensions = (int) shape[2];
+    float[] hidden = hiddenStates.toFloatArray();
+
+    List<float[]> result = new ArrayList<>(encodings.length);
+    for (int i = 0; i < encodings.length; i++) {
+      long[] attentionMask = encodings[i].getAttentionMask();
+      float[] embedding =
+          Pooling.pool(pooling, hidden, i * tokens * dimensions, dimensions, attentionMask);
+      result.add(normalize ? Pooling.normalize(embedding) : embedding);
+    }
+    return result;
+  }
+
+  private final class Batch implements Translator<List<String>, List<float[]>> {
+
+    /** {@inheritDoc} */
+    @Override
+    public Batchifier getBatchifier() {
+      // the list is padded into one batch by processInput
+      return null;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public NDList processInput(TranslatorContext ctx, List<String> inputs) {
+      return encode(ctx, inputs);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<float[]> processOutput(TranslatorContext ctx, NDList list) {
+      return pool(ctx, list);
+    }
+  }
+
+  /**
+   * Creates the translator when the model is loaded, with the tokenizer ({@code tokenizer.json})
+   * found in the model's directory.
+   */
+  public static class Factory implements TranslatorFactory {
+
+    private final String pooling;
+    private final boolean normalize;
+    private final boolean includeTokenTypes;
+
+    public Factory(String pooling, boolean normalize, boolean includeTokenTypes) {
+      this.pooling = pooling;
+      this.normalize = normalize;
+      this.includeTokenTypes = includeTokenTypes;
+    }
+
+    @Override
+    public Set<Pair<Type, Type>> getSupportedTypes() {
+      return Set.of(new Pair<>(String.class, float[].class));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <I, O> Translator<I, O> newInstance(
+        Class<I> input, Class<O> output, Model model, Map<String, ?> arguments)
+        throws TranslateException {
+      if (!isSupported(input, output)) {
+        throw new IllegalArgumentException("Unsupported input/output types.");
+      }
+      try {
+        HuggingFaceTokenizer tokenizer =
+            HuggingFaceTokenizer.builder().optTokenizerPath(model.getModelPath()).build();
+        return (Translator<I, O>)
+            new OnnxTextEmbeddingTranslator(tokenizer, pooling, normalize, includeTokenTypes);
+      } catch (IOException e) {
+        throw new TranslateException("Failed to load tokenizer of " + model.getName(), e);
+      }
+    }
+  }
+}
@@ -0,0 +1,96 @@
+package com.edgechain.lib.embeddings.model;
+
+import java.util.Arrays;
+
+/**
+ * Sentence-embedding pooling over a model's token embeddings, on plain float arrays: no engine
+ * arrays and no native memory per call. The token embeddings of one text are read from a flattened
+ * row-major {@code [tokens][dimensions]} block starting at {@code offset}.
+ */
+public final class Pooling {
+
+  public static final String CLS = "cls";
+  public static final String MEAN = "mean";
+  public static final String MEAN_SQRT_LEN = "mean_sqrt_len";
+  public static final String MAX = "max";
+  public static final String WEIGHTED_MEAN = "weightedmean";
+
+  private Pooling() {}
+
+  public static float[] pool(
+      String pooling, float[] hidden, int offset, int dimensions, long[] attentionMask) {
+    switch (pooling) {
+      case CLS:
+        float[] cls = new float[dimensions];
+        System.arraycopy(hidden, offset, cls, 0, dimensions);
+        return cls;
+      case MEAN:
+        return meanPool(hidden, offset, dimensions, attentionMask, false, false);
+      case MEAN_SQRT_LEN:
+        return meanPool(hidden, offset, dimensions, attentionMask, true, false);
+      case WEIGHTED_MEAN:
+        return meanPool(hidden, offset, dimensions, attentionMask, false, true);
+      case MAX:
+        return maxPool(hidden, offset, dimensions, attentionMask);
+      default:
+        throw new IllegalArgumentException("Unexpected pooling mode: " + pooling);
+    }
+  }
+
+  /** Scales the vector to unit L2 norm, in place. */
+  public static float[] normalize(float[] vector) {
+    double sum = 0;
+    for (float v : vector) {
+      sum += v * v;
+    }
+    float norm = (float) Math.max(Math.sqrt(sum), 1e-12);
+    for (int i = 0; i < vector.length; i++) {
+      vector[i] /= norm;
+    }
+    return vector;
+  }
+
+  private static float[] meanPool(
+      float[] hidden,
+      int offset,
+      int dimensions,
+      long[] attentionMask,
+      boolean sqrt,
+      boolean weighted) {
+    float[] sum = new float[dimensions];
+    double weights = 0;
+
+    for (int t = 0; t < attentionMask.length; t++) {
+      if (attentionMask[t] == 0) continue;
+      // weighted mean weighs the i-th token by i (1-based)
+      float weight = weighted ? t + 1 : 1;
+      int at = offset + t * dimensions;
+      for (int d = 0; d < dimensions; d++) {
+        sum[d] += weight * hidden[at + d];
+      }
+      weights += weight;
+    }
+
+    double divisor = Math.max(weights, 1e-9);
+    if (sqrt) divisor = Math.sqrt(divisor);
+    for (int d = 0; d < dimensions; d++) {
+      sum[d] /= (float) divisor;
+    }
+    return sum;
+  }
+
+  private static float[] maxPool(
+      float[] hidden, int offset, int dimensions, long[] attentionMask) {
+    float[] max = new float[dimensions];
+    Arrays.fill(max, -1e9f);
+
+    for (int t = 0; t < attentionMask.length; t++) {
+      if (attentionMask[t] == 0) continue;
+      int at = offset + t * dimensions;
+      for (int d = 0; d < dimensions; d++) {
+        max[d] = Math.max(max[d], hidden[at + d]);
+      }
+    }
+    return max;
+  }
+}
@@ -0,0 +1,124 @@
+package com.edgechain.lib.embeddings.model;
+
+import ai.djl.inference.Predictor;
+import ai.djl.repository.zoo.ZooModel;
+import ai.djl.translate.Translator;
+import java.util.Objects;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Bounded pool of {@link Predictor}s of one model. A predictor holds a native inference session,
+ * so it is created lazily, reused across requests and closed with the pool instead of being
+ * created (and leaked) per request. At most {@code size} predictors exist at once; borrowers beyond
+ * that wait for one to be returned.
+ */
+public class PredictorPool<I, O> implements AutoCloseable {
+
+  private final ZooModel<?, ?> model;
+  private final Supplier<Predictor<I, O>> predictors;
+  private final int size;
+
+  private final Semaphore permits;
+  private final LinkedBlockingQueue<Predictor<I, O>> idle = new LinkedBlockingQueue<>();
+  private final AtomicInteger created = new AtomicInteger();
+
+  private volatile boolean closed;
+
+  public PredictorPool(ZooModel<I, O> model, int size) {
+    this(model, model::newPredictor, size);
+  }
+
+  /** Pool of predictors of the model running the given translator instead of the model's own. */
+  public PredictorPool(ZooModel<?, ?> model, Translator<I, O> translator, int size) {
+    this(model, () -> model.newPredictor(translator), size);
+  }
+
+  private PredictorPool(ZooModel<?, ?> model, Supplier<Predictor<I, O>> predictors, int size) {
+    if (size < 1) throw new IllegalArgumentException("Pool size must be positive: " + size);
+    this.model = model;
+    this.predictors = predictors;
+    this.size = size;
+    this.permits = new Semaphore(size, true);
+  }
+
+  /** Runs the call with a borrowed predictor, returning it to the pool afterwards. */
+  public <R> R execute(PredictorCall<I, O, R> call) throws Exception {
+    Predictor<I, O> predictor = borrow();
+    try {
+      return call.apply(predictor);
+    } finally {
+      release(predictor);
+    }
+  }
+
+  /** Borrows a predictor, waiting while all of them are in use. Must be {@link #release}d. */
+  public Predictor<I, O> borrow() throws InterruptedException {
+    if (closed) throw new IllegalStateException("Predictor pool is closed");
+    permits.acquire();
+    if (closed) {
+      permits.release();
+      throw new IllegalStateException("Predictor pool is closed");
+    }
+
+    Predictor<I, O> predictor = idle.poll();
+    if (Objects.isNull(predictor)) {
+      try {
+        predictor = predictors.get();
+        created.incrementAndGet();
+      } catch (RuntimeException e) {
+        permits.release();
+        throw e;
+      }
+    }
+    return predictor;
+  }
+
+  public void release(Predictor<I, O> predictor) {
+    if (closed) predictor.close();
+    else idle.offer(predictor);
+    permits.release();
+  }
+
+  public ZooModel<?, ?> getModel() {
+    return model;
+  }
+
+  public int getSize() {
+    return size;
+  }
+
+  /** Number of predictors created so far; never more than the pool size while the pool is open. */
+  public int getCreated() {
+    return created.get();
+  }
+
+  /** Closes the idle predictors; borrowed ones are closed when released. The model is kept. */
+  @Override
+  public void close() {
+    closed = true;
+    Predictor<I, O> predictor;
+    while (Objects.nonNull(predictor = idle.poll())) {
+      predictor.close();
+    }
+  }
+
+  /** Closes the pool once every borrowed predictor has been returned, then closes the model. */
+  public void closeWhenIdle() {
+    closed = true;
+    permits.acquireUninterruptibly(size);
+    try {
+      close();
+      model.close();
+    } finally {
+      permits.release(size);
+    }
+  }
+
+  @FunctionalInterface
+  public interface PredictorCall<I, O, R> {
+    R apply(Predictor<I, O> predictor) throws Exception;
+  }
+}
@@ -0,0 +1,75 @@
+package com.edgechain.lib.embeddings.request;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/** Embeddings request with an array input: the inputs are embedded by one API call. */
+public class OpenAiBatchEmbeddingRequest {
+
+  // API limits of one embeddings request
+  public static final int MAX_INPUTS = 2048;
+  public static final int MAX_TOKENS = 300_000;
+
+  private List<String> input;
+  private String model;
+
+  public OpenAiBatchEmbeddingRequest() {}
+
+  public OpenAiBatchEmbeddingRequest(String model, List<String> input) {
+    this.model = model;
+    this.input = input;
+  }
+
+  public String getModel() {
+    return model;
+  }
+
+  public void setModel(String model) {
+    this.model = model;
+  }
+
+  public List<String> getInput() {
+    return input;
+  }
+
+  public void setInput(List<String> input) {
+    this.input = input;
+  }
+
+  /**
+   * Packs the inputs, in order, into as few requests as the limits on inputs and total tokens per
+   * request allow. An input over the token limit on its own still gets a request of its own, for
+   * the API to reject as it would a single embedding.
+   */
+  public static List<OpenAiBatchEmbeddingRequest> pack(
+      String model,
+      List<String> inputs,
+      ToIntFunction<String> tokenCount,
+      int maxInputs,
+      int maxTokens) {
+
+    List<OpenAiBatchEmbeddingRequest> requests = new ArrayList<>();
+    List<String> batch = new ArrayList<>();
+    long tokens = 0;
+
+    for (String input : inputs) {
+      int count = tokenCount.applyAsInt(input);
+      if (!batch.isEmpty() && (batch.size() >= maxInputs || tokens + count > maxTokens)) {
+        requests.add(new OpenAiBatchEmbeddingRequest(model, batch));
+        batch = new ArrayList<>();
+        tokens = 0;
+      }
+      batch.add(input);
+      tokens += count;
+    }
+
+    if (!batch.isEmpty()) requests.add(new OpenAiBatchEmbeddingRequest(model, batch));
+    return requests;
+  }
+
+  @Override
+  public String toString() {
+    return "OpenAiBatchEmbeddingRequest{" + "model='" + model + '\'' + ", input=" + input + '}';
+  }
+}
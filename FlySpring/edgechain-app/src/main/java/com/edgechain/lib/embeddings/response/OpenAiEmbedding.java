@@ -1,6 +1,8 @@
 package com.edgechain.lib.embeddings.response;
 
+import com.edgechain.lib.embeddings.FloatVector;
 import com.edgechain.lib.response.ArkObject;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
@@ -9,7 +11,7 @@ import java.util.List;
 public class OpenAiEmbedding implements ArkObject {
 
   private String object;
-  private List<Float> embedding;
+  private FloatVector embedding;
   private Integer index;
 
   public String getObject() {
@@ -24,8 +26,9 @@ public class OpenAiEmbedding implements ArkObject {
     return embedding;
   }
 
+  @JsonDeserialize(using = FloatVector.Deserializer.class)
   public void setEmbedding(List<Float> embedding) {
-    this.embedding = embedding;
+    this.embedding = FloatVector.of(embedding);
   }
 
   public Integer getIndex() {
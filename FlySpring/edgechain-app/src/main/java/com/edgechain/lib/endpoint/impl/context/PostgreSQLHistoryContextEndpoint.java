@@ -7,13 +7,11 @@ import com.edgechain.lib.retrofit.PostgreSQLContextService;
 import com.edgechain.lib.retrofit.client.RetrofitClientInstance;
 import com.edgechain.lib.rxjava.retry.RetryPolicy;
 import java.util.Objects;
-import retrofit2.Retrofit;
 
 public class PostgreSQLHistoryContextEndpoint extends Endpoint {
 
-  private final Retrofit retrofit = RetrofitClientInstance.getInstance();
   private final PostgreSQLContextService contextService =
-      retrofit.create(PostgreSQLContextService.class);
+      RetrofitClientInstance.create(PostgreSQLContextService.class);
 
   public PostgreSQLHistoryContextEndpoint() {}
 
@@ -6,14 +6,13 @@ import com.edgechain.lib.endpoint.Endpoint;
 import com.edgechain.lib.retrofit.RedisContextService;
 import com.edgechain.lib.retrofit.client.RetrofitClientInstance;
 import com.edgechain.lib.rxjava.retry.RetryPolicy;
-import retrofit2.Retrofit;
 
 import java.util.Objects;
 
 public class RedisHistoryContextEndpoint extends Endpoint {
 
-  private final Retrofit retrofit = RetrofitClientInstance.getInstance();
-  private final RedisContextService contextService = retrofit.create(RedisContextService.class);
+  private final RedisContextService contextService =
+      RetrofitClientInstance.create(RedisContextService.class);
 
   public RedisHistoryContextEndpoint() {}
 
@@ -13,6 +13,8 @@ import java.io.InputStream;
 import java.net.URL;
 import java.nio.channels.Channels;
 import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 import org.modelmapper.ModelMapper;
@@ -24,7 +26,7 @@ public class BgeSmallEndpoint extends EmbeddingEndpoint {
   private static final Logger logger = LoggerFactory.getLogger(BgeSmallEndpoint.class);
 
   private final BgeSmallService bgeSmallService =
-      RetrofitClientInstance.getInstance().create(BgeSmallService.class);
+      RetrofitClientInstance.create(BgeSmallService.class);
 
   private ModelMapper modelMapper = new ModelMapper();
 
@@ -84,6 +86,11 @@ public class BgeSmallEndpoint extends EmbeddingEndpoint {
     this.tokenizerUrl = tokenizerUrl;
   }
 
+  @Override
+  public String modelId() {
+    return "bge-small:" + modelUrl;
+  }
+
   @Override
   public Observable<WordEmbeddings> embeddings(String input, ArkRequest arkRequest) {
     BgeSmallEndpoint mapper = modelMapper.map(this, BgeSmallEndpoint.class);
@@ -96,6 +103,30 @@ public class BgeSmallEndpoint extends EmbeddingEndpoint {
         bgeSmallService.embeddings(mapper).map(m -> new WordEmbeddings(input, m.getEmbedding())));
   }
 
+  /** Embeds the inputs with one batched forward pass of the model. */
+  @Override
+  public Observable<List<WordEmbeddings>> embeddings(List<String> inputs, ArkRequest arkRequest) {
+
+    BgeSmallEndpoint mapper = modelMapper.map(this, BgeSmallEndpoint.class);
+    mapper.setRawTextList(inputs);
+
+    if (Objects.nonNull(arkRequest)) mapper.setCallIdentifier(arkRequest.getRequestURI());
+    else mapper.setCallIdentifier("URI wasn't provided");
+
+    return Observable.fromSingle(
+        bgeSmallService
+            .batchEmbeddings(mapper)
+            .map(
+                responses -> {
+                  List<WordEmbeddings> wordEmbeddings = new ArrayList<>(inputs.size());
+                  for (int i = 0; i < responses.size(); i++) {
+                    wordEmbeddings.add(
+                        new WordEmbeddings(inputs.get(i), responses.get(i).getEmbedding()));
+                  }
+                  return wordEmbeddings;
+                }));
+  }
+
   private void downloadFile(String urlStr, String path) {
 
     File modelFolderFile = new File(MODEL_FOLDER);
@@ -0,0 +1,111 @@
+package com.edgechain.lib.endpoint.impl.embeddings;
+
+import com.edgechain.lib.embeddings.WordEmbeddings;
+import com.edgechain.lib.embeddings.cache.EmbeddingCache;
+import com.edgechain.lib.embeddings.cache.EmbeddingCacheStats;
+import com.edgechain.lib.request.ArkRequest;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.reactivex.rxjava3.core.Observable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Wraps an embedding endpoint with an {@link EmbeddingCache}, so identical texts (queries, or
+ * chunks of a re-ingested document) are embedded once per model:
+ *
+ * <pre>
+ * new CachingEmbeddingEndpoint(
+ *     new OpenAiEmbeddingEndpoint(...),
+ *     new EmbeddingCache(50_000, new MappedFileEmbeddingStore(Path.of("embeddings.cache"))));
+ * </pre>
+ */
+public class CachingEmbeddingEndpoint extends EmbeddingEndpoint {
+
+  private EmbeddingEndpoint delegate;
+
+  // local to this process; copies made for requests do not carry it
+  @JsonIgnore private transient EmbeddingCache cache;
+
+  public CachingEmbeddingEndpoint() {}
+
+  public CachingEmbeddingEndpoint(EmbeddingEndpoint delegate) {
+    this(delegate, new EmbeddingCache());
+  }
+
+  public CachingEmbeddingEndpoint(EmbeddingEndpoint delegate, EmbeddingCache cache) {
+    super(delegate.getUrl(), delegate.getApiKey(), delegate.getRetryPolicy());
+    this.delegate = delegate;
+    this.cache = cache;
+  }
+
+  public EmbeddingEndpoint getDelegate() {
+    return delegate;
+  }
+
+  public void setDelegate(EmbeddingEndpoint delegate) {
+    this.delegate = delegate;
+  }
+
+  @JsonIgnore
+  public EmbeddingCacheStats getCacheStats() {
+    return Objects.isNull(cache) ? null : cache.getStats();
+  }
+
+  @Override
+  public Observable<WordEmbeddings> embeddings(String input, ArkRequest arkRequest) {
+    if (Objects.isNull(cache)) return delegate.embeddings(input, arkRequest);
+
+    return cache
+        .get(
+            EmbeddingCache.key(modelId(), input),
+            () ->
+                delegate
+                    .embeddings(input, arkRequest)
+                    .firstOrError()
+                    .map(WordEmbeddings::getValues))
+        .map(values -> new WordEmbeddings(input, values))
+        .toObservable();
+  }
+
+  /** Embeds only the inputs missing from the cache, with one batch call to the delegate. */
+  @Override
+  public Observable<List<WordEmbeddings>> embeddings(List<String> inputs, ArkRequest arkRequest) {
+    if (Objects.isNull(cache)) return delegate.embeddings(inputs, arkRequest);
+
+    Map<String, String> texts = new HashMap<>();
+    List<String> keys = new ArrayList<>(inputs.size());
+    for (String input : inputs) {
+      String key = EmbeddingCache.key(modelId(), input);
+      texts.putIfAbsent(key, input);
+      keys.add(key);
+    }
+
+    return cache
+        .getAll(
+            keys,
+            missing ->
+                delegate
+                    .embeddings(missing.stream().map(texts::get).toList(), arkRequest)
+                    .firstOrError()
+                    .map(
+                        wordEmbeddings ->
+                            wordEmbeddings.stream().map(WordEmbeddings::getValues).toList()))
+        .map(
+            values -> {
+              List<WordEmbeddings> wordEmbeddings = new ArrayList<>(values.size());
+              for (int i = 0; i < values.size(); i++) {
+                wordEmbeddings.add(new WordEmbeddings(inputs.get(i), values.get(i)));
+              }
+              return wordEmbeddings;
+            })
+        .toObservable();
+  }
+
+  @Override
+  public String modelId() {
+    return delegate.modelId();
+  }
+}
@@ -7,20 +7,24 @@ import com.edgechain.lib.rxjava.retry.RetryPolicy;
 import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.schedulers.Schedulers;
 
 import java.io.Serializable;
+import java.util.List;
 
 @JsonTypeInfo(use = JsonTypeInfo.Id.NAME, include = JsonTypeInfo.As.PROPERTY, property = "type")
 @JsonSubTypes({
   @JsonSubTypes.Type(value = OpenAiEmbeddingEndpoint.class, name = "type1"),
   @JsonSubTypes.Type(value = MiniLMEndpoint.class, name = "type2"),
   @JsonSubTypes.Type(value = BgeSmallEndpoint.class, name = "type3"),
+  @JsonSubTypes.Type(value = CachingEmbeddingEndpoint.class, name = "type4"),
 })
 public abstract class EmbeddingEndpoint extends Endpoint implements Serializable {
 
   private static final long serialVersionUID = 4201794264326630184L;
   private String callIdentifier;
   private String rawText;
+  private List<String> rawTextList;
 
   public EmbeddingEndpoint() {}
 
@@ -46,6 +50,27 @@ public abstract class EmbeddingEndpoint extends Endpoint implements Serializable
 
   public abstract Observable<WordEmbeddings> embeddings(String input, ArkRequest arkRequest);
 
+  /**
+   * Embeds several inputs; the result is in input order. Endpoints whose provider takes a batch
+   * override this to send them together; by default every input is embedded by its own call, run
+   * concurrently.
+   */
+  public Observable<List<WordEmbeddings>> embeddings(List<String> inputs, ArkRequest arkRequest) {
+    return Observable.fromIterable(inputs)
+        .concatMapEager(
+            input -> embeddings(input, arkRequest).take(1).subscribeOn(Schedulers.io()))
+        .toList()
+        .toObservable();
+  }
+
+  /**
+   * Identifies the model producing the vectors; embeddings are only interchangeable (cached,
+   * reused across ingestions) between endpoints with the same model id.
+   */
+  public String modelId() {
+    return getClass().getName();
+  }
+
   public void setRawText(String rawText) {
     this.rawText = rawText;
   }
@@ -58,6 +83,14 @@ public abstract class EmbeddingEndpoint extends Endpoint implements Serializable
     return rawText;
   }
 
+  public List<String> getRawTextList() {
+    return rawTextList;
+  }
+
+  public void setRawTextList(List<String> rawTextList) {
+    this.rawTextList = rawTextList;
+  }
+
   public String getCallIdentifier() {
     return callIdentifier;
   }
@@ -6,16 +6,16 @@ import com.edgechain.lib.request.ArkRequest;
 import com.edgechain.lib.retrofit.MiniLMService;
 import com.edgechain.lib.retrofit.client.RetrofitClientInstance;
 import com.edgechain.lib.rxjava.retry.RetryPolicy;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 import io.reactivex.rxjava3.core.Observable;
 import org.modelmapper.ModelMapper;
-import retrofit2.Retrofit;
 
 public class MiniLMEndpoint extends EmbeddingEndpoint {
 
-  private final Retrofit retrofit = RetrofitClientInstance.getInstance();
-  private final MiniLMService miniLMService = retrofit.create(MiniLMService.class);
+  private final MiniLMService miniLMService = RetrofitClientInstance.create(MiniLMService.class);
   private ModelMapper modelMapper = new ModelMapper();
 
   private MiniLMModel miniLMModel;
@@ -39,6 +39,11 @@ public class MiniLMEndpoint extends EmbeddingEndpoint {
     this.miniLMModel = miniLMModel;
   }
 
+  @Override
+  public String modelId() {
+    return "minilm:" + miniLMModel.getName();
+  }
+
   @Override
   public Observable<WordEmbeddings> embeddings(String input, ArkRequest arkRequest) {
 
@@ -51,4 +56,28 @@ public class MiniLMEndpoint extends EmbeddingEndpoint {
     return Observable.fromSingle(
         miniLMService.embeddings(mapper).map(m -> new WordEmbeddings(input, m.getEmbedding())));
   }
+
+  /** Embeds the inputs with one batched forward pass of the model. */
+  @Override
+  public Observable<List<WordEmbeddings>> embeddings(List<String> inputs, ArkRequest arkRequest) {
+
+    MiniLMEndpoint mapper = modelMapper.map(this, MiniLMEndpoint.class);
+    mapper.setRawTextList(inputs);
+
+    if (Objects.nonNull(arkRequest)) mapper.setCallIdentifier(arkRequest.getRequestURI());
+    else mapper.setCallIdentifier("URI wasn't provided");
+
+    return Observable.fromSingle(
+        miniLMService
+            .batchEmbeddings(mapper)
+            .map(
+                responses -> {
+                  List<WordEmbeddings> wordEmbeddings = new ArrayList<>(inputs.size());
+                  for (int i = 0; i < responses.size(); i++) {
+                    wordEmbeddings.add(
+                        new WordEmbeddings(inputs.get(i), responses.get(i).getEmbedding()));
+                  }
+                  return wordEmbeddings;
+                }));
+  }
 }
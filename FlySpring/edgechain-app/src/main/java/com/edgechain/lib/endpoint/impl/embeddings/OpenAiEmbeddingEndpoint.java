@@ -1,20 +1,21 @@
 package com.edgechain.lib.endpoint.impl.embeddings;
 
 import com.edgechain.lib.embeddings.WordEmbeddings;
+import com.edgechain.lib.embeddings.response.OpenAiEmbedding;
 import com.edgechain.lib.request.ArkRequest;
 import com.edgechain.lib.retrofit.OpenAiService;
 import com.edgechain.lib.retrofit.client.RetrofitClientInstance;
 import com.edgechain.lib.rxjava.retry.RetryPolicy;
 import io.reactivex.rxjava3.core.Observable;
 import org.modelmapper.ModelMapper;
-import retrofit2.Retrofit;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 public class OpenAiEmbeddingEndpoint extends EmbeddingEndpoint {
 
-  private final Retrofit retrofit = RetrofitClientInstance.getInstance();
-  private final OpenAiService openAiService = retrofit.create(OpenAiService.class);
+  private final OpenAiService openAiService = RetrofitClientInstance.create(OpenAiService.class);
 
   private ModelMapper modelMapper = new ModelMapper();
 
@@ -52,6 +53,11 @@ public class OpenAiEmbeddingEndpoint extends EmbeddingEndpoint {
     this.model = model;
   }
 
+  @Override
+  public String modelId() {
+    return "openai:" + model;
+  }
+
   @Override
   public Observable<WordEmbeddings> embeddings(String input, ArkRequest arkRequest) {
 
@@ -68,4 +74,29 @@ public class OpenAiEmbeddingEndpoint extends EmbeddingEndpoint {
                 embeddingResponse ->
                     new WordEmbeddings(input, embeddingResponse.getData().get(0).getEmbedding())));
   }
+
+  /** Embeds the inputs with array-input requests, packed by token count on the server side. */
+  @Override
+  public Observable<List<WordEmbeddings>> embeddings(List<String> inputs, ArkRequest arkRequest) {
+
+    OpenAiEmbeddingEndpoint mapper = modelMapper.map(this, OpenAiEmbeddingEndpoint.class);
+    mapper.setRawTextList(inputs);
+
+    if (Objects.nonNull(arkRequest)) mapper.setCallIdentifier(arkRequest.getRequestURI());
+    else mapper.setCallIdentifier("URI wasn't provided");
+
+    return Observable.fromSingle(
+        openAiService
+            .batchEmbeddings(mapper)
+            .map(
+                embeddingResponse -> {
+                  List<WordEmbeddings> wordEmbeddings = new ArrayList<>(inputs.size());
+                  for (OpenAiEmbedding embedding : embeddingResponse.getData()) {
+                    wordEmbeddings.add(
+                        new WordEmbeddings(
+                            inputs.get(embedding.getIndex()), embedding.getEmbedding()));
+                  }
+                  return wordEmbeddings;
+                }));
+  }
 }
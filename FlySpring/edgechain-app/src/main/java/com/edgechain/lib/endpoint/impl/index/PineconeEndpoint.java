@@ -11,7 +11,6 @@ import com.edgechain.lib.rxjava.retry.RetryPolicy;
 import com.edgechain.lib.rxjava.transformer.observable.EdgeChain;
 import io.reactivex.rxjava3.core.Observable;
 import org.modelmapper.ModelMapper;
-import retrofit2.Retrofit;
 
 import java.util.List;
 
@@ -21,8 +20,8 @@ public class PineconeEndpoint extends Endpoint {
   private static final String UPSERT_API = "/vectors/upsert";
   private static final String DELETE_API = "/vectors/delete";
 
-  private final Retrofit retrofit = RetrofitClientInstance.getInstance();
-  private final PineconeService pineconeService = retrofit.create(PineconeService.class);
+  private final PineconeService pineconeService =
+      RetrofitClientInstance.create(PineconeService.class);
   private ModelMapper modelMapper = new ModelMapper();
 
   private String originalUrl;
@@ -35,6 +34,8 @@ public class PineconeEndpoint extends Endpoint {
 
   private int topK;
 
+  private List<String> ids;
+
   private EmbeddingEndpoint embeddingEndpoint;
 
   public PineconeEndpoint() {}
@@ -122,6 +123,14 @@ public class PineconeEndpoint extends Endpoint {
     this.topK = topK;
   }
 
+  public List<String> getIds() {
+    return ids;
+  }
+
+  private void setIds(List<String> ids) {
+    this.ids = ids;
+  }
+
   public StringResponse upsert(WordEmbeddings wordEmbedding, String namespace) {
     PineconeEndpoint mapper = modelMapper.map(this, PineconeEndpoint.class);
     mapper.setWordEmbedding(wordEmbedding);
@@ -153,6 +162,15 @@ public class PineconeEndpoint extends Endpoint {
     return Observable.fromSingle(this.pineconeService.query(mapper));
   }
 
+  /** Deletes the vectors with the given ids from the namespace. */
+  public StringResponse deleteByIds(List<String> ids, String namespace) {
+    PineconeEndpoint mapper = modelMapper.map(this, PineconeEndpoint.class);
+    mapper.setIds(ids);
+    mapper.setUrl(mapper.getOriginalUrl().concat(DELETE_API));
+    mapper.setNamespace(namespace);
+    return this.pineconeService.deleteByIds(mapper).blockingGet();
+  }
+
   public StringResponse deleteAll(String namespace) {
     PineconeEndpoint mapper = modelMapper.map(this, PineconeEndpoint.class);
     mapper.setUrl(mapper.getOriginalUrl().concat(DELETE_API));
@@ -7,6 +7,7 @@ import com.edgechain.lib.index.domain.PostgresWordEmbeddings;
 import com.edgechain.lib.index.domain.RRFWeight;
 import com.edgechain.lib.index.enums.OrderRRFBy;
 import com.edgechain.lib.index.enums.PostgresDistanceMetric;
+import com.edgechain.lib.index.enums.PostgresIndexType;
 import com.edgechain.lib.index.enums.PostgresLanguage;
 import com.edgechain.lib.request.ArkRequest;
 import com.edgechain.lib.response.StringResponse;
@@ -14,17 +15,17 @@ import com.edgechain.lib.retrofit.PostgresService;
 import com.edgechain.lib.retrofit.client.RetrofitClientInstance;
 import com.edgechain.lib.rxjava.retry.RetryPolicy;
 import com.edgechain.lib.rxjava.transformer.observable.EdgeChain;
+import io.reactivex.rxjava3.core.Flowable;
 import io.reactivex.rxjava3.core.Observable;
 import io.reactivex.rxjava3.schedulers.Schedulers;
 import org.modelmapper.ModelMapper;
-import retrofit2.Retrofit;
 
 import java.util.List;
 
 public class PostgresEndpoint extends Endpoint {
 
-  private final Retrofit retrofit = RetrofitClientInstance.getInstance();
-  private final PostgresService postgresService = retrofit.create(PostgresService.class);
+  private final PostgresService postgresService =
+      RetrofitClientInstance.create(PostgresService.class);
   private ModelMapper modelMapper = new ModelMapper();
   private String tableName;
   private int lists;
@@ -47,6 +48,26 @@ public class PostgresEndpoint extends Endpoint {
   private int probes;
   private String embeddingChunk;
 
+  // HNSW index; ivfflat (lists/probes) is used when indexType is not set
+  private PostgresIndexType indexType;
+  private int m;
+  private int efConstruction;
+  private int efSearch;
+
+  // Rows per multi-row upsert statement; 0 uses the repository default
+  private int upsertChunkSize;
+
+  // LIST-partitions the embeddings table by namespace (set before createTable)
+  private boolean partitioned;
+
+  // Keys the embeddings table by a SHA-256 digest of raw_text instead of the text itself (set
+  // before createTable, or after migrateToDigestKey on an existing table)
+  private boolean digestKey;
+
+  // Returns the embedding vectors with the results; null keeps each query's default (query
+  // returns them, queryRRF and queryWithMetadata do not)
+  private Boolean includeValues;
+
   // Fields for metadata table
   private List<String> metadataTableNames;
   private String metadata;
@@ -63,11 +84,19 @@ public class PostgresEndpoint extends Endpoint {
   private OrderRRFBy orderRRFBy;
   private String searchQuery;
 
+  // Hybrid RRF: vector and full-text legs run separately and are fused in the client;
+  // textTopK limits the full-text leg (topK when unset)
+  private boolean hybridSearch;
+  private int textTopK;
+
   private PostgresLanguage postgresLanguage;
 
   // Join Table
   private List<String> idList;
 
+  // Chunks (raw text) to delete from a file
+  private List<String> chunkList;
+
   private EmbeddingEndpoint embeddingEndpoint;
 
   public PostgresEndpoint() {}
@@ -153,6 +182,86 @@ public class PostgresEndpoint extends Endpoint {
     this.upperLimit = upperLimit;
   }
 
+  public PostgresIndexType getIndexType() {
+    return indexType;
+  }
+
+  public void setIndexType(PostgresIndexType indexType) {
+    this.indexType = indexType;
+  }
+
+  public int getM() {
+    return m;
+  }
+
+  public void setM(int m) {
+    this.m = m;
+  }
+
+  public int getEfConstruction() {
+    return efConstruction;
+  }
+
+  public void setEfConstruction(int efConstruction) {
+    this.efConstruction = efConstruction;
+  }
+
+  public int getEfSearch() {
+    return efSearch;
+  }
+
+  public void setEfSearch(int efSearch) {
+    this.efSearch = efSearch;
+  }
+
+  public int getUpsertChunkSize() {
+    return upsertChunkSize;
+  }
+
+  public void setUpsertChunkSize(int upsertChunkSize) {
+    this.upsertChunkSize = upsertChunkSize;
+  }
+
+  public boolean isHybridSearch() {
+    return hybridSearch;
+  }
+
+  public void setHybridSearch(boolean hybridSearch) {
+    this.hybridSearch = hybridSearch;
+  }
+
+  public int getTextTopK() {
+    return textTopK;
+  }
+
+  public void setTextTopK(int textTopK) {
+    this.textTopK = textTopK;
+  }
+
+  public boolean isPartitioned() {
+    return partitioned;
+  }
+
+  public void setPartitioned(boolean partitioned) {
+    this.partitioned = partitioned;
+  }
+
+  public boolean isDigestKey() {
+    return digestKey;
+  }
+
+  public void setDigestKey(boolean digestKey) {
+    this.digestKey = digestKey;
+  }
+
+  public Boolean getIncludeValues() {
+    return includeValues;
+  }
+
+  public void setIncludeValues(Boolean includeValues) {
+    this.includeValues = includeValues;
+  }
+
   private void setLists(int lists) {
     this.lists = lists;
   }
@@ -315,6 +424,14 @@ public class PostgresEndpoint extends Endpoint {
     return idList;
   }
 
+  public List<String> getChunkList() {
+    return chunkList;
+  }
+
+  private void setChunkList(List<String> chunkList) {
+    this.chunkList = chunkList;
+  }
+
   public StringResponse upsert(
       WordEmbeddings wordEmbeddings,
       String filename,
@@ -339,6 +456,19 @@ public class PostgresEndpoint extends Endpoint {
     return this.postgresService.createTable(mapper).blockingGet();
   }
 
+  public StringResponse createTable(
+      int dimensions, PostgresDistanceMetric metric, int m, int efConstruction) {
+
+    PostgresEndpoint mapper = modelMapper.map(this, PostgresEndpoint.class);
+    mapper.setDimensions(dimensions);
+    mapper.setMetric(metric);
+    mapper.setIndexType(PostgresIndexType.HNSW);
+    mapper.setM(m);
+    mapper.setEfConstruction(efConstruction);
+
+    return this.postgresService.createTable(mapper).blockingGet();
+  }
+
   public StringResponse createMetadataTable(String metadataTableName) {
     PostgresEndpoint mapper = modelMapper.map(this, PostgresEndpoint.class);
     mapper.setMetadataTableNames(List.of(metadataTableName));
@@ -555,6 +685,35 @@ public class PostgresEndpoint extends Endpoint {
     return Observable.fromSingle(this.postgresService.getAllChunks(this));
   }
 
+  /**
+   * Streams the chunks of a file one by one instead of collecting them in a list; rows are read
+   * from the database as the subscriber requests them.
+   */
+  public Flowable<PostgresWordEmbeddings> streamAllChunks(String tableName, String filename) {
+    PostgresEndpoint mapper = modelMapper.map(this, PostgresEndpoint.class);
+    mapper.setTableName(tableName);
+    mapper.setFilename(filename);
+
+    return this.postgresService.streamAllChunks(mapper);
+  }
+
+  /** Deletes the given chunks of the file, e.g. the ones which disappeared from it. */
+  public StringResponse deleteChunks(String filename, List<String> chunks) {
+    PostgresEndpoint mapper = modelMapper.map(this, PostgresEndpoint.class);
+    mapper.setFilename(filename);
+    mapper.setChunkList(chunks);
+    return this.postgresService.deleteChunks(mapper).blockingGet();
+  }
+
+  /**
+   * Moves an existing table from the raw_text unique key to the digest key; afterwards upsert with
+   * digestKey set.
+   */
+  public StringResponse migrateToDigestKey() {
+    PostgresEndpoint mapper = modelMapper.map(this, PostgresEndpoint.class);
+    return this.postgresService.migrateToDigestKey(mapper).blockingGet();
+  }
+
   public StringResponse deleteAll(String tableName, String namespace) {
     PostgresEndpoint mapper = modelMapper.map(this, PostgresEndpoint.class);
     mapper.setTableName(tableName);
@@ -12,13 +12,11 @@ import com.edgechain.lib.rxjava.retry.RetryPolicy;
 import com.edgechain.lib.rxjava.transformer.observable.EdgeChain;
 import io.reactivex.rxjava3.core.Observable;
 import org.modelmapper.ModelMapper;
-import retrofit2.Retrofit;
 import java.util.List;
 
 public class RedisEndpoint extends Endpoint {
 
-  private final Retrofit retrofit = RetrofitClientInstance.getInstance();
-  private final RedisService redisService = retrofit.create(RedisService.class);
+  private final RedisService redisService = RetrofitClientInstance.create(RedisService.class);
 
   private ModelMapper modelMapper = new ModelMapper();
 
@@ -37,6 +35,8 @@ public class RedisEndpoint extends Endpoint {
 
   private String pattern;
 
+  private List<String> ids;
+
   private EmbeddingEndpoint embeddingEndpoint;
 
   public RedisEndpoint() {}
@@ -147,6 +147,14 @@ public class RedisEndpoint extends Endpoint {
     return pattern;
   }
 
+  public List<String> getIds() {
+    return ids;
+  }
+
+  public void setIds(List<String> ids) {
+    this.ids = ids;
+  }
+
   // Convenience Methods
   public StringResponse createIndex(String namespace, int dimension, RedisDistanceMetric metric) {
     RedisEndpoint mapper = modelMapper.map(this, RedisEndpoint.class);
@@ -182,6 +190,13 @@ public class RedisEndpoint extends Endpoint {
     return Observable.fromSingle(this.redisService.query(mapper));
   }
 
+  /** Deletes the embeddings stored under the given ids in the endpoint's namespace. */
+  public StringResponse deleteByIds(List<String> ids) {
+    RedisEndpoint mapper = modelMapper.map(this, RedisEndpoint.class);
+    mapper.setIds(ids);
+    return this.redisService.deleteByIds(mapper).blockingGet();
+  }
+
   public void delete(String patternName) {
     RedisEndpoint mapper = modelMapper.map(this, RedisEndpoint.class);
     mapper.setPattern(patternName);
@@ -7,15 +7,14 @@ import com.edgechain.lib.retrofit.client.RetrofitClientInstance;
 import dev.fuxing.airtable.AirtableRecord;
 import io.reactivex.rxjava3.core.Observable;
 import org.modelmapper.ModelMapper;
-import retrofit2.Retrofit;
 
 import java.util.List;
 import java.util.Map;
 
 public class AirtableEndpoint extends Endpoint {
 
-  private final Retrofit retrofit = RetrofitClientInstance.getInstance();
-  private final AirtableService airtableService = retrofit.create(AirtableService.class);
+  private final AirtableService airtableService =
+      RetrofitClientInstance.create(AirtableService.class);
 
   private ModelMapper modelMapper = new ModelMapper();
 
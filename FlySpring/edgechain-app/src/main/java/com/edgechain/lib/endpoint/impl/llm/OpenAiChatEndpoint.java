@@ -13,7 +13,6 @@ import com.edgechain.lib.retrofit.client.RetrofitClientInstance;
 import com.edgechain.lib.rxjava.retry.RetryPolicy;
 import io.reactivex.rxjava3.core.Observable;
 import org.modelmapper.ModelMapper;
-import retrofit2.Retrofit;
 
 import java.util.List;
 import java.util.Map;
@@ -24,8 +23,7 @@ public class OpenAiChatEndpoint extends Endpoint {
   private final OpenAiStreamService openAiStreamService =
       ApplicationContextHolder.getContext().getBean(OpenAiStreamService.class);
 
-  private final Retrofit retrofit = RetrofitClientInstance.getInstance();
-  private final OpenAiService openAiService = retrofit.create(OpenAiService.class);
+  private final OpenAiService openAiService = RetrofitClientInstance.create(OpenAiService.class);
 
   private ModelMapper modelMapper = new ModelMapper();
 
@@ -6,14 +6,13 @@ import com.edgechain.lib.retrofit.client.RetrofitClientInstance;
 import com.edgechain.lib.supabase.request.Credential;
 import com.edgechain.lib.supabase.response.AuthenticatedResponse;
 import com.edgechain.lib.supabase.response.SupabaseUser;
-import retrofit2.Retrofit;
 
 import java.util.HashMap;
 
 public class SupabaseEndpoint extends Endpoint {
 
-  private final Retrofit retrofit = RetrofitClientInstance.getInstance();
-  private final SupabaseService supabaseService = retrofit.create(SupabaseService.class);
+  private final SupabaseService supabaseService =
+      RetrofitClientInstance.create(SupabaseService.class);
 
   public SupabaseEndpoint() {}
 
@@ -7,12 +7,10 @@ import com.edgechain.lib.rxjava.retry.RetryPolicy;
 import com.edgechain.lib.wiki.response.WikiResponse;
 import io.reactivex.rxjava3.core.Observable;
 import org.modelmapper.ModelMapper;
-import retrofit2.Retrofit;
 
 public class WikiEndpoint extends Endpoint {
 
-  private final Retrofit retrofit = RetrofitClientInstance.getInstance();
-  private final WikiService wikiService = retrofit.create(WikiService.class);
+  private final WikiService wikiService = RetrofitClientInstance.create(WikiService.class);
 
   private ModelMapper modelMapper = new ModelMapper();
 
@@ -115,6 +115,39 @@ public class PineconeClient {
         endpoint);
   }
 
+  public EdgeChain<StringResponse> deleteByIds(PineconeEndpoint endpoint) {
+
+    return new EdgeChain<>(
+        Observable.create(
+            emitter -> {
+              try {
+
+                HttpHeaders headers = new HttpHeaders();
+                headers.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
+                headers.setContentType(MediaType.APPLICATION_JSON);
+                headers.set("Api-Key", endpoint.getApiKey());
+
+                Map<String, Object> body = new HashMap<>();
+                body.put("ids", endpoint.getIds());
+                body.put("namespace", getNamespace(endpoint));
+
+                HttpEntity<Map<String, Object>> entity = new HttpEntity<>(body, headers);
+
+                new RestTemplate()
+                    .exchange(endpoint.getUrl(), HttpMethod.POST, entity, String.class);
+
+                emitter.onNext(
+                    new StringResponse(
+                        "Deleted ~ " + endpoint.getIds().size() + " word embeddings"));
+                emitter.onComplete();
+
+              } catch (final Exception e) {
+                emitter.onError(e);
+              }
+            }),
+        endpoint);
+  }
+
   public EdgeChain<StringResponse> deleteAll(PineconeEndpoint endpoint) {
 
     return new EdgeChain<>(
@@ -1,15 +1,20 @@
 package com.edgechain.lib.index.client.impl;
 
+import com.edgechain.lib.configuration.PostgreSQLSchemaRegistry;
 import com.edgechain.lib.embeddings.WordEmbeddings;
 import com.edgechain.lib.endpoint.impl.index.PostgresEndpoint;
+import com.edgechain.lib.index.domain.PostgresVector;
 import com.edgechain.lib.index.domain.PostgresWordEmbeddings;
 import com.edgechain.lib.index.repositories.PostgresClientMetadataRepository;
 import com.edgechain.lib.index.repositories.PostgresClientRepository;
 import com.edgechain.lib.response.StringResponse;
 import com.edgechain.lib.rxjava.transformer.observable.EdgeChain;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.edgechain.lib.utils.FloatUtils;
+import com.edgechain.lib.utils.RRFFusion;
+import io.reactivex.rxjava3.core.Flowable;
 import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.schedulers.Schedulers;
 
 import java.math.BigDecimal;
 import java.sql.Date;
@@ -17,12 +22,12 @@ import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 
-import org.postgresql.util.PGobject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -33,7 +38,7 @@ public class PostgresClient {
 
   private static final Logger logger = LoggerFactory.getLogger(PostgresClient.class);
 
-  private static final TypeReference<List<Float>> FLOAT_TYPE_REF = new TypeReference<>() {};
+  private static final int CHUNK_FETCH_SIZE = 100;
 
   @Autowired
   private PostgresClientRepository repository;
@@ -41,14 +46,25 @@ public class PostgresClient {
   @Autowired
   private PostgresClientMetadataRepository metadataRepository;
 
-  private final ObjectMapper objectMapper = new ObjectMapper();
+  @Autowired
+  private PostgreSQLSchemaRegistry schemaRegistry;
 
   public EdgeChain<StringResponse> createTable(PostgresEndpoint postgresEndpoint) {
     return new EdgeChain<>(
         Observable.create(
             emitter -> {
               try {
-                this.repository.createTable(postgresEndpoint);
+                this.schemaRegistry.ensure(
+                    String.join(
+                        ":",
+                        "embeddings",
+                        postgresEndpoint.getTableName(),
+                        String.valueOf(postgresEndpoint.getIndexType()),
+                        String.valueOf(postgresEndpoint.getMetric()),
+                        String.valueOf(postgresEndpoint.getDimensions()),
+                        postgresEndpoint.isPartitioned() ? "partitioned" : "plain",
+                        postgresEndpoint.isDigestKey() ? "digest" : "id"),
+                    () -> this.repository.createTable(postgresEndpoint));
                 emitter.onNext(new StringResponse("Table: " + postgresEndpoint.getTableName()));
                 emitter.onComplete();
               } catch (final Exception e) {
@@ -62,7 +78,13 @@ public class PostgresClient {
         Observable.create(
             emitter -> {
               try {
-                this.metadataRepository.createTable(postgresEndpoint);
+                this.schemaRegistry.ensure(
+                    String.join(
+                        ":",
+                        "metadata",
+                        postgresEndpoint.getTableName(),
+                        postgresEndpoint.getMetadataTableNames().get(0)),
+                    () -> this.metadataRepository.createTable(postgresEndpoint));
                 emitter.onNext(
                     new StringResponse(
                         "Table: " + postgresEndpoint.getMetadataTableNames().get(0)));
@@ -80,6 +102,8 @@ public class PostgresClient {
             emitter -> {
               try {
 
+                ensurePartition(postgresEndpoint);
+
                 // Upsert Embeddings
                 List<String> strings =
                     this.repository.batchUpsertEmbeddings(
@@ -87,7 +111,10 @@ public class PostgresClient {
                         postgresEndpoint.getWordEmbeddingsList(),
                         postgresEndpoint.getFilename(),
                         getNamespace(postgresEndpoint),
-                        postgresEndpoint.getPostgresLanguage());
+                        postgresEndpoint.getPostgresLanguage(),
+                        postgresEndpoint.getUpsertChunkSize(),
+                        postgresEndpoint.isPartitioned(),
+                        postgresEndpoint.isDigestKey());
 
                 List<StringResponse> stringResponseList =
                     strings.stream().map(StringResponse::new).toList();
@@ -109,6 +136,8 @@ public class PostgresClient {
             emitter -> {
               try {
 
+                ensurePartition(postgresEndpoint);
+
                 // Upsert Embeddings
                 String embeddingId =
                     this.repository.upsertEmbeddings(
@@ -116,7 +145,9 @@ public class PostgresClient {
                         postgresEndpoint.getWordEmbedding(),
                         postgresEndpoint.getFilename(),
                         getNamespace(postgresEndpoint),
-                        postgresEndpoint.getPostgresLanguage());
+                        postgresEndpoint.getPostgresLanguage(),
+                        postgresEndpoint.isPartitioned(),
+                        postgresEndpoint.isDigestKey());
 
                 emitter.onNext(new StringResponse(embeddingId));
                 emitter.onComplete();
@@ -238,10 +269,12 @@ public class PostgresClient {
                         postgresEndpoint.getTableName(),
                         getNamespace(postgresEndpoint),
                         postgresEndpoint.getProbes(),
+                        postgresEndpoint.getEfSearch(),
                         postgresEndpoint.getMetric(),
                         embeddings,
                         postgresEndpoint.getTopK(),
-                        postgresEndpoint.getUpperLimit());
+                        postgresEndpoint.getUpperLimit(),
+                        !Boolean.FALSE.equals(postgresEndpoint.getIncludeValues()));
 
                 for (Map<String, Object> row : rows) {
 
@@ -261,10 +294,8 @@ public class PostgresClient {
                   val.setScore(
                       Objects.nonNull(row.get("score")) ? (Double) row.get("score") : null);
 
-                  PGobject pgObject = (PGobject) row.get("embedding");
-                  String jsonString = pgObject.getValue();
-                  List<Float> values = objectMapper.readerFor(FLOAT_TYPE_REF).readValue(jsonString);
-                  val.setValues(values);
+                  val.setValues(
+                      FloatUtils.toFloatList(PostgresVector.decode(row.get("embedding"))));
 
                   wordEmbeddingsList.add(val);
                 }
@@ -290,6 +321,12 @@ public class PostgresClient {
                         .map(WordEmbeddings::getValues)
                         .toList();
 
+                if (postgresEndpoint.isHybridSearch()) {
+                  emitter.onNext(hybridQueryRRF(postgresEndpoint, embeddings));
+                  emitter.onComplete();
+                  return;
+                }
+
                 List<Map<String, Object>> rows =
                     this.repository.queryRRF(
                         postgresEndpoint.getTableName(),
@@ -302,10 +339,12 @@ public class PostgresClient {
                         postgresEndpoint.getSearchQuery(),
                         postgresEndpoint.getPostgresLanguage(),
                         postgresEndpoint.getProbes(),
+                        postgresEndpoint.getEfSearch(),
                         postgresEndpoint.getMetric(),
                         postgresEndpoint.getTopK(),
                         postgresEndpoint.getUpperLimit(),
-                        postgresEndpoint.getOrderRRFBy());
+                        postgresEndpoint.getOrderRRFBy(),
+                        Boolean.TRUE.equals(postgresEndpoint.getIncludeValues()));
 
                 for (Map<String, Object> row : rows) {
 
@@ -329,6 +368,9 @@ public class PostgresClient {
                           : null;
                   val.setScore(bigDecimal.doubleValue());
 
+                  val.setValues(
+                      FloatUtils.toFloatList(PostgresVector.decode(row.get("embedding"))));
+
                   if (postgresEndpoint.getMetadataTableNames().get(0).contains("title")) {
                     val.setTitleMetadata(
                         Objects.nonNull(row.get("metadata")) ? (String) row.get("metadata") : null);
@@ -354,6 +396,128 @@ public class PostgresClient {
         postgresEndpoint);
   }
 
+  /**
+   * Hybrid variant of queryRRF: the ANN and full-text legs run concurrently, each against its own
+   * index and limit, and are fused in Java; metadata is then fetched only for the fused winners.
+   */
+  private List<PostgresWordEmbeddings> hybridQueryRRF(
+      PostgresEndpoint postgresEndpoint, List<List<Float>> embeddings) {
+
+    String tableName = postgresEndpoint.getTableName();
+    String namespace = getNamespace(postgresEndpoint);
+    String metadataTableName = postgresEndpoint.getMetadataTableNames().get(0);
+
+    int textTopK =
+        postgresEndpoint.getTextTopK() > 0
+            ? postgresEndpoint.getTextTopK()
+            : postgresEndpoint.getTopK();
+
+    Single<List<Map<String, Object>>> vectorLeg =
+        Single.fromCallable(
+                () ->
+                    this.repository.queryVectorCandidates(
+                        tableName,
+                        namespace,
+                        metadataTableName,
+                        postgresEndpoint.getProbes(),
+                        postgresEndpoint.getEfSearch(),
+                        postgresEndpoint.getMetric(),
+                        embeddings,
+                        postgresEndpoint.getTopK()))
+            .subscribeOn(Schedulers.io());
+
+    Single<List<Map<String, Object>>> textLeg =
+        Single.fromCallable(
+                () ->
+                    this.repository.queryTextCandidates(
+                        tableName,
+                        namespace,
+                        metadataTableName,
+                        postgresEndpoint.getSearchQuery(),
+                        postgresEndpoint.getPostgresLanguage(),
+                        textTopK))
+            .subscribeOn(Schedulers.io());
+
+    Map<String, RRFFusion.Candidate> candidates =
+        Single.zip(
+                vectorLeg,
+                textLeg,
+                (vectorRows, textRows) -> {
+                  Map<String, RRFFusion.Candidate> map = new LinkedHashMap<>();
+                  for (Map<String, Object> row : vectorRows) {
+                    RRFFusion.Candidate candidate = candidate(map, row);
+                    candidate.setSimilarity(((Number) row.get("similarity")).doubleValue());
+                  }
+                  for (Map<String, Object> row : textRows) {
+                    RRFFusion.Candidate candidate = candidate(map, row);
+                    candidate.setTextRank(((Number) row.get("text_rank")).doubleValue());
+                  }
+                  return map;
+                })
+            .blockingGet();
+
+    List<RRFFusion.Candidate> winners =
+        RRFFusion.fuse(
+            candidates.values(),
+            postgresEndpoint.getTextWeight(),
+            postgresEndpoint.getSimilarityWeight(),
+            postgresEndpoint.getDateWeight(),
+            postgresEndpoint.getOrderRRFBy(),
+            postgresEndpoint.getMetric(),
+            embeddings.size() > 1 ? postgresEndpoint.getUpperLimit() : postgresEndpoint.getTopK());
+
+    if (winners.isEmpty()) return new ArrayList<>();
+
+    Map<String, Map<String, Object>> rowsById = new HashMap<>();
+    for (Map<String, Object> row :
+        this.repository.queryByIds(
+            tableName,
+            metadataTableName,
+            winners.stream().map(RRFFusion.Candidate::getId).toList(),
+            Boolean.TRUE.equals(postgresEndpoint.getIncludeValues()))) {
+      rowsById.put(row.get("id").toString(), row);
+    }
+
+    List<PostgresWordEmbeddings> wordEmbeddingsList = new ArrayList<>(winners.size());
+    for (RRFFusion.Candidate winner : winners) {
+      Map<String, Object> row = rowsById.get(winner.getId());
+      if (Objects.isNull(row)) continue;
+
+      PostgresWordEmbeddings val = new PostgresWordEmbeddings();
+      val.setId(winner.getId());
+      val.setRawText((String) row.get("raw_text"));
+      val.setFilename((String) row.get("filename"));
+      val.setTimestamp(
+          Objects.nonNull(row.get("timestamp"))
+              ? ((Timestamp) row.get("timestamp")).toLocalDateTime()
+              : null);
+      val.setNamespace((String) row.get("namespace"));
+      val.setScore(winner.getRrfScore());
+      val.setValues(FloatUtils.toFloatList(PostgresVector.decode(row.get("embedding"))));
+
+      if (metadataTableName.contains("title")) {
+        val.setTitleMetadata((String) row.get("metadata"));
+      } else {
+        val.setMetadata((String) row.get("metadata"));
+      }
+      val.setDocumentDate(
+          Objects.nonNull(row.get("document_date")) ? row.get("document_date").toString() : null);
+
+      wordEmbeddingsList.add(val);
+    }
+    return wordEmbeddingsList;
+  }
+
+  private RRFFusion.Candidate candidate(
+      Map<String, RRFFusion.Candidate> candidates, Map<String, Object> row) {
+    RRFFusion.Candidate candidate =
+        candidates.computeIfAbsent(row.get("id").toString(), RRFFusion.Candidate::new);
+    if (Objects.nonNull(row.get("document_date"))) {
+      candidate.setDocumentDate(((Date) row.get("document_date")).toLocalDate());
+    }
+    return candidate;
+  }
+
   public EdgeChain<List<PostgresWordEmbeddings>> queryWithMetadata(
       PostgresEndpoint postgresEndpoint) {
 
@@ -383,9 +547,11 @@ public class PostgresClient {
                               metadataTableName,
                               getNamespace(postgresEndpoint),
                               postgresEndpoint.getProbes(),
+                              postgresEndpoint.getEfSearch(),
                               postgresEndpoint.getMetric(),
                               postgresEndpoint.getWordEmbedding().getValues(),
-                              postgresEndpoint.getTopK());
+                              postgresEndpoint.getTopK(),
+                              Boolean.TRUE.equals(postgresEndpoint.getIncludeValues()));
 
                       // To filter out duplicate context chunks
                       Set<String> contextChunkIds = new HashSet<>();
@@ -416,6 +582,8 @@ public class PostgresClient {
                                 : null);
                         val.setScore(
                             Objects.nonNull(row.get("score")) ? (Double) row.get("score") : null);
+                        val.setValues(
+                            FloatUtils.toFloatList(PostgresVector.decode(row.get("embedding"))));
 
                         // Add metadata fields in response
                         if (metadataTableName.contains("title_metadata")) {
@@ -471,10 +639,8 @@ public class PostgresClient {
                   val.setId(row.get("id").toString());
                   val.setRawText((String) row.get("raw_text"));
                   val.setFilename((String) row.get("filename"));
-                  PGobject pgObject = (PGobject) row.get("embedding");
-                  String jsonString = pgObject.getValue();
-                  List<Float> values = objectMapper.readerFor(FLOAT_TYPE_REF).readValue(jsonString);
-                  val.setValues(values);
+                  val.setValues(
+                      FloatUtils.toFloatList(PostgresVector.decode(row.get("embedding"))));
                   wordEmbeddingsList.add(val);
                 }
                 emitter.onNext(wordEmbeddingsList);
@@ -486,6 +652,22 @@ public class PostgresClient {
         postgresEndpoint);
   }
 
+  /** Streaming variant of getAllChunks: one chunk per element, read through a DB cursor. */
+  public Flowable<PostgresWordEmbeddings> streamAllChunks(PostgresEndpoint postgresEndpoint) {
+    return this.repository
+        .streamAllChunks(postgresEndpoint, CHUNK_FETCH_SIZE)
+        .map(
+            row -> {
+              PostgresWordEmbeddings val = new PostgresWordEmbeddings();
+              val.setId(row.get("id").toString());
+              val.setRawText((String) row.get("raw_text"));
+              val.setFilename((String) row.get("filename"));
+              val.setValues(FloatUtils.toFloatList(PostgresVector.decode(row.get("embedding"))));
+              return val;
+            })
+        .subscribeOn(Schedulers.io());
+  }
+
   public EdgeChain<List<PostgresWordEmbeddings>> getSimilarMetadataChunk(
       PostgresEndpoint postgresEndpoint) {
 
@@ -537,6 +719,61 @@ public class PostgresClient {
         postgresEndpoint);
   }
 
+  public EdgeChain<StringResponse> deleteChunks(PostgresEndpoint postgresEndpoint) {
+
+    return new EdgeChain<>(
+        Observable.create(
+            emitter -> {
+              try {
+                int deleted =
+                    this.repository.deleteChunks(
+                        postgresEndpoint.getTableName(),
+                        getNamespace(postgresEndpoint),
+                        postgresEndpoint.getFilename(),
+                        postgresEndpoint.getChunkList(),
+                        postgresEndpoint.isDigestKey());
+                emitter.onNext(new StringResponse("Deleted ~ " + deleted));
+                emitter.onComplete();
+              } catch (final Exception e) {
+                emitter.onError(e);
+              }
+            }),
+        postgresEndpoint);
+  }
+
+  public EdgeChain<StringResponse> migrateToDigestKey(PostgresEndpoint postgresEndpoint) {
+
+    return new EdgeChain<>(
+        Observable.create(
+            emitter -> {
+              try {
+                this.repository.migrateToDigestKey(postgresEndpoint.getTableName());
+                emitter.onNext(
+                    new StringResponse(
+                        "Table: " + postgresEndpoint.getTableName() + " is keyed by digest"));
+                emitter.onComplete();
+              } catch (final Exception e) {
+                emitter.onError(e);
+              }
+            }),
+        postgresEndpoint);
+  }
+
+  /** Upserts into a namespace-partitioned table are routed to the namespace's partition. */
+  private void ensurePartition(PostgresEndpoint postgresEndpoint) {
+    if (!postgresEndpoint.isPartitioned()) return;
+
+    String tableName = postgresEndpoint.getTableName();
+    String namespace = getNamespace(postgresEndpoint);
+    this.schemaRegistry.ensure(
+        partitionKey(tableName, namespace),
+        () -> this.repository.createPartition(tableName, namespace));
+  }
+
+  private String partitionKey(String tableName, String namespace) {
+    return String.join(":", "partition", tableName, namespace);
+  }
+
   private String getNamespace(PostgresEndpoint postgresEndpoint) {
     return (Objects.isNull(postgresEndpoint.getNamespace())
             || postgresEndpoint.getNamespace().isEmpty())
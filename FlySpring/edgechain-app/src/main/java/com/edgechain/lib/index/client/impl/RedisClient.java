@@ -156,6 +156,30 @@ public class RedisClient {
         endpoint);
   }
 
+  public EdgeChain<StringResponse> deleteByIds(RedisEndpoint endpoint) {
+
+    return new EdgeChain<>(
+        Observable.create(
+            emitter -> {
+              try (Jedis jedis = new Jedis(jedisPooled.getPool().getResource())) {
+
+                String namespace = getNamespace(endpoint);
+                String[] keys =
+                    endpoint.getIds().stream()
+                        .map(id -> namespace + ":" + id)
+                        .toArray(String[]::new);
+
+                long deleted = keys.length == 0 ? 0 : jedis.del(keys);
+
+                emitter.onNext(new StringResponse("Deleted ~ " + deleted));
+                emitter.onComplete();
+              } catch (Exception ex) {
+                emitter.onError(ex);
+              }
+            }),
+        endpoint);
+  }
+
   public EdgeChain<StringResponse> deleteByPattern(RedisEndpoint endpoint) {
 
     return new EdgeChain<>(
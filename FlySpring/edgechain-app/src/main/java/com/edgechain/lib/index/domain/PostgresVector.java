@@ -0,0 +1,121 @@
+package com.edgechain.lib.index.domain;
+
+import com.edgechain.lib.utils.FloatUtils;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import org.postgresql.util.PGobject;
+
+/**
+ * pgvector codec. Bound as a statement parameter it is sent as a typed {@code vector} value in the
+ * text form, so no {@code ::vector} cast is needed. The type is not registered with the driver,
+ * which returns result columns as generic {@link PGobject}s; {@link #decode} parses them straight
+ * into a {@code float[]} without Jackson or boxing.
+ */
+public class PostgresVector extends PGobject {
+
+  private static final long serialVersionUID = -2453867306112871226L;
+
+  public static final String TYPE = "vector";
+
+  private float[] vector;
+
+  // text form is formatted once even when the vector is bound more than once
+  private transient String text;
+
+  public PostgresVector() {
+    this.type = TYPE;
+  }
+
+  public PostgresVector(float[] vector) {
+    this();
+    this.vector = vector;
+  }
+
+  public PostgresVector(List<Float> values) {
+    this(FloatUtils.toFloatArray(values));
+  }
+
+  public float[] toArray() {
+    return vector;
+  }
+
+  @Override
+  public void setValue(String value) throws SQLException {
+    this.vector = Objects.isNull(value) ? null : parse(value);
+    this.text = value;
+  }
+
+  @Override
+  public String getValue() {
+    if (Objects.isNull(vector)) return null;
+    if (Objects.isNull(text)) text = format(vector);
+    return text;
+  }
+
+  /**
+   * Decodes a vector column as returned by the driver: either a registered {@link PostgresVector}
+   * or a generic {@link PGobject} holding the text form.
+   */
+  public static float[] decode(Object column) {
+    if (Objects.isNull(column)) return null;
+    if (column instanceof PostgresVector postgresVector) return postgresVector.toArray();
+    if (column instanceof PGobject pgObject) return parse(pgObject.getValue());
+    return parse(column.toString());
+  }
+
+  /** Parses the pgvector text form, e.g. "[0.1,0.2,0.3]". */
+  public static float[] parse(String value) {
+    int start = value.indexOf('[') + 1;
+    int end = value.lastIndexOf(']');
+    if (end < 0) end = value.length();
+    if (end <= start) return new float[0];
+
+    int count = 1;
+    for (int i = start; i < end; i++) {
+      if (value.charAt(i) == ',') count++;
+    }
+
+    float[] floats = new float[count];
+    int index = 0;
+    int from = start;
+    for (int i = start; i <= end; i++) {
+      if (i == end || value.charAt(i) == ',') {
+        floats[index++] = Float.parseFloat(value.substring(from, i).trim());
+        from = i + 1;
+      }
+    }
+    return floats;
+  }
+
+  /** Formats the pgvector text form without the intermediate copies of Arrays.toString. */
+  public static String format(float[] vector) {
+    StringBuilder sb = new StringBuilder(vector.length * 12 + 2);
+    sb.append('[');
+    for (int i = 0; i < vector.length; i++) {
+      if (i > 0) sb.append(',');
+      sb.append(vector[i]);
+    }
+    return sb.append(']').toString();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    return Arrays.equals(vector, ((PostgresVector) o).vector);
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(vector);
+  }
+
+  @Override
+  public Object clone() throws CloneNotSupportedException {
+    PostgresVector clone = (PostgresVector) super.clone();
+    clone.vector = Objects.isNull(vector) ? null : vector.clone();
+    return clone;
+  }
+}
@@ -1,6 +1,8 @@
 package com.edgechain.lib.index.domain;
 
+import com.edgechain.lib.embeddings.FloatVector;
 import com.edgechain.lib.response.ArkObject;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
@@ -20,7 +22,7 @@ public class PostgresWordEmbeddings implements ArkObject {
 
   private String filename;
 
-  private List<Float> values;
+  private FloatVector values;
 
   private LocalDateTime timestamp;
 
@@ -59,8 +61,9 @@ public class PostgresWordEmbeddings implements ArkObject {
     return values;
   }
 
+  @JsonDeserialize(using = FloatVector.Deserializer.class)
   public void setValues(List<Float> values) {
-    this.values = values;
+    this.values = FloatVector.of(values);
   }
 
   public LocalDateTime getTimestamp() {
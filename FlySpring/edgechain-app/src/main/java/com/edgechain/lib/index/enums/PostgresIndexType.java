@@ -0,0 +1,17 @@
+package com.edgechain.lib.index.enums;
+
+public enum PostgresIndexType {
+  IVFFLAT, // tuned with lists at creation and probes at query time
+  HNSW; // tuned with m / ef_construction at creation and ef_search at query time
+
+  public static PostgresIndexType fromString(String value) {
+    if (value != null) {
+      for (PostgresIndexType indexType : PostgresIndexType.values()) {
+        if (indexType.name().equalsIgnoreCase(value)) {
+          return indexType;
+        }
+      }
+    }
+    throw new IllegalArgumentException("Invalid PostgresIndexType value: " + value);
+  }
+}
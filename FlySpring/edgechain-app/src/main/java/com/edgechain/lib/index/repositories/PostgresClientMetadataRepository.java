@@ -1,8 +1,8 @@
 package com.edgechain.lib.index.repositories;
 
 import com.edgechain.lib.endpoint.impl.index.PostgresEndpoint;
+import com.edgechain.lib.index.domain.PostgresVector;
 import com.edgechain.lib.index.enums.PostgresDistanceMetric;
-import com.edgechain.lib.utils.FloatUtils;
 import com.github.f4b6a3.uuid.UuidCreator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -10,7 +10,9 @@ import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.PreparedStatement;
 import java.util.*;
+import java.util.stream.Collectors;
 
 @Repository
 public class PostgresClientMetadataRepository {
@@ -26,15 +28,22 @@ public class PostgresClientMetadataRepository {
                 + " document_date DATE);",
             postgresEndpoint.getTableName() + "_" + metadataTable));
 
-    // Create a JOIN table
+    // Create a JOIN table; a namespace-partitioned embeddings table has no unique id to reference
+    String embeddingsForeignKey =
+        postgresEndpoint.isPartitioned()
+            ? ""
+            : String.format(
+                "FOREIGN KEY (id) REFERENCES %s(id) ON DELETE CASCADE, ",
+                postgresEndpoint.getTableName());
+
     jdbcTemplate.execute(
         String.format(
             "CREATE TABLE IF NOT EXISTS %s (id UUID UNIQUE NOT NULL, metadata_id UUID NOT NULL, "
-                + "FOREIGN KEY (id) REFERENCES %s(id) ON DELETE CASCADE, "
+                + "%s"
                 + "FOREIGN KEY (metadata_id) REFERENCES %s(metadata_id) ON DELETE CASCADE, "
                 + "PRIMARY KEY (id, metadata_id));",
             postgresEndpoint.getTableName() + "_join_" + metadataTable,
-            postgresEndpoint.getTableName(),
+            embeddingsForeignKey,
             postgresEndpoint.getTableName() + "_" + metadataTable));
 
     jdbcTemplate.execute(
@@ -48,26 +57,30 @@ public class PostgresClientMetadataRepository {
   public List<String> batchInsertMetadata(
       String table, String metadataTableName, List<String> metadataList) {
 
-    Set<String> uuidSet = new HashSet<>();
+    if (metadataList.isEmpty()) return new ArrayList<>();
 
+    // ids are generated here, so they are returned in the order of metadataList
+    UUID[] ids = new UUID[metadataList.size()];
+    String[] metadata = new String[metadataList.size()];
     for (int i = 0; i < metadataList.size(); i++) {
-
-      String metadata = metadataList.get(i).replace("'", "");
-
-      UUID metadataId =
-          jdbcTemplate.queryForObject(
-              String.format(
-                  "INSERT INTO %s (metadata_id, metadata) VALUES ('%s', ?) RETURNING metadata_id;",
-                  table.concat("_").concat(metadataTableName), UuidCreator.getTimeOrderedEpoch()),
-              UUID.class,
-              metadata);
-
-      if (metadataId != null) {
-        uuidSet.add(metadataId.toString());
-      }
+      ids[i] = UuidCreator.getTimeOrderedEpoch();
+      metadata[i] = metadataList.get(i).replace("'", "");
     }
 
-    return new ArrayList<>(uuidSet);
+    String sql =
+        String.format(
+            "INSERT INTO %s (metadata_id, metadata) SELECT * FROM unnest(?::uuid[], ?::text[]);",
+            table.concat("_").concat(metadataTableName));
+
+    jdbcTemplate.update(
+        con -> {
+          PreparedStatement ps = con.prepareStatement(sql);
+          ps.setArray(1, con.createArrayOf("uuid", ids));
+          ps.setArray(2, con.createArrayOf("text", metadata));
+          return ps;
+        });
+
+    return Arrays.stream(ids).map(UUID::toString).collect(Collectors.toList());
   }
 
   @Transactional
@@ -107,16 +120,24 @@ public class PostgresClientMetadataRepository {
   @Transactional
   public void batchInsertIntoJoinTable(
       String tableName, String metadataTableName, List<String> idList, String metadataId) {
-    String joinTableName = tableName + "_join_" + metadataTableName;
-    List<String> sqlStatements = new ArrayList<>();
-    for (String id : idList) {
-      sqlStatements.add(
-          String.format(
-              "INSERT INTO %s (id, metadata_id) VALUES ('%s', '%s') ON CONFLICT (id) DO UPDATE SET"
-                  + " metadata_id = EXCLUDED.metadata_id;",
-              joinTableName, UUID.fromString(id), UUID.fromString(metadataId)));
-    }
-    jdbcTemplate.batchUpdate(sqlStatements.toArray(new String[0]));
+
+    // ON CONFLICT cannot update the same row twice within one statement
+    UUID[] ids = idList.stream().distinct().map(UUID::fromString).toArray(UUID[]::new);
+    if (ids.length == 0) return;
+
+    String sql =
+        String.format(
+            "INSERT INTO %s (id, metadata_id) SELECT t.id, ? FROM unnest(?::uuid[]) AS t(id)"
+                + " ON CONFLICT (id) DO UPDATE SET metadata_id = EXCLUDED.metadata_id;",
+            tableName + "_join_" + metadataTableName);
+
+    jdbcTemplate.update(
+        con -> {
+          PreparedStatement ps = con.prepareStatement(sql);
+          ps.setObject(1, UUID.fromString(metadataId));
+          ps.setArray(2, con.createArrayOf("uuid", ids));
+          return ps;
+        });
   }
 
   @Transactional(readOnly = true, propagation = Propagation.REQUIRED)
@@ -128,62 +149,53 @@ public class PostgresClientMetadataRepository {
       PostgresDistanceMetric metric,
       List<Float> values,
       int topK) {
+    return queryWithMetadata(
+        tableName, metadataTableName, namespace, probes, 0, metric, values, topK, false);
+  }
+
+  @Transactional(readOnly = true, propagation = Propagation.REQUIRED)
+  public List<Map<String, Object>> queryWithMetadata(
+      String tableName,
+      String metadataTableName,
+      String namespace,
+      int probes,
+      int efSearch,
+      PostgresDistanceMetric metric,
+      List<Float> values,
+      int topK,
+      boolean includeValues) {
 
-    String embeddings = Arrays.toString(FloatUtils.toFloatArray(values));
+    PostgresVector embeddings = new PostgresVector(values);
 
     jdbcTemplate.execute(String.format("SET LOCAL ivfflat.probes = %s;", probes));
+    if (efSearch > 0) {
+      jdbcTemplate.execute(String.format("SET LOCAL hnsw.ef_search = %s;", efSearch));
+    }
     String joinTable = tableName + "_join_" + metadataTableName;
 
-    if (metric.equals(PostgresDistanceMetric.IP)) {
-      return jdbcTemplate.queryForList(
-          String.format(
-              "SELECT e.id, metadata, TO_CHAR(document_date, 'Month DD, YYYY') as document_date,"
-                  + " j.metadata_id, raw_text, namespace, filename, timestamp, ( embedding <#>"
-                  + " '%s') * -1 AS score FROM %s e INNER JOIN %s j ON e.id = j.id INNER JOIN %s m"
-                  + " ON j.metadata_id = m.metadata_id WHERE namespace='%s' ORDER BY embedding %s"
-                  + " '%s' LIMIT %s;",
-              embeddings,
-              tableName,
-              joinTable,
-              tableName.concat("_").concat(metadataTableName),
-              namespace,
-              PostgresDistanceMetric.getDistanceMetric(metric),
-              embeddings,
-              topK));
-
-    } else if (metric.equals(PostgresDistanceMetric.COSINE)) {
-      return jdbcTemplate.queryForList(
-          String.format(
-              "SELECT e.id, metadata, TO_CHAR(document_date, 'Month DD, YYYY') as document_date,"
-                  + " j.metadata_id, raw_text, namespace, filename, timestamp, 1 - ( embedding <=>"
-                  + " '%s') AS score FROM %s e INNER JOIN %s j ON e.id = j.id INNER JOIN %s m ON"
-                  + " j.metadata_id = m.metadata_id WHERE namespace='%s' ORDER BY embedding %s '%s'"
-                  + " LIMIT %s;",
-              embeddings,
-              tableName,
-              joinTable,
-              tableName.concat("_").concat(metadataTableName),
-              namespace,
-              PostgresDistanceMetric.getDistanceMetric(metric),
-              embeddings,
-              topK));
-    } else {
-      return jdbcTemplate.queryForList(
-          String.format(
-              "SELECT e.id, metadata, TO_CHAR(document_date, 'Month DD, YYYY') as document_date,"
-                  + " j.metadata_id, raw_text, namespace, filename, timestamp, (embedding <-> '%s')"
-                  + " AS score FROM %s e INNER JOIN %s j ON e.id = j.id INNER JOIN %s m ON"
-                  + " j.metadata_id = m.metadata_id WHERE namespace='%s' ORDER BY embedding %s '%s'"
-                  + " ASC LIMIT %s;",
-              embeddings,
-              tableName,
-              joinTable,
-              tableName.concat("_").concat(metadataTableName),
-              namespace,
-              PostgresDistanceMetric.getDistanceMetric(metric),
-              embeddings,
-              topK));
-    }
+    String score =
+        switch (metric) {
+          case IP -> "( embedding <#> ?) * -1";
+          case COSINE -> "1 - ( embedding <=> ?)";
+          case L2 -> "(embedding <-> ?)";
+        };
+
+    return jdbcTemplate.queryForList(
+        String.format(
+            "SELECT e.id, metadata, TO_CHAR(document_date, 'Month DD, YYYY') as document_date,"
+                + " j.metadata_id, raw_text, %snamespace, filename, timestamp, %s AS score"
+                + " FROM %s e INNER JOIN %s j ON e.id = j.id INNER JOIN %s m ON j.metadata_id ="
+                + " m.metadata_id WHERE namespace = ? ORDER BY embedding %s ? LIMIT %s;",
+            includeValues ? "embedding, " : "",
+            score,
+            tableName,
+            joinTable,
+            tableName.concat("_").concat(metadataTableName),
+            PostgresDistanceMetric.getDistanceMetric(metric),
+            topK),
+        embeddings,
+        namespace,
+        embeddings);
   }
 
   // Full-text search
@@ -2,24 +2,50 @@ package com.edgechain.lib.index.repositories;
 
 import com.edgechain.lib.embeddings.WordEmbeddings;
 import com.edgechain.lib.endpoint.impl.index.PostgresEndpoint;
+import com.edgechain.lib.index.domain.PostgresVector;
 import com.edgechain.lib.index.domain.RRFWeight;
 import com.edgechain.lib.index.enums.OrderRRFBy;
 import com.edgechain.lib.index.enums.PostgresDistanceMetric;
+import com.edgechain.lib.index.enums.PostgresIndexType;
 import com.edgechain.lib.index.enums.PostgresLanguage;
 import com.edgechain.lib.utils.FloatUtils;
 import com.github.f4b6a3.uuid.UuidCreator;
+import io.reactivex.rxjava3.core.Flowable;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ColumnMapRowMapper;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SqlTypeValue;
+import org.springframework.jdbc.core.StatementCreatorUtils;
+import org.springframework.jdbc.support.JdbcUtils;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
-
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.*;
+import javax.sql.DataSource;
 
 @Repository
 public class PostgresClientRepository {
 
+  public static final int DEFAULT_UPSERT_CHUNK_SIZE = 500;
+
+  // current query vector inside the LATERAL join of a multi-vector search
+  private static final String MULTI_VECTOR_REF = "q.vec::vector";
+
+  // pgvector defaults for HNSW build parameters
+  public static final int DEFAULT_HNSW_M = 16;
+  public static final int DEFAULT_HNSW_EF_CONSTRUCTION = 64;
+
   @Autowired private JdbcTemplate jdbcTemplate;
 
   @Transactional
@@ -35,25 +61,44 @@ public class PostgresClientRepository {
 
     int tableExists = jdbcTemplate.queryForObject(checkTableQuery, Integer.class);
 
-    String indexName;
+    String metricName;
     String vectorOps;
 
     if (PostgresDistanceMetric.L2.equals(postgresEndpoint.getMetric())) {
-      indexName = postgresEndpoint.getTableName().concat("_").concat("l2_idx");
+      metricName = "l2";
       vectorOps = "vector_l2_ops";
     } else if (PostgresDistanceMetric.COSINE.equals(postgresEndpoint.getMetric())) {
-      indexName = postgresEndpoint.getTableName().concat("_").concat("cosine_idx");
+      metricName = "cosine";
       vectorOps = "vector_cosine_ops";
     } else {
-      indexName = postgresEndpoint.getTableName().concat("_").concat("ip_idx");
+      metricName = "ip";
       vectorOps = "vector_ip_ops";
     }
 
-    String indexQuery =
-        String.format(
-            "CREATE INDEX IF NOT EXISTS %s ON %s USING ivfflat (embedding %s) WITH"
-                + " (lists = %s);",
-            indexName, postgresEndpoint.getTableName(), vectorOps, postgresEndpoint.getLists());
+    String indexName;
+    String indexQuery;
+
+    if (PostgresIndexType.HNSW.equals(postgresEndpoint.getIndexType())) {
+      indexName = postgresEndpoint.getTableName().concat("_hnsw_").concat(metricName + "_idx");
+      indexQuery =
+          String.format(
+              "CREATE INDEX IF NOT EXISTS %s ON %s USING hnsw (embedding %s) WITH"
+                  + " (m = %s, ef_construction = %s);",
+              indexName,
+              postgresEndpoint.getTableName(),
+              vectorOps,
+              postgresEndpoint.getM() > 0 ? postgresEndpoint.getM() : DEFAULT_HNSW_M,
+              postgresEndpoint.getEfConstruction() > 0
+                  ? postgresEndpoint.getEfConstruction()
+                  : DEFAULT_HNSW_EF_CONSTRUCTION);
+    } else {
+      indexName = postgresEndpoint.getTableName().concat("_").concat(metricName + "_idx");
+      indexQuery =
+          String.format(
+              "CREATE INDEX IF NOT EXISTS %s ON %s USING ivfflat (embedding %s) WITH"
+                  + " (lists = %s);",
+              indexName, postgresEndpoint.getTableName(), vectorOps, postgresEndpoint.getLists());
+    }
 
     String tsvIndexQuery =
         String.format(
@@ -62,18 +107,42 @@ public class PostgresClientRepository {
 
     if (tableExists == 0) {
 
-      jdbcTemplate.execute(
-          String.format(
-              "CREATE TABLE IF NOT EXISTS %s (id UUID PRIMARY KEY, "
-                  + " raw_text TEXT NOT NULL UNIQUE, embedding vector(%s), timestamp"
-                  + " TIMESTAMP NOT NULL, namespace TEXT, filename VARCHAR(255), tsv TSVECTOR);",
-              postgresEndpoint.getTableName(), postgresEndpoint.getDimensions()));
+      // with a digest key, chunks are unique by the SHA-256 of raw_text (32 bytes) instead of a
+      // btree over the whole text
+      String digestColumn = postgresEndpoint.isDigestKey() ? " digest BYTEA NOT NULL," : "";
+      String uniqueKey = postgresEndpoint.isDigestKey() ? "digest" : "raw_text";
+
+      if (postgresEndpoint.isPartitioned()) {
+        // unique constraints of a partitioned table must include the partition key
+        jdbcTemplate.execute(
+            String.format(
+                "CREATE TABLE IF NOT EXISTS %s (id UUID NOT NULL, raw_text TEXT NOT NULL,%s"
+                    + " embedding vector(%s), timestamp TIMESTAMP NOT NULL, namespace TEXT NOT"
+                    + " NULL, filename VARCHAR(255), tsv TSVECTOR, PRIMARY KEY (id, namespace),"
+                    + " UNIQUE (%s, namespace)) PARTITION BY LIST (namespace);",
+                postgresEndpoint.getTableName(),
+                digestColumn,
+                postgresEndpoint.getDimensions(),
+                uniqueKey));
+      } else {
+        jdbcTemplate.execute(
+            String.format(
+                "CREATE TABLE IF NOT EXISTS %s (id UUID PRIMARY KEY, raw_text TEXT NOT NULL,%s"
+                    + " embedding vector(%s), timestamp TIMESTAMP NOT NULL, namespace TEXT,"
+                    + " filename VARCHAR(255), tsv TSVECTOR, UNIQUE (%s));",
+                postgresEndpoint.getTableName(),
+                digestColumn,
+                postgresEndpoint.getDimensions(),
+                uniqueKey));
+      }
 
       jdbcTemplate.execute(indexQuery);
       jdbcTemplate.execute(tsvIndexQuery);
 
     } else {
 
+      checkLayout(postgresEndpoint);
+
       String checkIndexQuery =
           String.format(
               "SELECT COUNT(*) FROM pg_indexes WHERE tablename = '%s' AND indexname = '%s';",
@@ -87,6 +156,53 @@ public class PostgresClientRepository {
     }
   }
 
+  /**
+   * Fails fast when the existing table was created with other dimensions, partitioning or key than
+   * the endpoint's, instead of failing on the first upsert or query.
+   */
+  private void checkLayout(PostgresEndpoint postgresEndpoint) {
+    String tableName = postgresEndpoint.getTableName();
+
+    // the type modifier of a vector column is its dimensions
+    Integer dimensions =
+        jdbcTemplate.queryForObject(
+            "SELECT atttypmod FROM pg_attribute WHERE attrelid = ?::regclass AND attname ="
+                + " 'embedding';",
+            Integer.class,
+            tableName);
+    Integer digestColumns =
+        jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM pg_attribute WHERE attrelid = ?::regclass AND attname = 'digest'"
+                + " AND NOT attisdropped;",
+            Integer.class,
+            tableName);
+    boolean partitioned = isPartitioned(tableName);
+    boolean digestKey = Objects.nonNull(digestColumns) && digestColumns > 0;
+
+    if (postgresEndpoint.getDimensions() > 0
+        && !Objects.equals(dimensions, postgresEndpoint.getDimensions()))
+      throw new RuntimeException(
+          String.format(
+              "Table %s has embeddings of %s dimensions, not %s",
+              tableName, dimensions, postgresEndpoint.getDimensions()));
+
+    if (partitioned != postgresEndpoint.isPartitioned())
+      throw new RuntimeException(
+          String.format(
+              "Table %s is %s by namespace, use another table for a %s endpoint",
+              tableName,
+              partitioned ? "partitioned" : "not partitioned",
+              postgresEndpoint.isPartitioned() ? "partitioned" : "non-partitioned"));
+
+    if (digestKey != postgresEndpoint.isDigestKey())
+      throw new RuntimeException(
+          String.format(
+              digestKey
+                  ? "Table %s is keyed by digest, set digestKey on the endpoint"
+                  : "Table %s is keyed by raw_text, run migrateToDigestKey first",
+              tableName));
+  }
+
   @Transactional
   public List<String> batchUpsertEmbeddings(
       String tableName,
@@ -94,39 +210,107 @@ public class PostgresClientRepository {
       String filename,
       String namespace,
       PostgresLanguage language) {
+    return batchUpsertEmbeddings(
+        tableName,
+        wordEmbeddingsList,
+        filename,
+        namespace,
+        language,
+        DEFAULT_UPSERT_CHUNK_SIZE,
+        false,
+        false);
+  }
 
-    Set<String> uuidSet = new HashSet<>();
+  /**
+   * Upserts the embeddings with one multi-row INSERT ... SELECT FROM unnest(...) statement per
+   * chunk instead of one statement per embedding.
+   *
+   * @param digestKey the table is keyed by the digest column (see createTable) instead of raw_text
+   * @return the distinct ids of the inserted or updated rows
+   */
+  @Transactional
+  public List<String> batchUpsertEmbeddings(
+      String tableName,
+      List<WordEmbeddings> wordEmbeddingsList,
+      String filename,
+      String namespace,
+      PostgresLanguage language,
+      int chunkSize,
+      boolean partitioned,
+      boolean digestKey) {
+
+    // ON CONFLICT cannot touch the same row twice within one statement; keep the last embedding
+    // for a repeated raw_text, as the row-by-row upsert did.
+    Map<String, WordEmbeddings> embeddingsByText = new LinkedHashMap<>();
+    for (WordEmbeddings wordEmbeddings : wordEmbeddingsList) {
+      if (wordEmbeddings != null && wordEmbeddings.getValues() != null) {
+        embeddingsByText.put(wordEmbeddings.getId().replace("'", ""), wordEmbeddings);
+      }
+    }
 
-    for (int i = 0; i < wordEmbeddingsList.size(); i++) {
-      WordEmbeddings wordEmbeddings = wordEmbeddingsList.get(i);
+    List<Map.Entry<String, WordEmbeddings>> entries = new ArrayList<>(embeddingsByText.entrySet());
+    int size = chunkSize > 0 ? chunkSize : DEFAULT_UPSERT_CHUNK_SIZE;
 
-      if (wordEmbeddings != null && wordEmbeddings.getValues() != null) {
+    String digest = digestKey ? ", digest" : "";
 
-        float[] floatArray = FloatUtils.toFloatArray(wordEmbeddings.getValues());
-        String rawText = wordEmbeddings.getId().replace("'", "");
-
-        UUID id =
-            jdbcTemplate.queryForObject(
-                String.format(
-                    "INSERT INTO %s (id, raw_text, embedding, timestamp, namespace, filename, tsv)"
-                        + " VALUES ('%s', ?, '%s', '%s', '%s', '%s', TO_TSVECTOR('%s', '%s'))  ON"
-                        + " CONFLICT (raw_text) DO UPDATE SET embedding = EXCLUDED.embedding"
-                        + " RETURNING id;",
-                    tableName,
-                    UuidCreator.getTimeOrderedEpoch(),
-                    Arrays.toString(floatArray),
-                    LocalDateTime.now(),
-                    namespace,
-                    filename,
-                    language.getValue(),
-                    rawText),
-                UUID.class,
-                rawText);
-
-        if (id != null) {
-          uuidSet.add(id.toString());
-        }
+    String sql =
+        String.format(
+            "INSERT INTO %s (id, raw_text, embedding, timestamp, namespace, filename, tsv%s)"
+                + " SELECT t.id, t.raw_text, t.embedding::vector, ?, ?, ?,"
+                + " TO_TSVECTOR(?::regconfig, t.raw_text)%s FROM unnest(?::uuid[], ?::text[],"
+                + " ?::text[]%s) AS t(id, raw_text, embedding%s) ON CONFLICT (%s) DO UPDATE SET"
+                + " embedding = EXCLUDED.embedding RETURNING id;",
+            tableName,
+            digest,
+            digestKey ? ", t.digest" : "",
+            digestKey ? ", ?::bytea[]" : "",
+            digest,
+            conflictTarget(partitioned, digestKey));
+
+    Set<String> uuidSet = new LinkedHashSet<>();
+
+    for (int from = 0; from < entries.size(); from += size) {
+      List<Map.Entry<String, WordEmbeddings>> chunk =
+          entries.subList(from, Math.min(from + size, entries.size()));
+
+      UUID[] ids = new UUID[chunk.size()];
+      String[] rawTexts = new String[chunk.size()];
+      String[] embeddings = new String[chunk.size()];
+
+      for (int i = 0; i < chunk.size(); i++) {
+        ids[i] = UuidCreator.getTimeOrderedEpoch();
+        rawTexts[i] = chunk.get(i).getKey();
+        embeddings[i] =
+            PostgresVector.format(FloatUtils.toFloatArray(chunk.get(i).getValue().getValues()));
       }
+
+      Timestamp timestamp = Timestamp.valueOf(LocalDateTime.now());
+
+      List<UUID> returned =
+          jdbcTemplate.query(
+              con -> {
+                PreparedStatement ps = con.prepareStatement(sql);
+                ps.setTimestamp(1, timestamp);
+                ps.setString(2, namespace);
+                ps.setString(3, filename);
+                ps.setString(4, language.getValue());
+                ps.setArray(5, con.createArrayOf("uuid", ids));
+                ps.setArray(6, con.createArrayOf("text", rawTexts));
+                ps.setArray(7, con.createArrayOf("text", embeddings));
+                if (digestKey) {
+                  ps.setArray(
+                      8,
+                      con.createArrayOf(
+                          "bytea",
+                          Arrays.stream(rawTexts)
+                              .map(PostgresClientRepository::digest)
+                              .toArray(byte[][]::new)));
+                }
+                return ps;
+              },
+              (rs, rowNum) -> rs.getObject(1, UUID.class));
+
+      returned.stream().filter(Objects::nonNull).map(UUID::toString).forEach(uuidSet::add);
     }
 
     return new ArrayList<>(uuidSet);
@@ -139,111 +323,100 @@ public class PostgresClientRepository {
       String filename,
       String namespace,
       PostgresLanguage language) {
+    return upsertEmbeddings(
+        tableName, wordEmbeddings, filename, namespace, language, false, false);
+  }
+
+  @Transactional
+  public String upsertEmbeddings(
+      String tableName,
+      WordEmbeddings wordEmbeddings,
+      String filename,
+      String namespace,
+      PostgresLanguage language,
+      boolean partitioned,
+      boolean digestKey) {
 
-    float[] floatArray = FloatUtils.toFloatArray(wordEmbeddings.getValues());
     String rawText = wordEmbeddings.getId().replace("'", "");
 
-    UUID uuid =
-        jdbcTemplate.queryForObject(
-            String.format(
-                "INSERT INTO %s (id, raw_text, embedding, timestamp, namespace, filename, tsv)"
-                    + " VALUES ('%s', ?, '%s', '%s', '%s', '%s', TO_TSVECTOR('%s', '%s'))  ON"
-                    + " CONFLICT (raw_text) DO UPDATE SET embedding = EXCLUDED.embedding RETURNING"
-                    + " id;",
-                tableName,
+    List<Object> args =
+        new ArrayList<>(
+            List.of(
                 UuidCreator.getTimeOrderedEpoch(),
-                Arrays.toString(floatArray),
-                LocalDateTime.now(),
+                rawText,
+                new PostgresVector(wordEmbeddings.getValues()),
+                Timestamp.valueOf(LocalDateTime.now()),
                 namespace,
                 filename,
                 language.getValue(),
-                rawText),
+                rawText));
+    if (digestKey) args.add(digest(rawText));
+
+    UUID uuid =
+        jdbcTemplate.queryForObject(
+            String.format(
+                "INSERT INTO %s (id, raw_text, embedding, timestamp, namespace, filename, tsv%s)"
+                    + " VALUES (?, ?, ?, ?, ?, ?, TO_TSVECTOR(?::regconfig, ?)%s) ON CONFLICT"
+                    + " (%s) DO UPDATE SET embedding = EXCLUDED.embedding RETURNING id;",
+                tableName,
+                digestKey ? ", digest" : "",
+                digestKey ? ", ?" : "",
+                conflictTarget(partitioned, digestKey)),
             UUID.class,
-            rawText);
+            args.toArray());
 
     return Objects.requireNonNull(uuid).toString();
   }
 
+  /**
+   * Nearest-neighbour search. Several query vectors are sent as one text[] parameter and searched
+   * with a LATERAL join, so the statement text is the same whatever the number of vectors; the
+   * per-vector top-K results are then merged by id and cut to upperLimit.
+   */
   @Transactional(readOnly = true, propagation = Propagation.REQUIRED)
   public List<Map<String, Object>> query(
       String tableName,
       String namespace,
       int probes,
+      int efSearch,
       PostgresDistanceMetric metric,
       List<List<Float>> values,
       int topK,
-      int upperLimit) {
-
-    jdbcTemplate.execute(String.format("SET LOCAL ivfflat.probes = %s;", probes));
+      int upperLimit,
+      boolean includeValues) {
 
-    StringBuilder query = new StringBuilder();
+    setSearchParameters(probes, efSearch);
 
-    for (int i = 0; i < values.size(); i++) {
-
-      String embeddings = Arrays.toString(FloatUtils.toFloatArray(values.get(i)));
-
-      query.append("(").append("SELECT id, raw_text, embedding, namespace, filename, timestamp,");
-
-      switch (metric) {
-        case COSINE -> query
-            .append(String.format("1 - (embedding <=> '%s') AS score ", embeddings))
-            .append(" FROM ")
-            .append(tableName)
-            .append(" WHERE namespace = ")
-            .append("'")
-            .append(namespace)
-            .append("'")
-            .append(" ORDER BY embedding <=> ")
-            .append("'")
-            .append(embeddings)
-            .append("'")
-            .append(" LIMIT ");
-        case IP -> query
-            .append(String.format("(embedding <#> '%s') * -1 AS score ", embeddings))
-            .append(" FROM ")
-            .append(tableName)
-            .append(" WHERE namespace = ")
-            .append("'")
-            .append(namespace)
-            .append("'")
-            .append(" ORDER BY embedding <#> ")
-            .append("'")
-            .append(embeddings)
-            .append("'")
-            .append(" LIMIT ");
-        case L2 -> query
-            .append(String.format("embedding <-> '%s' AS score ", embeddings))
-            .append(" FROM ")
-            .append(tableName)
-            .append(" WHERE namespace = ")
-            .append("'")
-            .append(namespace)
-            .append("'")
-            .append(" ORDER BY embedding <-> ")
-            .append("'")
-            .append(embeddings)
-            .append("'")
-            .append(" LIMIT ");
-        default -> throw new IllegalArgumentException("Invalid similarity measure: " + metric);
-      }
-      query.append(topK).append(")");
+    boolean multiVector = values.size() > 1;
+    String vector = multiVector ? MULTI_VECTOR_REF : "?";
 
-      if (i < values.size() - 1) {
-        query.append(" UNION ALL  ").append("\n");
-      }
+    String search =
+        String.format(
+            "SELECT id, raw_text, %snamespace, filename, timestamp, %s AS score FROM %s"
+                + " WHERE namespace = ? ORDER BY embedding %s %s LIMIT %s",
+            includeValues ? "embedding, " : "",
+            scoreExpression(metric, "embedding", vector),
+            tableName,
+            PostgresDistanceMetric.getDistanceMetric(metric),
+            vector,
+            topK);
+
+    if (!multiVector) {
+      PostgresVector embeddings = new PostgresVector(values.get(0));
+      return jdbcTemplate.queryForList(search, embeddings, namespace, embeddings);
     }
 
-    if (values.size() > 1) {
-      return jdbcTemplate.queryForList(
-          String.format(
-              "SELECT * FROM (SELECT DISTINCT ON (result.id) * FROM ( %s ) result) subquery  ORDER"
-                  + " BY score DESC LIMIT %s;",
-              query, upperLimit));
-    } else {
-      return jdbcTemplate.queryForList(query.toString());
-    }
+    return queryMultiVector(
+        String.format(
+            "SELECT * FROM (SELECT DISTINCT ON (r.id) r.* FROM unnest(?::text[]) AS q(vec)"
+                + " CROSS JOIN LATERAL (%s) r ORDER BY r.id, r.score %s) subquery"
+                + " ORDER BY score %s LIMIT %s;",
+            search, bestFirst(metric), bestFirst(metric), upperLimit),
+        values,
+        namespace);
   }
 
+  @Transactional(readOnly = true, propagation = Propagation.REQUIRED)
   public List<Map<String, Object>> queryRRF(
       String tableName,
       String namespace,
@@ -255,125 +428,221 @@ public class PostgresClientRepository {
       String searchQuery,
       PostgresLanguage language,
       int probes,
+      int efSearch,
       PostgresDistanceMetric metric,
       int topK,
       int upperLimit,
-      OrderRRFBy orderRRFBy) {
+      OrderRRFBy orderRRFBy,
+      boolean includeValues) {
 
-    jdbcTemplate.execute(String.format("SET LOCAL ivfflat.probes = %s;", probes));
+    setSearchParameters(probes, efSearch);
+
+    boolean multiVector = values.size() > 1;
+    String vector = multiVector ? MULTI_VECTOR_REF : "?";
 
     StringBuilder query = new StringBuilder();
 
-    for (int i = 0; i < values.size(); i++) {
-      String embeddings = Arrays.toString(FloatUtils.toFloatArray(values.get(i)));
-
-      query
-          .append("(")
-          .append(
-              "SELECT id, raw_text, document_date, metadata, namespace, filename, timestamp, \n")
-          .append(
-              String.format(
-                  "%s / (ROW_NUMBER() OVER (ORDER BY text_rank DESC) + %s) + \n",
-                  textWeight.getBaseWeight().getValue(), textWeight.getFineTuneWeight()))
-          .append(
-              String.format(
-                  "%s / (ROW_NUMBER() OVER (ORDER BY similarity DESC) + %s) + \n",
-                  similarityWeight.getBaseWeight().getValue(),
-                  similarityWeight.getFineTuneWeight()))
-          .append(
-              String.format(
-                  "%s / (ROW_NUMBER() OVER (ORDER BY date_rank DESC) + %s) AS rrf_score\n",
-                  dateWeight.getBaseWeight().getValue(), dateWeight.getFineTuneWeight()))
-          .append("FROM ( ")
-          .append(
-              "SELECT sv.id, sv.raw_text, sv.namespace, sv.filename, sv.timestamp,"
-                  + " svtm.document_date, svtm.metadata, ")
-          .append(
-              String.format(
-                  "ts_rank_cd(sv.tsv, plainto_tsquery('%s', '%s')) AS text_rank, ",
-                  language.getValue(), searchQuery));
-
-      switch (metric) {
-        case COSINE -> query.append(
-            String.format("1 - (sv.embedding <=> '%s') AS similarity, ", embeddings));
-        case IP -> query.append(
-            String.format("(sv.embedding <#> '%s') * -1 AS similarity, ", embeddings));
-        case L2 -> query.append(String.format("sv.embedding <-> '%s' AS similarity, ", embeddings));
-        default -> throw new IllegalArgumentException("Invalid similarity measure: " + metric);
-      }
+    query
+        .append("SELECT id, raw_text, ")
+        .append(includeValues ? "embedding, " : "")
+        .append("document_date, metadata, namespace, filename, timestamp, \n")
+        .append(
+            String.format(
+                "%s / (ROW_NUMBER() OVER (ORDER BY text_rank DESC) + %s) + \n",
+                textWeight.getBaseWeight().getValue(), textWeight.getFineTuneWeight()))
+        .append(
+            String.format(
+                "%s / (ROW_NUMBER() OVER (ORDER BY similarity %s) + %s) + \n",
+                similarityWeight.getBaseWeight().getValue(),
+                bestFirst(metric),
+                similarityWeight.getFineTuneWeight()))
+        .append(
+            String.format(
+                "%s / (ROW_NUMBER() OVER (ORDER BY date_rank DESC) + %s) AS rrf_score\n",
+                dateWeight.getBaseWeight().getValue(), dateWeight.getFineTuneWeight()))
+        .append("FROM ( ")
+        .append("SELECT sv.id, sv.raw_text, ")
+        .append(includeValues ? "sv.embedding, " : "")
+        .append("sv.namespace, sv.filename, sv.timestamp, svtm.document_date, svtm.metadata, ")
+        .append("ts_rank_cd(sv.tsv, plainto_tsquery(?::regconfig, ?)) AS text_rank, ")
+        .append(scoreExpression(metric, "sv.embedding", vector))
+        .append(" AS similarity, ")
+        .append("CASE ")
+        .append("WHEN svtm.document_date IS NULL THEN 0 ") // Null date handling
+        .append(
+            "ELSE EXTRACT(YEAR FROM svtm.document_date) * 365 + EXTRACT(DOY FROM"
+                + " svtm.document_date) ")
+        .append("END AS date_rank ")
+        .append("FROM ")
+        .append(
+            String.format(
+                "(SELECT id, raw_text, embedding, tsv, namespace, filename, timestamp from %s"
+                    + " WHERE namespace = ?",
+                tableName))
+        .append(" ORDER BY embedding ")
+        .append(PostgresDistanceMetric.getDistanceMetric(metric))
+        .append(" ")
+        .append(vector)
+        .append(" LIMIT ")
+        .append(topK)
+        .append(")")
+        .append(" sv ")
+        .append("JOIN ")
+        .append(tableName.concat("_join_").concat(metadataTableName))
+        .append(" jtm ON sv.id = jtm.id ")
+        .append("JOIN ")
+        .append(tableName.concat("_").concat(metadataTableName))
+        .append(" svtm ON jtm.metadata_id = svtm.metadata_id ")
+        .append(") subquery ");
+
+    switch (orderRRFBy) {
+      case TEXT_RANK -> query.append("ORDER BY text_rank DESC, rrf_score DESC");
+      case SIMILARITY -> query
+          .append("ORDER BY similarity ")
+          .append(bestFirst(metric))
+          .append(", rrf_score DESC");
+      case DATE_RANK -> query.append("ORDER BY date_rank DESC, rrf_score DESC");
+      case DEFAULT -> query.append("ORDER BY rrf_score DESC");
+      default -> throw new IllegalArgumentException("Invalid orderRRFBy value");
+    }
 
-      query
-          .append("CASE ")
-          .append("WHEN svtm.document_date IS NULL THEN 0 ") // Null date handling
-          .append(
-              "ELSE EXTRACT(YEAR FROM svtm.document_date) * 365 + EXTRACT(DOY FROM"
-                  + " svtm.document_date) ")
-          .append("END AS date_rank ")
-          .append("FROM ")
-          .append(
-              String.format(
-                  "(SELECT id, raw_text, embedding, tsv, namespace, filename, timestamp from %s"
-                      + " WHERE namespace = '%s'",
-                  tableName, namespace));
-
-      switch (metric) {
-        case COSINE -> query
-            .append(" ORDER BY embedding <=> ")
-            .append("'")
-            .append(embeddings)
-            .append("'")
-            .append(" LIMIT ")
-            .append(topK);
-        case IP -> query
-            .append(" ORDER BY embedding <#> ")
-            .append("'")
-            .append(embeddings)
-            .append("'")
-            .append(" LIMIT ")
-            .append(topK);
-        case L2 -> query
-            .append(" ORDER BY embedding <-> ")
-            .append("'")
-            .append(embeddings)
-            .append("'")
-            .append(" LIMIT ")
-            .append(topK);
-        default -> throw new IllegalArgumentException("Invalid metric: " + metric);
-      }
-      query
-          .append(")")
-          .append(" sv ")
-          .append("JOIN ")
-          .append(tableName.concat("_join_").concat(metadataTableName))
-          .append(" jtm ON sv.id = jtm.id ")
-          .append("JOIN ")
-          .append(tableName.concat("_").concat(metadataTableName))
-          .append(" svtm ON jtm.metadata_id = svtm.metadata_id ")
-          .append(") subquery ");
-
-      switch (orderRRFBy) {
-        case TEXT_RANK -> query.append("ORDER BY text_rank DESC, rrf_score DESC");
-        case SIMILARITY -> query.append("ORDER BY similarity DESC, rrf_score DESC");
-        case DATE_RANK -> query.append("ORDER BY date_rank DESC, rrf_score DESC");
-        case DEFAULT -> query.append("ORDER BY rrf_score DESC");
-        default -> throw new IllegalArgumentException("Invalid orderRRFBy value");
-      }
+    query.append(" LIMIT ").append(topK);
 
-      query.append(" LIMIT ").append(topK).append(")");
-      if (i < values.size() - 1) {
-        query.append(" UNION ALL  ").append("\n");
-      }
+    if (!multiVector) {
+      PostgresVector embeddings = new PostgresVector(values.get(0));
+      return jdbcTemplate.queryForList(
+          query.toString(), language.getValue(), searchQuery, embeddings, namespace, embeddings);
     }
 
-    if (values.size() > 1) {
-      return jdbcTemplate.queryForList(
-          String.format(
-              "SELECT * FROM (SELECT DISTINCT ON (result.id) * FROM ( %s ) result) subquery ORDER"
-                  + " BY rrf_score DESC LIMIT %s;",
-              query, upperLimit));
-    } else {
-      return jdbcTemplate.queryForList(query.toString());
+    return queryMultiVector(
+        String.format(
+            "SELECT * FROM (SELECT DISTINCT ON (r.id) r.* FROM unnest(?::text[]) AS q(vec)"
+                + " CROSS JOIN LATERAL (%s) r ORDER BY r.id, r.rrf_score DESC) subquery"
+                + " ORDER BY rrf_score DESC LIMIT %s;",
+            query, upperLimit),
+        values,
+        language.getValue(),
+        searchQuery,
+        namespace);
+  }
+
+  /** Vector leg of the hybrid search: id, similarity and document_date of the ANN top-K. */
+  @Transactional(readOnly = true, propagation = Propagation.REQUIRED)
+  public List<Map<String, Object>> queryVectorCandidates(
+      String tableName,
+      String namespace,
+      String metadataTableName,
+      int probes,
+      int efSearch,
+      PostgresDistanceMetric metric,
+      List<List<Float>> values,
+      int topK) {
+
+    setSearchParameters(probes, efSearch);
+
+    boolean multiVector = values.size() > 1;
+    String vector = multiVector ? MULTI_VECTOR_REF : "?";
+
+    String search =
+        String.format(
+            "SELECT sv.id, sv.similarity, svtm.document_date FROM (SELECT id, %s AS similarity"
+                + " FROM %s WHERE namespace = ? ORDER BY embedding %s %s LIMIT %s) sv"
+                + " JOIN %s jtm ON sv.id = jtm.id JOIN %s svtm ON jtm.metadata_id ="
+                + " svtm.metadata_id",
+            scoreExpression(metric, "embedding", vector),
+            tableName,
+            PostgresDistanceMetric.getDistanceMetric(metric),
+            vector,
+            topK,
+            tableName.concat("_join_").concat(metadataTableName),
+            tableName.concat("_").concat(metadataTableName));
+
+    if (!multiVector) {
+      PostgresVector embeddings = new PostgresVector(values.get(0));
+      return jdbcTemplate.queryForList(search, embeddings, namespace, embeddings);
     }
+
+    return queryMultiVector(
+        String.format(
+            "SELECT DISTINCT ON (r.id) r.* FROM unnest(?::text[]) AS q(vec) CROSS JOIN LATERAL"
+                + " (%s) r ORDER BY r.id, r.similarity %s;",
+            search, bestFirst(metric)),
+        values,
+        namespace);
+  }
+
+  /** Full-text leg of the hybrid search, served by the GIN index on tsv. */
+  @Transactional(readOnly = true, propagation = Propagation.REQUIRED)
+  public List<Map<String, Object>> queryTextCandidates(
+      String tableName,
+      String namespace,
+      String metadataTableName,
+      String searchQuery,
+      PostgresLanguage language,
+      int topK) {
+
+    return jdbcTemplate.queryForList(
+        String.format(
+            "SELECT sv.id, sv.text_rank, svtm.document_date FROM (SELECT id, ts_rank_cd(tsv,"
+                + " query) AS text_rank FROM %s, plainto_tsquery(?::regconfig, ?) query WHERE"
+                + " namespace = ? AND tsv @@ query ORDER BY text_rank DESC LIMIT %s) sv JOIN %s"
+                + " jtm ON sv.id = jtm.id JOIN %s svtm ON jtm.metadata_id = svtm.metadata_id;",
+            tableName,
+            topK,
+            tableName.concat("_join_").concat(metadataTableName),
+            tableName.concat("_").concat(metadataTableName)),
+        language.getValue(),
+        searchQuery,
+        namespace);
+  }
+
+  /** Rows and metadata of the fused winners of a hybrid search, in no particular order. */
+  @Transactional(readOnly = true, propagation = Propagation.REQUIRED)
+  public List<Map<String, Object>> queryByIds(
+      String tableName, String metadataTableName, List<String> ids, boolean includeValues) {
+
+    return queryWithArray(
+        String.format(
+            "SELECT e.id, e.raw_text, %se.namespace, e.filename, e.timestamp, svtm.document_date,"
+                + " svtm.metadata FROM %s e JOIN %s jtm ON e.id = jtm.id JOIN %s svtm ON"
+                + " jtm.metadata_id = svtm.metadata_id WHERE e.id = ANY(?);",
+            includeValues ? "e.embedding, " : "",
+            tableName,
+            tableName.concat("_join_").concat(metadataTableName),
+            tableName.concat("_").concat(metadataTableName)),
+        "uuid",
+        ids.stream().map(UUID::fromString).toArray());
+  }
+
+  /**
+   * Runs a LATERAL multi-vector search: the query vectors are bound as the first parameter (one
+   * text[] of pgvector literals), followed by the remaining arguments.
+   */
+  private List<Map<String, Object>> queryMultiVector(
+      String sql, List<List<Float>> values, Object... args) {
+
+    String[] vectors =
+        values.stream()
+            .map(v -> PostgresVector.format(FloatUtils.toFloatArray(v)))
+            .toArray(String[]::new);
+
+    return queryWithArray(sql, "text", vectors, args);
+  }
+
+  /** Binds the array as the first parameter and the remaining arguments after it. */
+  private List<Map<String, Object>> queryWithArray(
+      String sql, String arrayType, Object[] array, Object... args) {
+
+    return jdbcTemplate.query(
+        sql,
+        ps -> {
+          ps.setArray(1, ps.getConnection().createArrayOf(arrayType, array));
+          for (int i = 0; i < args.length; i++) {
+            StatementCreatorUtils.setParameterValue(
+                ps, i + 2, SqlTypeValue.TYPE_UNKNOWN, args[i]);
+          }
+        },
+        new ColumnMapRowMapper());
   }
 
   @Transactional(readOnly = true)
@@ -384,9 +653,278 @@ public class PostgresClientRepository {
             endpoint.getTableName(), endpoint.getFilename()));
   }
 
+  /**
+   * Streams the chunks of a file through a server-side cursor: the rows are fetched fetchSize at a
+   * time on a dedicated connection (autocommit off) as the subscriber requests them, so memory
+   * stays constant however large the file is. The connection is released on completion, error or
+   * cancellation.
+   */
+  public Flowable<Map<String, Object>> streamAllChunks(PostgresEndpoint endpoint, int fetchSize) {
+    String sql =
+        String.format(
+            "SELECT id, raw_text, embedding, filename from %s WHERE filename = ?;",
+            endpoint.getTableName());
+
+    return Flowable.generate(
+        () ->
+            Cursor.open(
+                Objects.requireNonNull(jdbcTemplate.getDataSource()),
+                sql,
+                fetchSize,
+                endpoint.getFilename()),
+        (cursor, emitter) -> {
+          if (cursor.next()) {
+            emitter.onNext(cursor.row());
+          } else {
+            emitter.onComplete();
+          }
+        },
+        Cursor::close);
+  }
+
+  /** Creates the partition holding the namespace's rows of a namespace-partitioned table. */
+  @Transactional
+  public void createPartition(String tableName, String namespace) {
+    jdbcTemplate.execute(
+        String.format(
+            "CREATE TABLE IF NOT EXISTS %s PARTITION OF %s FOR VALUES IN ('%s');",
+            partitionName(tableName, namespace), tableName, namespace.replace("'", "''")));
+  }
+
+  /**
+   * Removes the namespace's rows. On a namespace-partitioned table the namespace's partition is
+   * truncated, which is instant and leaves no dead tuples behind, instead of deleting row by row.
+   * The partition stays attached: other instances remember it as created and keep upserting into
+   * it. The join tables of a partitioned table have no cascading foreign key to it, so their rows
+   * of the partition are deleted first, in the same transaction.
+   */
   @Transactional
   public void deleteAll(String tableName, String namespace) {
+    if (isPartitioned(tableName)) {
+      String partition = partitionName(tableName, namespace);
+      String exists =
+          jdbcTemplate.queryForObject("SELECT to_regclass(?)::text;", String.class, partition);
+      if (Objects.isNull(exists)) return;
+
+      for (String joinTable : getJoinTables(tableName)) {
+        jdbcTemplate.execute(
+            String.format("DELETE FROM %s WHERE id IN (SELECT id FROM %s);", joinTable, partition));
+      }
+      jdbcTemplate.execute(String.format("TRUNCATE TABLE %s;", partition));
+    } else {
+      jdbcTemplate.update(
+          String.format("delete from %s where namespace = ?", tableName), namespace);
+    }
+  }
+
+  /** Deletes the file's rows of the given chunks, e.g. chunks which disappeared from the file. */
+  @Transactional
+  public int deleteChunks(
+      String tableName,
+      String namespace,
+      String filename,
+      List<String> chunks,
+      boolean digestKey) {
+    // raw_text is stored without single quotes, see upsertEmbeddings
+    List<String> rawTexts = chunks.stream().map(c -> c.replace("'", "")).toList();
+
+    return jdbcTemplate.update(
+        con -> {
+          PreparedStatement ps =
+              con.prepareStatement(
+                  String.format(
+                      "DELETE FROM %s WHERE namespace = ? AND filename = ? AND %s = ANY(?);",
+                      tableName, digestKey ? "digest" : "raw_text"));
+          ps.setString(1, namespace);
+          ps.setString(2, filename);
+          ps.setArray(
+              3,
+              digestKey
+                  ? con.createArrayOf(
+                      "bytea",
+                      rawTexts.stream()
+                          .map(PostgresClientRepository::digest)
+                          .toArray(byte[][]::new))
+                  : con.createArrayOf("text", rawTexts.toArray()));
+          return ps;
+        });
+  }
+
+  /**
+   * Migrates a table created with the raw_text unique key to the digest key: adds and fills the
+   * digest column, builds its unique index and drops the unique constraint on raw_text. The
+   * backfill rewrites every row, so run it in a maintenance window on large tables.
+   */
+  @Transactional
+  public void migrateToDigestKey(String tableName) {
+    boolean partitioned = isPartitioned(tableName);
+
+    jdbcTemplate.execute(
+        String.format("ALTER TABLE %s ADD COLUMN IF NOT EXISTS digest BYTEA;", tableName));
+    // the same digest as digest(String): SHA-256 of the UTF-8 bytes of raw_text
+    jdbcTemplate.execute(
+        String.format(
+            "UPDATE %s SET digest = sha256(convert_to(raw_text, 'UTF8')) WHERE digest IS NULL;",
+            tableName));
+    jdbcTemplate.execute(
+        String.format("ALTER TABLE %s ALTER COLUMN digest SET NOT NULL;", tableName));
     jdbcTemplate.execute(
-        String.format("delete from %s where namespace='%s'", tableName, namespace));
+        String.format(
+            "CREATE UNIQUE INDEX IF NOT EXISTS %s ON %s (%s);",
+            tableName.concat("_digest_key"),
+            tableName,
+            conflictTarget(partitioned, true)));
+
+    List<String> rawTextConstraints =
+        jdbcTemplate.queryForList(
+            "SELECT c.conname FROM pg_constraint c JOIN pg_attribute a ON a.attrelid ="
+                + " c.conrelid AND a.attnum = ANY(c.conkey) WHERE c.conrelid = ?::regclass AND"
+                + " c.contype = 'u' AND a.attname = 'raw_text';",
+            String.class,
+            tableName);
+    for (String constraint : rawTextConstraints) {
+      jdbcTemplate.execute(
+          String.format("ALTER TABLE %s DROP CONSTRAINT IF EXISTS %s;", tableName, constraint));
+    }
+  }
+
+  /** Join tables of the table's metadata tables, named {@code <table>_join_<metadata table>}. */
+  public List<String> getJoinTables(String tableName) {
+    // underscores are LIKE wildcards
+    String prefix = tableName.replace("_", "\\_");
+    return jdbcTemplate.queryForList(
+        "SELECT table_name FROM information_schema.tables WHERE table_schema = current_schema()"
+            + " AND table_name LIKE ?;",
+        String.class,
+        prefix + "\\_join\\_%");
+  }
+
+  public boolean isPartitioned(String tableName) {
+    Integer count =
+        jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM pg_partitioned_table pt JOIN pg_class c ON pt.partrelid = c.oid"
+                + " WHERE c.relname = ?",
+            Integer.class,
+            tableName);
+    return count != null && count > 0;
+  }
+
+  /**
+   * Partition of the namespace: the namespace itself is free text, so the name is derived from a
+   * hash of it to stay a valid identifier within Postgres' 63 character limit.
+   */
+  public static String partitionName(String tableName, String namespace) {
+    String hash =
+        DigestUtils.md5DigestAsHex(namespace.getBytes(StandardCharsets.UTF_8)).substring(0, 12);
+    String prefix = tableName.length() > 47 ? tableName.substring(0, 47) : tableName;
+    return prefix + "_ns_" + hash;
+  }
+
+  private String conflictTarget(boolean partitioned, boolean digestKey) {
+    String key = digestKey ? "digest" : "raw_text";
+    return partitioned ? key + ", namespace" : key;
+  }
+
+  /** SHA-256 of the UTF-8 bytes of the raw text, the key of a digest-keyed table. */
+  public static byte[] digest(String rawText) {
+    try {
+      return MessageDigest.getInstance("SHA-256")
+          .digest(rawText.getBytes(StandardCharsets.UTF_8));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * SET LOCAL only lasts until the end of the current transaction, so callers must run inside one;
+   * otherwise the setting is discarded before the search statement executes.
+   */
+  private void setSearchParameters(int probes, int efSearch) {
+    jdbcTemplate.execute(String.format("SET LOCAL ivfflat.probes = %s;", probes));
+    if (efSearch > 0) {
+      jdbcTemplate.execute(String.format("SET LOCAL hnsw.ef_search = %s;", efSearch));
+    }
+  }
+
+  /**
+   * Score expression for the metric; vector is either a bound parameter ("?") or the current
+   * element of the multi-vector array.
+   */
+  private String scoreExpression(PostgresDistanceMetric metric, String column, String vector) {
+    return switch (metric) {
+      case COSINE -> String.format("1 - (%s <=> %s)", column, vector);
+      case IP -> String.format("(%s <#> %s) * -1", column, vector);
+      case L2 -> String.format("%s <-> %s", column, vector);
+    };
+  }
+
+  /** Sort direction putting the best score first: the L2 score is a distance, lower is closer. */
+  private String bestFirst(PostgresDistanceMetric metric) {
+    return PostgresDistanceMetric.L2.equals(metric) ? "ASC" : "DESC";
+  }
+
+  /** Forward-only result set held open across emissions of a streaming read. */
+  private static final class Cursor implements AutoCloseable {
+
+    private final Connection connection;
+    private final PreparedStatement statement;
+    private final ResultSet resultSet;
+    private final ColumnMapRowMapper rowMapper = new ColumnMapRowMapper();
+    private int rowNum;
+
+    private Cursor(Connection connection, PreparedStatement statement, ResultSet resultSet) {
+      this.connection = connection;
+      this.statement = statement;
+      this.resultSet = resultSet;
+    }
+
+    static Cursor open(DataSource dataSource, String sql, int fetchSize, Object... args)
+        throws SQLException {
+      Connection connection = dataSource.getConnection();
+      try {
+        // pgjdbc only uses a cursor (instead of reading the whole result) with autocommit off
+        connection.setAutoCommit(false);
+        connection.setReadOnly(true);
+
+        PreparedStatement statement =
+            connection.prepareStatement(
+                sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        statement.setFetchSize(fetchSize);
+        for (int i = 0; i < args.length; i++) {
+          StatementCreatorUtils.setParameterValue(
+              statement, i + 1, SqlTypeValue.TYPE_UNKNOWN, args[i]);
+        }
+        return new Cursor(connection, statement, statement.executeQuery());
+      } catch (SQLException | RuntimeException e) {
+        release(connection);
+        throw e;
+      }
+    }
+
+    boolean next() throws SQLException {
+      return resultSet.next();
+    }
+
+    Map<String, Object> row() throws SQLException {
+      return rowMapper.mapRow(resultSet, rowNum++);
+    }
+
+    @Override
+    public void close() {
+      JdbcUtils.closeResultSet(resultSet);
+      JdbcUtils.closeStatement(statement);
+      release(connection);
+    }
+
+    private static void release(Connection connection) {
+      try {
+        connection.rollback();
+        connection.setReadOnly(false);
+        connection.setAutoCommit(true);
+      } catch (SQLException ignored) {
+        // the pool validates the connection before handing it out again
+      }
+      JdbcUtils.closeConnection(connection);
+    }
   }
 }
@@ -5,15 +5,13 @@ import com.edgechain.lib.retrofit.client.RetrofitClientInstance;
 import com.edgechain.lib.retrofit.logger.ChatCompletionLoggerService;
 import org.springframework.data.domain.Page;
 import org.springframework.web.bind.annotation.PathVariable;
-import retrofit2.Retrofit;
 
 import java.util.HashMap;
 
 public class ChatCompletionLogger {
 
-  private final Retrofit retrofit = RetrofitClientInstance.getInstance();
   private final ChatCompletionLoggerService chatCompletionLoggerService =
-      retrofit.create(ChatCompletionLoggerService.class);
+      RetrofitClientInstance.create(ChatCompletionLoggerService.class);
 
   public ChatCompletionLogger() {}
 
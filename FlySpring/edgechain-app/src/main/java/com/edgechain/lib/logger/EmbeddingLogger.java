@@ -6,13 +6,11 @@ import com.edgechain.lib.retrofit.logger.EmbeddingLoggerService;
 import java.util.HashMap;
 import org.springframework.data.domain.Page;
 import org.springframework.web.bind.annotation.PathVariable;
-import retrofit2.Retrofit;
 
 public class EmbeddingLogger {
 
-  private final Retrofit retrofit = RetrofitClientInstance.getInstance();
   private final EmbeddingLoggerService embeddingLoggerService =
-      retrofit.create(EmbeddingLoggerService.class);
+      RetrofitClientInstance.create(EmbeddingLoggerService.class);
 
   public EmbeddingLogger() {}
 
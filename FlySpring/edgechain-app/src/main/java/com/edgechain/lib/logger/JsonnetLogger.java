@@ -6,13 +6,11 @@ import java.util.HashMap;
 
 import com.edgechain.lib.retrofit.logger.JsonnetLoggerService;
 import org.springframework.data.domain.Page;
-import retrofit2.Retrofit;
 
 public class JsonnetLogger {
 
-  private final Retrofit retrofit = RetrofitClientInstance.getInstance();
   private final JsonnetLoggerService jsonnetLoggerService =
-      retrofit.create(JsonnetLoggerService.class);
+      RetrofitClientInstance.create(JsonnetLoggerService.class);
 
   public JsonnetLogger() {}
 
@@ -1,5 +1,6 @@
 package com.edgechain.lib.logger.services;
 
+import com.edgechain.lib.configuration.PostgreSQLSchemaRegistry;
 import com.edgechain.lib.logger.entities.ChatCompletionLog;
 import com.edgechain.lib.logger.repositories.ChatCompletionLogRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,9 +15,10 @@ public class ChatCompletionLogService {
 
   @Autowired private ChatCompletionLogRepository chatCompletionLogRepository;
   @Autowired private JdbcTemplate jdbcTemplate;
+  @Autowired private PostgreSQLSchemaRegistry schemaRegistry;
 
   public ChatCompletionLog saveOrUpdate(ChatCompletionLog chatCompletionLog) {
-    this.createTable();
+    schemaRegistry.ensure("chat_completion_logs", this::createTable);
     return chatCompletionLogRepository.save(chatCompletionLog);
   }
 
@@ -1,5 +1,6 @@
 package com.edgechain.lib.logger.services;
 
+import com.edgechain.lib.configuration.PostgreSQLSchemaRegistry;
 import com.edgechain.lib.logger.entities.EmbeddingLog;
 import com.edgechain.lib.logger.repositories.EmbeddingLogRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,10 +15,11 @@ public class EmbeddingLogService {
 
   @Autowired private EmbeddingLogRepository embeddingLogRepository;
   @Autowired private JdbcTemplate jdbcTemplate;
+  @Autowired private PostgreSQLSchemaRegistry schemaRegistry;
 
   @Transactional
   public EmbeddingLog saveOrUpdate(EmbeddingLog embeddingLog) {
-    this.createTable();
+    schemaRegistry.ensure("embedding_logs", this::createTable);
     return this.embeddingLogRepository.save(embeddingLog);
   }
 
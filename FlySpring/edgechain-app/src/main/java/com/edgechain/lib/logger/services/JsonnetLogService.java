@@ -1,5 +1,6 @@
 package com.edgechain.lib.logger.services;
 
+import com.edgechain.lib.configuration.PostgreSQLSchemaRegistry;
 import com.edgechain.lib.logger.entities.JsonnetLog;
 import com.edgechain.lib.logger.repositories.JsonnetLogRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,9 +15,10 @@ public class JsonnetLogService {
 
   @Autowired private JsonnetLogRepository jsonnetLogRepository;
   @Autowired private JdbcTemplate jdbcTemplate;
+  @Autowired private PostgreSQLSchemaRegistry schemaRegistry;
 
   public JsonnetLog saveOrUpdate(JsonnetLog jsonnetLog) {
-    this.createTable();
+    schemaRegistry.ensure("jsonnet_logs", this::createTable);
     return jsonnetLogRepository.save(jsonnetLog);
   }
 
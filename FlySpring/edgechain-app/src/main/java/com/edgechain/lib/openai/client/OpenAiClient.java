@@ -1,8 +1,11 @@
 package com.edgechain.lib.openai.client;
 
 import com.edgechain.lib.constants.EndpointConstants;
+import com.edgechain.lib.embeddings.request.OpenAiBatchEmbeddingRequest;
 import com.edgechain.lib.embeddings.request.OpenAiEmbeddingRequest;
+import com.edgechain.lib.embeddings.response.OpenAiEmbedding;
 import com.edgechain.lib.embeddings.response.OpenAiEmbeddingResponse;
+import com.edgechain.lib.embeddings.response.Usage;
 import com.edgechain.lib.endpoint.impl.embeddings.OpenAiEmbeddingEndpoint;
 import com.edgechain.lib.endpoint.impl.llm.OpenAiChatEndpoint;
 import com.edgechain.lib.openai.request.ChatCompletionRequest;
@@ -11,6 +14,9 @@ import com.edgechain.lib.openai.response.ChatCompletionResponse;
 import com.edgechain.lib.openai.response.CompletionResponse;
 import com.edgechain.lib.rxjava.transformer.observable.EdgeChain;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingType;
 import io.reactivex.rxjava3.core.Observable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,6 +26,9 @@ import org.springframework.web.client.RestTemplate;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.adapter.rxjava.RxJava3Adapter;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Objects;
 
 @Service
@@ -28,6 +37,10 @@ public class OpenAiClient {
   private final Logger logger = LoggerFactory.getLogger(getClass());
   private final RestTemplate restTemplate = new RestTemplate();
 
+  // tokenizer of the embedding models, to pack batch requests within the API's token limit
+  private static final Encoding EMBEDDING_ENCODING =
+      Encodings.newDefaultEncodingRegistry().getEncoding(EncodingType.CL100K_BASE);
+
   public EdgeChain<ChatCompletionResponse> createChatCompletion(
       ChatCompletionRequest request, OpenAiChatEndpoint endpoint) {
 
@@ -151,4 +164,79 @@ public class OpenAiClient {
             }),
         endpoint);
   }
+
+  /**
+   * Embeds the inputs with as few API calls as the per-request limits allow (2048 inputs, 300k
+   * tokens), instead of one call per input. The responses are merged into one, with the data in
+   * input order and the usage summed.
+   */
+  public EdgeChain<OpenAiEmbeddingResponse> createEmbeddings(
+      List<String> inputs, OpenAiEmbeddingEndpoint endpoint) {
+    return new EdgeChain<>(
+        Observable.create(
+            emitter -> {
+              try {
+                HttpHeaders headers = new HttpHeaders();
+                headers.setContentType(MediaType.APPLICATION_JSON);
+                headers.setBearerAuth(endpoint.getApiKey());
+                if (Objects.nonNull(endpoint.getOrgId()) && !endpoint.getOrgId().isEmpty()) {
+                  headers.set("OpenAI-Organization", endpoint.getOrgId());
+                }
+
+                List<OpenAiBatchEmbeddingRequest> requests =
+                    OpenAiBatchEmbeddingRequest.pack(
+                        endpoint.getModel(),
+                        inputs,
+                        EMBEDDING_ENCODING::countTokens,
+                        OpenAiBatchEmbeddingRequest.MAX_INPUTS,
+                        OpenAiBatchEmbeddingRequest.MAX_TOKENS);
+
+                OpenAiEmbeddingResponse merged = new OpenAiEmbeddingResponse();
+                merged.setData(new ArrayList<>(inputs.size()));
+                merged.setUsage(new Usage());
+
+                int offset = 0;
+                for (OpenAiBatchEmbeddingRequest request : requests) {
+                  HttpEntity<OpenAiBatchEmbeddingRequest> entity =
+                      new HttpEntity<>(request, headers);
+
+                  OpenAiEmbeddingResponse response =
+                      Objects.requireNonNull(
+                          this.restTemplate
+                              .exchange(
+                                  endpoint.getUrl(),
+                                  HttpMethod.POST,
+                                  entity,
+                                  OpenAiEmbeddingResponse.class)
+                              .getBody());
+
+                  // data carries the index within its request; shift it to the index in inputs
+                  List<OpenAiEmbedding> data = new ArrayList<>(response.getData());
+                  data.sort(Comparator.comparing(OpenAiEmbedding::getIndex));
+                  for (OpenAiEmbedding embedding : data) {
+                    embedding.setIndex(embedding.getIndex() + offset);
+                    merged.getData().add(embedding);
+                  }
+                  offset += request.getInput().size();
+
+                  merged.setModel(response.getModel());
+                  merged.setObject(response.getObject());
+                  if (Objects.nonNull(response.getUsage())) {
+                    Usage usage = merged.getUsage();
+                    usage.setPrompt_tokens(
+                        usage.getPrompt_tokens() + response.getUsage().getPrompt_tokens());
+                    usage.setTotal_tokens(
+                        usage.getTotal_tokens() + response.getUsage().getTotal_tokens());
+                  }
+                }
+
+                emitter.onNext(merged);
+                emitter.onComplete();
+
+              } catch (final Exception e) {
+                emitter.onError(e);
+              }
+            }),
+        endpoint);
+  }
 }
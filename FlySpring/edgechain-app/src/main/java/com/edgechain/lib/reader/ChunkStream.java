@@ -0,0 +1,121 @@
+package com.edgechain.lib.reader;
+
+import com.edgechain.lib.chunk.StreamingChunker;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.disposables.Disposable;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import java.io.InputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.sax.BodyContentHandler;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Streams the chunks of a document while it is parsed. The parser pushes the body text through a
+ * {@link StreamingChunker} into a small bounded queue, from which the chunks are emitted as they
+ * are requested: a slow subscriber pauses the parser instead of letting chunks pile up, so memory
+ * doesn't grow with the document. The document itself is never held as one string.
+ */
+public final class ChunkStream {
+
+  // chunks parsed ahead of the subscriber
+  private static final int QUEUE_CAPACITY = 16;
+
+  private ChunkStream() {}
+
+  /**
+   * Returns the chunks of the document; it is parsed, on an io thread, once subscribed. The input
+   * stream is read once and isn't closed.
+   *
+   * @param chunker creates the chunker of the document, given the consumer of its chunks
+   */
+  public static Flowable<String> parse(
+      Parser parser,
+      InputStream inputStream,
+      Function<Consumer<String>, StreamingChunker> chunker) {
+    return Flowable.generate(
+        () -> new Producer(parser, inputStream, chunker),
+        (producer, emitter) -> {
+          Object next = producer.queue.take();
+          if (next == Producer.END) emitter.onComplete();
+          else if (next instanceof Throwable error) emitter.onError(error);
+          else emitter.onNext((String) next);
+        },
+        Producer::cancel);
+  }
+
+  private static final class Producer {
+
+    private static final Object END = new Object();
+
+    private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Disposable task;
+
+    private volatile boolean cancelled;
+
+    Producer(
+        Parser parser,
+        InputStream inputStream,
+        Function<Consumer<String>, StreamingChunker> chunker) {
+      this.task =
+          Schedulers.io()
+              .scheduleDirect(
+                  () -> {
+                    Object last = END;
+                    try {
+                      StreamingChunker streamingChunker = chunker.apply(this::put);
+                      parser.parse(
+                          inputStream,
+                          new BodyContentHandler(new ChunkingHandler(streamingChunker)),
+                          new Metadata(),
+                          new ParseContext());
+                      streamingChunker.finish();
+                    } catch (final Exception e) {
+                      last = e;
+                    }
+                    if (!cancelled) put(last);
+                  });
+    }
+
+    private void put(Object next) {
+      try {
+        queue.put(next);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new CancellationException("Chunk stream cancelled");
+      }
+    }
+
+    void cancel() {
+      cancelled = true;
+      task.dispose();
+      queue.clear();
+    }
+  }
+
+  /** Forwards the body text, including the whitespace between paragraphs, to the chunker. */
+  private static final class ChunkingHandler extends DefaultHandler {
+
+    private final StreamingChunker chunker;
+
+    ChunkingHandler(StreamingChunker chunker) {
+      this.chunker = chunker;
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+      chunker.append(ch, start, length);
+    }
+
+    @Override
+    public void ignorableWhitespace(char[] ch, int start, int length) {
+      chunker.append(ch, start, length);
+    }
+  }
+}
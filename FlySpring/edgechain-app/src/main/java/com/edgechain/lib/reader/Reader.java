@@ -1,7 +1,14 @@
 package com.edgechain.lib.reader;
 
+import com.edgechain.lib.chunk.Chunker;
+import com.edgechain.lib.chunk.StreamingChunker;
 import com.edgechain.lib.chunk.enums.LangType;
+import io.reactivex.rxjava3.core.Flowable;
+import opennlp.tools.sentdetect.SentenceModel;
+import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.Parser;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
 
@@ -17,4 +24,41 @@ public abstract class Reader implements Serializable {
 
   public abstract String[] readBySentence(
       InputStream modelInputStream, InputStream fileInputStream);
+
+  /**
+   * Streams the chunks of {@link #readByChunkSize} as the document is parsed, in constant memory
+   * (see {@link ChunkStream}); large documents should be read this way.
+   */
+  public Flowable<String> streamByChunkSize(InputStream inputStream, int chunkSize) {
+    return ChunkStream.parse(
+        getParser(), inputStream, chunks -> StreamingChunker.bySize(chunkSize, chunks));
+  }
+
+  /** Streams the sentences of {@link #readBySentence(LangType, InputStream)}. */
+  public Flowable<String> streamBySentence(LangType langType, InputStream fileInputStream) {
+    return ChunkStream.parse(
+        getParser(),
+        fileInputStream,
+        chunks -> StreamingChunker.bySentence(Chunker.sentenceModel(langType), chunks));
+  }
+
+  /** Streams the sentences of {@link #readBySentence(InputStream, InputStream)}. */
+  public Flowable<String> streamBySentence(
+      InputStream modelInputStream, InputStream fileInputStream) {
+    return ChunkStream.parse(
+        getParser(),
+        fileInputStream,
+        chunks -> {
+          try {
+            return StreamingChunker.bySentence(new SentenceModel(modelInputStream), chunks);
+          } catch (IOException e) {
+            throw new RuntimeException(e);
+          }
+        });
+  }
+
+  /** The parser of the documents read by the streaming methods. */
+  protected Parser getParser() {
+    return new AutoDetectParser();
+  }
 }
@@ -0,0 +1,116 @@
+package com.edgechain.lib.reader.impl;
+
+import com.edgechain.lib.chunk.PageChunk;
+import com.edgechain.lib.chunk.StreamingChunker;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+/**
+ * Extracts the text of a PDF in page ranges, concurrently on a fork-join pool, then chunks the
+ * pages in order as one text, keeping the pages every chunk was taken from.
+ *
+ * <p>A PDF document isn't thread-safe, so each range opens its own copy from the bytes of the file,
+ * which PDFBox parses lazily; memory grows with the number of ranges extracted at once.
+ */
+public class ParallelPdfExtractor {
+
+  // ranges per worker when the range size isn't set, to even out pages of different weight
+  private static final int RANGES_PER_WORKER = 4;
+
+  private final ForkJoinPool pool;
+  private final int pagesPerRange;
+
+  /** Uses the common pool, with ranges sized to the pool's parallelism. */
+  public ParallelPdfExtractor() {
+    this(ForkJoinPool.commonPool(), 0);
+  }
+
+  /**
+   * @param pagesPerRange pages extracted by one task; 0 sizes the ranges to the pool's parallelism
+   */
+  public ParallelPdfExtractor(ForkJoinPool pool, int pagesPerRange) {
+    this.pool = pool;
+    this.pagesPerRange = pagesPerRange;
+  }
+
+  /** Chunks the PDF by {@code chunkSize} characters, as {@link PdfReader#readByChunkSize}. */
+  public List<PageChunk> readByChunkSize(InputStream inputStream, int chunkSize) {
+    List<String> pages = extractPages(inputStream);
+
+    List<PageChunk> chunks = new ArrayList<>();
+    int[] startPage = {1};
+    int[] page = {1};
+    StreamingChunker chunker =
+        StreamingChunker.bySize(
+            chunkSize,
+            chunk -> {
+              chunks.add(new PageChunk(chunk, startPage[0], page[0]));
+              // the text left over belongs to the current page
+              startPage[0] = page[0];
+            });
+
+    for (; page[0] <= pages.size(); page[0]++) {
+      if (!chunker.hasPending()) startPage[0] = page[0];
+      chunker.append(pages.get(page[0] - 1));
+    }
+    page[0] = pages.size();
+    chunker.finish();
+    return chunks;
+  }
+
+  /** Returns the text of every page, in page order. */
+  public List<String> extractPages(InputStream inputStream) {
+    byte[] pdf;
+    int pageCount;
+    try {
+      pdf = inputStream.readAllBytes();
+      try (PDDocument document = PDDocument.load(pdf)) {
+        pageCount = document.getNumberOfPages();
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    int rangeSize =
+        pagesPerRange > 0
+            ? pagesPerRange
+            : Math.max(
+                1,
+                (int) Math.ceil((double) pageCount / (pool.getParallelism() * RANGES_PER_WORKER)));
+
+    List<ForkJoinTask<List<String>>> ranges = new ArrayList<>();
+    for (int first = 1; first <= pageCount; first += rangeSize) {
+      int from = first;
+      int to = Math.min(first + rangeSize - 1, pageCount);
+      ranges.add(pool.submit(() -> extractRange(pdf, from, to)));
+    }
+
+    List<String> pages = new ArrayList<>(pageCount);
+    for (ForkJoinTask<List<String>> range : ranges) {
+      pages.addAll(range.join());
+    }
+    return pages;
+  }
+
+  private static List<String> extractRange(byte[] pdf, int from, int to) {
+    try (PDDocument document = PDDocument.load(pdf)) {
+      PDFTextStripper stripper = new PDFTextStripper();
+      List<String> pages = new ArrayList<>(to - from + 1);
+      for (int page = from; page <= to; page++) {
+        stripper.setStartPage(page);
+        stripper.setEndPage(page);
+        pages.add(stripper.getText(document));
+      }
+      return pages;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
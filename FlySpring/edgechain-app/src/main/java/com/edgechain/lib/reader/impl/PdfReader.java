@@ -1,16 +1,19 @@
 package com.edgechain.lib.reader.impl;
 
 import com.edgechain.lib.chunk.Chunker;
+import com.edgechain.lib.chunk.PageChunk;
 import com.edgechain.lib.chunk.enums.LangType;
 import com.edgechain.lib.reader.Reader;
 import me.xuender.unidecode.Unidecode;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
 import org.apache.tika.parser.pdf.PDFParser;
 import org.apache.tika.sax.BodyContentHandler;
 import org.springframework.stereotype.Service;
 
 import java.io.InputStream;
+import java.util.List;
 
 @Service
 public class PdfReader extends Reader {
@@ -68,4 +71,17 @@ public class PdfReader extends Reader {
       throw new RuntimeException(e.getMessage());
     }
   }
+
+  /**
+   * Extracts the pages in parallel ranges (see {@link ParallelPdfExtractor}) and chunks them in
+   * page order, with the pages of each chunk; for large documents on many cores.
+   */
+  public List<PageChunk> readPagesByChunkSize(InputStream inputStream, int chunkSize) {
+    return new ParallelPdfExtractor().readByChunkSize(inputStream, chunkSize);
+  }
+
+  @Override
+  protected Parser getParser() {
+    return new PDFParser();
+  }
 }
@@ -7,7 +7,7 @@ import me.xuender.unidecode.Unidecode;
 import org.apache.tika.exception.TikaException;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.parser.ParseContext;
-import org.apache.tika.parser.pdf.PDFParser;
+import org.apache.tika.parser.Parser;
 import org.apache.tika.parser.txt.TXTParser;
 import org.apache.tika.sax.BodyContentHandler;
 import org.springframework.stereotype.Service;
@@ -40,19 +40,19 @@ public class TextReader extends Reader {
 
   @Override
   public String[] readBySentence(LangType langType, InputStream fileInputStream) {
-    try {
-      BodyContentHandler contentHandler = new BodyContentHandler(-1);
-      Metadata data = new Metadata();
-      ParseContext context = new ParseContext();
-      PDFParser pdfparser = new PDFParser();
-      pdfparser.parse(fileInputStream, contentHandler, data, context);
+    BodyContentHandler contentHandler = new BodyContentHandler(-1);
+    Metadata metadata = new Metadata();
+    ParseContext parseContext = new ParseContext();
+    TXTParser txtParser = new TXTParser();
 
+    try {
+      txtParser.parse(fileInputStream, contentHandler, metadata, parseContext);
       Chunker chunker =
           new Chunker(Unidecode.decode(contentHandler.toString()).replaceAll("[\t\n\r]+", " "));
       return chunker.bySentence(langType);
 
-    } catch (final Exception e) {
-      throw new RuntimeException(e.getMessage());
+    } catch (IOException | SAXException | TikaException e) {
+      throw new RuntimeException(e);
     }
   }
 
@@ -73,4 +73,9 @@ public class TextReader extends Reader {
       throw new RuntimeException(e);
     }
   }
+
+  @Override
+  protected Parser getParser() {
+    return new TXTParser();
+  }
 }
@@ -3,10 +3,14 @@ package com.edgechain.lib.retrofit;
 import com.edgechain.lib.embeddings.bgeSmall.response.BgeSmallResponse;
 import com.edgechain.lib.endpoint.impl.embeddings.BgeSmallEndpoint;
 import io.reactivex.rxjava3.core.Single;
+import java.util.List;
 import retrofit2.http.Body;
 import retrofit2.http.POST;
 
 public interface BgeSmallService {
   @POST(value = "bgeSmall")
   Single<BgeSmallResponse> embeddings(@Body BgeSmallEndpoint bgeSmallEndpoint);
+
+  @POST(value = "bgeSmall/batch")
+  Single<List<BgeSmallResponse>> batchEmbeddings(@Body BgeSmallEndpoint bgeSmallEndpoint);
 }
@@ -4,6 +4,7 @@ import com.edgechain.lib.embeddings.miniLLM.response.MiniLMResponse;
 
 import com.edgechain.lib.endpoint.impl.embeddings.MiniLMEndpoint;
 import io.reactivex.rxjava3.core.Single;
+import java.util.List;
 import retrofit2.http.Body;
 import retrofit2.http.POST;
 
@@ -11,4 +12,7 @@ public interface MiniLMService {
 
   @POST(value = "miniLM")
   Single<MiniLMResponse> embeddings(@Body MiniLMEndpoint miniLMEndpoint);
+
+  @POST(value = "miniLM/batch")
+  Single<List<MiniLMResponse>> batchEmbeddings(@Body MiniLMEndpoint miniLMEndpoint);
 }
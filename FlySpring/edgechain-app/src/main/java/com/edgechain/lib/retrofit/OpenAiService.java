@@ -19,4 +19,8 @@ public interface OpenAiService {
 
   @POST(value = "openai/embeddings")
   Single<OpenAiEmbeddingResponse> embeddings(@Body OpenAiEmbeddingEndpoint openAiEmbeddingEndpoint);
+
+  @POST(value = "openai/embeddings/batch")
+  Single<OpenAiEmbeddingResponse> batchEmbeddings(
+      @Body OpenAiEmbeddingEndpoint openAiEmbeddingEndpoint);
 }
@@ -21,6 +21,9 @@ public interface PineconeService {
   @POST(value = "index/pinecone/query")
   Single<List<WordEmbeddings>> query(@Body PineconeEndpoint pineconeEndpoint);
 
+  @HTTP(method = "DELETE", path = "index/pinecone/deleteByIds", hasBody = true)
+  Single<StringResponse> deleteByIds(@Body PineconeEndpoint pineconeEndpoint);
+
   @HTTP(method = "DELETE", path = "index/pinecone/deleteAll", hasBody = true)
   Single<StringResponse> deleteAll(@Body PineconeEndpoint pineconeEndpoint);
 }
@@ -3,12 +3,14 @@ package com.edgechain.lib.retrofit;
 import com.edgechain.lib.endpoint.impl.index.PostgresEndpoint;
 import com.edgechain.lib.index.domain.PostgresWordEmbeddings;
 import com.edgechain.lib.response.StringResponse;
+import io.reactivex.rxjava3.core.Flowable;
 import io.reactivex.rxjava3.core.Single;
 import java.util.List;
 
 import retrofit2.http.Body;
 import retrofit2.http.HTTP;
 import retrofit2.http.POST;
+import retrofit2.http.Streaming;
 
 public interface PostgresService {
 
@@ -48,6 +50,10 @@ public interface PostgresService {
   @POST(value = "index/postgres/chunks")
   Single<List<PostgresWordEmbeddings>> getAllChunks(@Body PostgresEndpoint postgresEndpoint);
 
+  @Streaming
+  @POST(value = "index/postgres/chunks/stream")
+  Flowable<PostgresWordEmbeddings> streamAllChunks(@Body PostgresEndpoint postgresEndpoint);
+
   @POST(value = "index/postgres/similarity-metadata")
   Single<List<PostgresWordEmbeddings>> getSimilarMetadataChunk(
       @Body PostgresEndpoint postgresEndpoint);
@@ -55,6 +61,12 @@ public interface PostgresService {
   @POST("index/postgres/probes")
   Single<StringResponse> probes(@Body PostgresEndpoint postgresEndpoint);
 
+  @POST("index/postgres/migrate-digest-key")
+  Single<StringResponse> migrateToDigestKey(@Body PostgresEndpoint postgresEndpoint);
+
+  @HTTP(method = "DELETE", path = "index/postgres/chunks", hasBody = true)
+  Single<StringResponse> deleteChunks(@Body PostgresEndpoint postgresEndpoint);
+
   @HTTP(method = "DELETE", path = "index/postgres/deleteAll", hasBody = true)
   Single<StringResponse> deleteAll(@Body PostgresEndpoint postgresEndpoint);
 }
@@ -25,6 +25,9 @@ public interface RedisService {
   @POST(value = "index/redis/query")
   Single<List<WordEmbeddings>> query(@Body RedisEndpoint redisEndpoint);
 
+  @HTTP(method = "DELETE", path = "index/redis/delete-by-ids", hasBody = true)
+  Single<StringResponse> deleteByIds(@Body RedisEndpoint redisEndpoint);
+
   @HTTP(method = "DELETE", path = "index/redis/delete", hasBody = true)
   Completable deleteByPattern(@Body RedisEndpoint redisEndpoint);
 }
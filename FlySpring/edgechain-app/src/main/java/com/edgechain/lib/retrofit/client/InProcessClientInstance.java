@@ -0,0 +1,211 @@
+package com.edgechain.lib.retrofit.client;
+
+import com.edgechain.lib.configuration.WebConfiguration;
+import com.edgechain.lib.configuration.context.ApplicationContextHolder;
+import io.reactivex.rxjava3.core.BackpressureStrategy;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Single;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+import retrofit2.http.DELETE;
+import retrofit2.http.GET;
+import retrofit2.http.HTTP;
+import retrofit2.http.PATCH;
+import retrofit2.http.POST;
+import retrofit2.http.PUT;
+
+/**
+ * Resolves the Retrofit service interfaces ({@code com.edgechain.lib.retrofit.*Service}) to the
+ * {@code com.edgechain.service.controllers} beans of the running application. Each service method
+ * is matched to the controller method that serves the same HTTP method and path, and is invoked
+ * directly with the caller's arguments: no socket, no JSON and no Authorization header.
+ */
+public class InProcessClientInstance {
+
+  private static final String CONTROLLERS_PACKAGE = "com.edgechain.service.controllers";
+
+  private static final Map<Method, Handler> handlers = new ConcurrentHashMap<>();
+
+  private InProcessClientInstance() {
+    // no
+  }
+
+  @SuppressWarnings("unchecked")
+  public static <T> T create(Class<T> service) {
+    return (T)
+        Proxy.newProxyInstance(
+            service.getClassLoader(),
+            new Class<?>[] {service},
+            (proxy, method, args) -> {
+              if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                  case "equals" -> proxy == args[0];
+                  case "hashCode" -> System.identityHashCode(proxy);
+                  default -> "InProcess(" + service.getName() + ")";
+                };
+              }
+              return dispatch(method, Objects.isNull(args) ? new Object[0] : args);
+            });
+  }
+
+  private static Object dispatch(Method method, Object[] args) {
+    Class<?> returnType = method.getReturnType();
+
+    if (Completable.class.equals(returnType)) {
+      return Completable.defer(() -> toCompletable(invoke(method, args)));
+    }
+    if (Observable.class.equals(returnType)) {
+      return Observable.defer(() -> toObservable(invoke(method, args)));
+    }
+    if (Single.class.equals(returnType)) {
+      return Single.defer(() -> toSingle(invoke(method, args)));
+    }
+    if (Flowable.class.equals(returnType)) {
+      return Flowable.defer(() -> toFlowable(invoke(method, args)));
+    }
+
+    throw new UnsupportedOperationException(
+        "Unsupported return type for in-process call: " + method);
+  }
+
+  private static Object invoke(Method method, Object[] args) throws Throwable {
+    Handler handler = handlers.computeIfAbsent(method, InProcessClientInstance::resolve);
+    try {
+      return handler.method().invoke(handler.bean(), args);
+    } catch (InvocationTargetException e) {
+      throw e.getTargetException();
+    }
+  }
+
+  private static Completable toCompletable(Object result) {
+    if (result instanceof Completable completable) return completable;
+    if (result instanceof Single<?> single) return single.ignoreElement();
+    if (result instanceof Observable<?> observable) return observable.ignoreElements();
+    return Completable.complete();
+  }
+
+  private static Single<?> toSingle(Object result) {
+    if (result instanceof Single<?> single) return single;
+    if (result instanceof Observable<?> observable) return observable.firstOrError();
+    return Single.just(result);
+  }
+
+  private static Observable<?> toObservable(Object result) {
+    if (result instanceof Observable<?> observable) return observable;
+    if (result instanceof Single<?> single) return single.toObservable();
+    return Observable.just(result);
+  }
+
+  private static Flowable<?> toFlowable(Object result) {
+    if (result instanceof Flowable<?> flowable) return flowable;
+    if (result instanceof Observable<?> observable) {
+      return observable.toFlowable(BackpressureStrategy.BUFFER);
+    }
+    if (result instanceof Single<?> single) return single.toFlowable();
+    return Flowable.just(result);
+  }
+
+  private static Handler resolve(Method serviceMethod) {
+    Route route = route(serviceMethod);
+
+    ApplicationContext context = ApplicationContextHolder.getContext();
+    if (Objects.isNull(context)) {
+      throw new IllegalStateException(
+          "In-process transport requires a running EdgeChains application context");
+    }
+
+    for (Object bean : context.getBeansWithAnnotation(RestController.class).values()) {
+      Class<?> controllerClass = ClassUtils.getUserClass(bean);
+
+      if (!controllerClass.getPackageName().startsWith(CONTROLLERS_PACKAGE)) continue;
+
+      RequestMapping classMapping =
+          AnnotatedElementUtils.findMergedAnnotation(controllerClass, RequestMapping.class);
+      String classPath = Objects.isNull(classMapping) ? "" : first(classMapping.path());
+
+      for (Method controllerMethod : controllerClass.getMethods()) {
+        RequestMapping methodMapping =
+            AnnotatedElementUtils.findMergedAnnotation(controllerMethod, RequestMapping.class);
+
+        if (Objects.isNull(methodMapping)
+            || controllerMethod.getParameterCount() != serviceMethod.getParameterCount()) continue;
+
+        String path = normalize(classPath + first(methodMapping.path()));
+        boolean methodMatches =
+            methodMapping.method().length == 0
+                || Arrays.stream(methodMapping.method())
+                    .anyMatch(m -> m.name().equals(route.httpMethod()));
+
+        if (methodMatches && path.equals(route.path())) {
+          return new Handler(bean, controllerMethod);
+        }
+      }
+    }
+
+    throw new UnsupportedOperationException(
+        "No controller serves "
+            + route.httpMethod()
+            + " "
+            + route.path()
+            + " for "
+            + serviceMethod);
+  }
+
+  private static Route route(Method method) {
+    String httpMethod;
+    String path;
+
+    if (method.isAnnotationPresent(POST.class)) {
+      httpMethod = RequestMethod.POST.name();
+      path = method.getAnnotation(POST.class).value();
+    } else if (method.isAnnotationPresent(GET.class)) {
+      httpMethod = RequestMethod.GET.name();
+      path = method.getAnnotation(GET.class).value();
+    } else if (method.isAnnotationPresent(PUT.class)) {
+      httpMethod = RequestMethod.PUT.name();
+      path = method.getAnnotation(PUT.class).value();
+    } else if (method.isAnnotationPresent(PATCH.class)) {
+      httpMethod = RequestMethod.PATCH.name();
+      path = method.getAnnotation(PATCH.class).value();
+    } else if (method.isAnnotationPresent(DELETE.class)) {
+      httpMethod = RequestMethod.DELETE.name();
+      path = method.getAnnotation(DELETE.class).value();
+    } else if (method.isAnnotationPresent(HTTP.class)) {
+      httpMethod = method.getAnnotation(HTTP.class).method().toUpperCase();
+      path = method.getAnnotation(HTTP.class).path();
+    } else {
+      throw new UnsupportedOperationException("Not a Retrofit service method: " + method);
+    }
+
+    return new Route(httpMethod, normalize(WebConfiguration.CONTEXT_PATH + "/" + path));
+  }
+
+  /** Collapses duplicate slashes and path variable names so "/{id}" matches "/{anything}". */
+  private static String normalize(String path) {
+    String normalized = path.replaceAll("/+", "/").replaceAll("\\{[^}]*}", "{}");
+    return normalized.length() > 1 && normalized.endsWith("/")
+        ? normalized.substring(0, normalized.length() - 1)
+        : normalized;
+  }
+
+  private static String first(String[] values) {
+    return values.length == 0 ? "" : values[0];
+  }
+
+  private record Route(String httpMethod, String path) {}
+
+  private record Handler(Object bean, Method method) {}
+}
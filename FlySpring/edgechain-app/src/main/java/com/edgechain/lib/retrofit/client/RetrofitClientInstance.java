@@ -3,11 +3,14 @@ package com.edgechain.lib.retrofit.client;
 import com.edgechain.lib.configuration.WebConfiguration;
 import com.edgechain.lib.configuration.context.ApplicationContextHolder;
 import com.edgechain.lib.configuration.domain.SecurityUUID;
+import com.edgechain.lib.embeddings.FloatVector;
+import com.edgechain.lib.retrofit.utils.JsonLinesCallAdapterFactory;
 import com.edgechain.lib.retrofit.utils.PageJacksonModule;
 import com.edgechain.lib.retrofit.utils.SortJacksonModule;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.cfg.ContextAttributes;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
@@ -19,10 +22,12 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 import okhttp3.ConnectionPool;
+import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
 import okhttp3.ResponseBody;
+import org.springframework.context.ApplicationContext;
 import retrofit2.Retrofit;
 import retrofit2.adapter.rxjava3.RxJava3CallAdapterFactory;
 import retrofit2.converter.jackson.JacksonConverterFactory;
@@ -35,6 +40,14 @@ public class RetrofitClientInstance {
 
   private static final String BASE_URL = "http://0.0.0.0";
 
+  /**
+   * Selects how endpoints reach the service controllers: {@code http} (default) sends a loopback
+   * HTTP request, {@code in-process} invokes the controller beans directly.
+   */
+  public static final String TRANSPORT_PROPERTY = "edgechains.transport";
+
+  public static final String TRANSPORT_IN_PROCESS = "in-process";
+
   private static SecurityUUID securityUUID;
   private static Retrofit retrofit;
 
@@ -46,6 +59,9 @@ public class RetrofitClientInstance {
         securityUUID = ApplicationContextHolder.getContext().getBean(SecurityUUID.class);
       }
 
+      boolean base64Embeddings = isBase64Embeddings();
+      ObjectMapper objectMapper = createObjectMapper(base64Embeddings);
+
       return retrofit =
           new Retrofit.Builder()
               .baseUrl(
@@ -54,7 +70,8 @@ public class RetrofitClientInstance {
                       + System.getProperty("server.port")
                       + WebConfiguration.CONTEXT_PATH
                       + "/")
-              .addConverterFactory(createJacksonFactory())
+              .addConverterFactory(JacksonConverterFactory.create(objectMapper))
+              .addCallAdapterFactory(JsonLinesCallAdapterFactory.create(objectMapper))
               .addCallAdapterFactory(RxJava3CallAdapterFactory.create())
               .client(
                   new OkHttpClient.Builder()
@@ -64,9 +81,21 @@ public class RetrofitClientInstance {
                             try {
                               Request original = chain.request();
                               final String authKey = securityUUID.getAuthKey();
-                              Request request =
-                                  original.newBuilder().header("Authorization", authKey).build();
+                              Request.Builder builder =
+                                  original.newBuilder().header("Authorization", authKey);
+                              // the controllers answer with base64 embeddings when asked to
+                              if (base64Embeddings) {
+                                builder.header(
+                                    FloatVector.ENCODING_HEADER, FloatVector.BASE64_ENCODING);
+                              }
+                              Request request = builder.build();
                               Response response = chain.proceed(request);
+
+                              // streamed bodies are read element by element by the caller
+                              if (response.isSuccessful() && isJsonLines(response)) {
+                                return response;
+                              }
+
                               String body = response.body().string();
 
                               String errorMessage = "";
@@ -106,7 +135,39 @@ public class RetrofitClientInstance {
     return retrofit;
   }
 
-  private static JacksonConverterFactory createJacksonFactory() {
+  /**
+   * Creates an implementation of the given service interface using the configured transport.
+   * Endpoints should prefer this over {@code getInstance().create(...)}.
+   */
+  public static <T> T create(Class<T> service) {
+    if (TRANSPORT_IN_PROCESS.equalsIgnoreCase(getTransport())) {
+      return InProcessClientInstance.create(service);
+    }
+    return getInstance().create(service);
+  }
+
+  private static String getTransport() {
+    ApplicationContext context = ApplicationContextHolder.getContext();
+    if (Objects.nonNull(context) && Objects.nonNull(context.getEnvironment())) {
+      return context
+          .getEnvironment()
+          .getProperty(TRANSPORT_PROPERTY, System.getProperty(TRANSPORT_PROPERTY, "http"));
+    }
+    return System.getProperty(TRANSPORT_PROPERTY, "http");
+  }
+
+  private static boolean isBase64Embeddings() {
+    ApplicationContext context = ApplicationContextHolder.getContext();
+    return Objects.nonNull(context)
+        && context.getEnvironment().getProperty(FloatVector.BASE64_ATTRIBUTE, Boolean.class, false);
+  }
+
+  private static boolean isJsonLines(Response response) {
+    MediaType contentType = response.body().contentType();
+    return Objects.nonNull(contentType) && "x-ndjson".equals(contentType.subtype());
+  }
+
+  private static ObjectMapper createObjectMapper(boolean base64Embeddings) {
     ObjectMapper objectMapper = new ObjectMapper();
     objectMapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
     objectMapper.registerModule(new JavaTimeModule());
@@ -115,6 +176,10 @@ public class RetrofitClientInstance {
     objectMapper.registerModule(new PageJacksonModule());
     objectMapper.registerModule(new SortJacksonModule());
     objectMapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
-    return JacksonConverterFactory.create(objectMapper);
+    if (base64Embeddings) {
+      objectMapper.setDefaultAttributes(
+          ContextAttributes.getEmpty().withSharedAttribute(FloatVector.BASE64_ATTRIBUTE, true));
+    }
+    return objectMapper;
   }
 }
@@ -0,0 +1,82 @@
+package com.edgechain.lib.retrofit.utils;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.reactivex.rxjava3.core.Flowable;
+import java.io.BufferedReader;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.Objects;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.CallAdapter;
+import retrofit2.HttpException;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.http.Streaming;
+
+/**
+ * Adapts {@code @Streaming} service methods returning {@code Flowable<T>} to a newline-delimited
+ * JSON (application/x-ndjson) response: each line is decoded into one element only when the
+ * subscriber requests it, so the body is never held in memory as a whole.
+ */
+public class JsonLinesCallAdapterFactory extends CallAdapter.Factory {
+
+  private final ObjectMapper objectMapper;
+
+  private JsonLinesCallAdapterFactory(ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+  }
+
+  public static JsonLinesCallAdapterFactory create(ObjectMapper objectMapper) {
+    return new JsonLinesCallAdapterFactory(objectMapper);
+  }
+
+  @Override
+  public CallAdapter<?, ?> get(Type returnType, Annotation[] annotations, Retrofit retrofit) {
+    if (getRawType(returnType) != Flowable.class
+        || !(returnType instanceof ParameterizedType parameterizedType)
+        || Arrays.stream(annotations).noneMatch(Streaming.class::isInstance)) {
+      return null;
+    }
+
+    JavaType elementType =
+        objectMapper.constructType(getParameterUpperBound(0, parameterizedType));
+
+    return new CallAdapter<ResponseBody, Flowable<Object>>() {
+      @Override
+      public Type responseType() {
+        return ResponseBody.class;
+      }
+
+      @Override
+      public Flowable<Object> adapt(Call<ResponseBody> call) {
+        return Flowable.generate(
+            () -> open(call.clone()),
+            (reader, emitter) -> {
+              String line = reader.readLine();
+              while (Objects.nonNull(line) && line.isBlank()) {
+                line = reader.readLine();
+              }
+
+              if (Objects.isNull(line)) {
+                emitter.onComplete();
+              } else {
+                emitter.onNext(objectMapper.readValue(line, elementType));
+              }
+            },
+            BufferedReader::close);
+      }
+    };
+  }
+
+  private static BufferedReader open(Call<ResponseBody> call) throws Exception {
+    Response<ResponseBody> response = call.execute();
+    if (!response.isSuccessful() || Objects.isNull(response.body())) {
+      throw new HttpException(response);
+    }
+    return new BufferedReader(response.body().charStream());
+  }
+}
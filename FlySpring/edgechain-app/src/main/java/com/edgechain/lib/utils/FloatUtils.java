@@ -1,5 +1,6 @@
 package com.edgechain.lib.utils;
 
+import com.edgechain.lib.embeddings.FloatVector;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.List;
@@ -12,7 +13,17 @@ public class FloatUtils {
     return bytes;
   }
 
+  /** Inverse of toByteArray: little-endian float32 bytes. */
+  public static float[] toFloatArray(byte[] bytes) {
+    float[] floats = new float[bytes.length / Float.BYTES];
+    ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(floats);
+    return floats;
+  }
+
+  /** Unboxes the list; a {@link FloatVector}'s backing array is returned as is, not copied. */
   public static float[] toFloatArray(List<Float> floatList) {
+    if (floatList instanceof FloatVector vector) return vector.array();
+
     float[] floatArray = new float[floatList.size()];
     int i = 0;
 
@@ -22,4 +33,9 @@ public class FloatUtils {
 
     return floatArray;
   }
+
+  public static List<Float> toFloatList(float[] floatArray) {
+    if (floatArray == null) return null;
+    return new FloatVector(floatArray);
+  }
 }
@@ -0,0 +1,150 @@
+package com.edgechain.lib.utils;
+
+import com.edgechain.lib.index.domain.RRFWeight;
+import com.edgechain.lib.index.enums.OrderRRFBy;
+import com.edgechain.lib.index.enums.PostgresDistanceMetric;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Reciprocal rank fusion of the vector and full-text candidates of a hybrid search, using the same
+ * scoring as the SQL of PostgresClientRepository.queryRRF:
+ *
+ * <pre>
+ * rrf_score = text.base / (text_rank_position + text.fineTune)
+ *           + similarity.base / (similarity_position + similarity.fineTune)
+ *           + date.base / (date_rank_position + date.fineTune)
+ * </pre>
+ *
+ * Candidates missing from the full-text leg have a text rank of 0 (as ts_rank_cd gives for rows
+ * that do not match); candidates missing from the vector leg are ranked after every vector hit.
+ * For {@link PostgresDistanceMetric#L2} the similarity is a distance, so the smallest ranks first.
+ */
+public final class RRFFusion {
+
+  private RRFFusion() {}
+
+  public static List<Candidate> fuse(
+      Collection<Candidate> candidates,
+      RRFWeight textWeight,
+      RRFWeight similarityWeight,
+      RRFWeight dateWeight,
+      OrderRRFBy orderRRFBy,
+      PostgresDistanceMetric metric,
+      int limit) {
+
+    List<Candidate> list = new ArrayList<>(candidates);
+    boolean distance = PostgresDistanceMetric.L2.equals(metric);
+
+    double[] textPosition = positions(list, Candidate::getTextRank);
+    double[] similarityPosition =
+        positions(
+            list,
+            c -> {
+              if (Objects.isNull(c.getSimilarity())) return Double.NEGATIVE_INFINITY;
+              return distance ? -c.getSimilarity() : c.getSimilarity();
+            });
+    double[] datePosition = positions(list, Candidate::getDateRank);
+
+    for (int i = 0; i < list.size(); i++) {
+      list.get(i).rrfScore =
+          textWeight.getBaseWeight().getValue()
+                  / (textPosition[i] + textWeight.getFineTuneWeight())
+              + similarityWeight.getBaseWeight().getValue()
+                  / (similarityPosition[i] + similarityWeight.getFineTuneWeight())
+              + dateWeight.getBaseWeight().getValue()
+                  / (datePosition[i] + dateWeight.getFineTuneWeight());
+    }
+
+    Comparator<Double> closestFirst =
+        distance ? Comparator.<Double>naturalOrder() : Comparator.<Double>reverseOrder();
+    Comparator<Candidate> byRrfScore =
+        Comparator.comparingDouble(Candidate::getRrfScore).reversed();
+
+    Comparator<Candidate> order =
+        switch (Objects.isNull(orderRRFBy) ? OrderRRFBy.DEFAULT : orderRRFBy) {
+          case TEXT_RANK -> Comparator.comparingDouble(Candidate::getTextRank)
+              .reversed()
+              .thenComparing(byRrfScore);
+          case SIMILARITY -> Comparator.comparing(
+                  Candidate::getSimilarity, Comparator.nullsLast(closestFirst))
+              .thenComparing(byRrfScore);
+          case DATE_RANK -> Comparator.comparingDouble(Candidate::getDateRank)
+              .reversed()
+              .thenComparing(byRrfScore);
+          case DEFAULT -> byRrfScore;
+        };
+
+    list.sort(order);
+    return list.size() > limit ? new ArrayList<>(list.subList(0, limit)) : list;
+  }
+
+  /** 1-based ROW_NUMBER() OVER (ORDER BY key DESC) of every candidate, in list order. */
+  private static double[] positions(List<Candidate> list, ToDoubleFunction<Candidate> key) {
+    List<Integer> indexes = new ArrayList<>(list.size());
+    for (int i = 0; i < list.size(); i++) indexes.add(i);
+
+    indexes.sort(
+        Comparator.comparingDouble((Integer i) -> key.applyAsDouble(list.get(i))).reversed());
+
+    double[] positions = new double[list.size()];
+    for (int position = 0; position < indexes.size(); position++) {
+      positions[indexes.get(position)] = position + 1;
+    }
+    return positions;
+  }
+
+  public static class Candidate {
+
+    private final String id;
+    private Double similarity;
+    private double textRank;
+    private double dateRank;
+    private double rrfScore;
+
+    public Candidate(String id) {
+      this.id = id;
+    }
+
+    public String getId() {
+      return id;
+    }
+
+    public Double getSimilarity() {
+      return similarity;
+    }
+
+    public void setSimilarity(Double similarity) {
+      this.similarity = similarity;
+    }
+
+    public double getTextRank() {
+      return textRank;
+    }
+
+    public void setTextRank(double textRank) {
+      this.textRank = textRank;
+    }
+
+    public double getDateRank() {
+      return dateRank;
+    }
+
+    /** Same freshness key as the SQL: year * 365 + day of year, 0 without a date. */
+    public void setDocumentDate(LocalDate documentDate) {
+      this.dateRank =
+          Objects.isNull(documentDate)
+              ? 0
+              : documentDate.getYear() * 365 + documentDate.getDayOfYear();
+    }
+
+    public double getRrfScore() {
+      return rrfScore;
+    }
+  }
+}
@@ -17,6 +17,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Objects;
 
 @RestController("Service BgeSmallController")
@@ -56,4 +57,33 @@ public class BgeSmallController {
 
     return edgeChain.toSingleWithoutScheduler();
   }
+
+  @PostMapping("/batch")
+  public Single<List<BgeSmallResponse>> batchEmbeddings(
+      @RequestBody BgeSmallEndpoint bgeSmallEndpoint) {
+
+    EdgeChain<List<BgeSmallResponse>> edgeChain =
+        this.bgeSmallClient.createEmbeddings(bgeSmallEndpoint.getRawTextList(), bgeSmallEndpoint);
+
+    if (Objects.nonNull(env.getProperty("postgres.db.host"))) {
+
+      EmbeddingLog embeddingLog = new EmbeddingLog();
+      embeddingLog.setCreatedAt(LocalDateTime.now());
+      embeddingLog.setCallIdentifier(bgeSmallEndpoint.getCallIdentifier());
+      embeddingLog.setModel("bge-small-en");
+
+      return edgeChain
+          .doOnNext(
+              c -> {
+                embeddingLog.setCompletedAt(LocalDateTime.now());
+                Duration duration =
+                    Duration.between(embeddingLog.getCreatedAt(), embeddingLog.getCompletedAt());
+                embeddingLog.setLatency(duration.toMillis());
+                embeddingLogService.saveOrUpdate(embeddingLog);
+              })
+          .toSingleWithoutScheduler();
+    }
+
+    return edgeChain.toSingleWithoutScheduler();
+  }
 }
@@ -0,0 +1,33 @@
+package com.edgechain.service.controllers.embeddings;
+
+import com.edgechain.lib.configuration.WebConfiguration;
+import com.edgechain.lib.embeddings.model.EmbeddingModelRegistry;
+import com.edgechain.lib.embeddings.model.MicroBatcherStats;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController("Service EmbeddingModelController")
+@RequestMapping(value = WebConfiguration.CONTEXT_PATH + "/embeddings/models")
+public class EmbeddingModelController {
+
+  @Autowired private EmbeddingModelRegistry modelRegistry;
+
+  /** 200 once the preloaded models are loaded, 503 before. */
+  @GetMapping("/ready")
+  public ResponseEntity<Map<String, Object>> ready() {
+    boolean ready = modelRegistry.isReady();
+    return ResponseEntity.status(ready ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE)
+        .body(Map.of("ready", ready, "loaded", modelRegistry.getLoadedModels()));
+  }
+
+  /** Queue wait and batch size histograms of the local models' micro-batchers. */
+  @GetMapping("/batching")
+  public Map<String, MicroBatcherStats> batching() {
+    return modelRegistry.getBatchingStats();
+  }
+}
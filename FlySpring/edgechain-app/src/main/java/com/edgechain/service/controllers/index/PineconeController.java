@@ -32,6 +32,11 @@ public class PineconeController {
     return pineconeClient.query(pineconeEndpoint).toSingle();
   }
 
+  @DeleteMapping("/deleteByIds")
+  public Single<StringResponse> deleteByIds(@RequestBody PineconeEndpoint pineconeEndpoint) {
+    return pineconeClient.deleteByIds(pineconeEndpoint).toSingle();
+  }
+
   @DeleteMapping("/deleteAll")
   public Single<StringResponse> deleteAll(@RequestBody PineconeEndpoint pineconeEndpoint) {
     return pineconeClient.deleteAll(pineconeEndpoint).toSingle();
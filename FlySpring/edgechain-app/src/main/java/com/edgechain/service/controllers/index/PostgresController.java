@@ -6,12 +6,14 @@ import com.edgechain.lib.index.client.impl.PostgresClient;
 import com.edgechain.lib.index.domain.PostgresWordEmbeddings;
 import com.edgechain.lib.response.StringResponse;
 import com.edgechain.lib.rxjava.transformer.observable.EdgeChain;
+import io.reactivex.rxjava3.core.Flowable;
 import io.reactivex.rxjava3.core.Single;
 
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
 @RestController("Service PostgresController")
@@ -91,12 +93,29 @@ public class PostgresController {
     return this.postgresClient.getAllChunks(postgresEndpoint).toSingle();
   }
 
+  @PostMapping(value = "/chunks/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public Flowable<PostgresWordEmbeddings> streamAllChunks(
+      @RequestBody PostgresEndpoint postgresEndpoint) {
+    return this.postgresClient.streamAllChunks(postgresEndpoint);
+  }
+
   @PostMapping("/similarity-metadata")
   public Single<List<PostgresWordEmbeddings>> getSimilarMetadataChunk(
       @RequestBody PostgresEndpoint postgresEndpoint) {
     return this.postgresClient.getSimilarMetadataChunk(postgresEndpoint).toSingle();
   }
 
+  @PostMapping("/migrate-digest-key")
+  public Single<StringResponse> migrateToDigestKey(
+      @RequestBody PostgresEndpoint postgresEndpoint) {
+    return this.postgresClient.migrateToDigestKey(postgresEndpoint).toSingle();
+  }
+
+  @DeleteMapping("/chunks")
+  public Single<StringResponse> deleteChunks(@RequestBody PostgresEndpoint postgresEndpoint) {
+    return this.postgresClient.deleteChunks(postgresEndpoint).toSingle();
+  }
+
   @DeleteMapping("/deleteAll")
   public Single<StringResponse> deleteAll(@RequestBody PostgresEndpoint postgresEndpoint) {
     return this.postgresClient.deleteAll(postgresEndpoint).toSingle();
@@ -39,6 +39,11 @@ public class RedisController {
     return this.redisClient.query(redisEndpoint).toSingle();
   }
 
+  @DeleteMapping("/delete-by-ids")
+  public Single<StringResponse> deleteByIds(@RequestBody RedisEndpoint redisEndpoint) {
+    return this.redisClient.deleteByIds(redisEndpoint).toSingle();
+  }
+
   @DeleteMapping("/delete")
   public Completable deleteByPattern(@RequestBody RedisEndpoint redisEndpoint) {
     return this.redisClient.deleteByPattern(redisEndpoint).await();
@@ -17,6 +17,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Objects;
 
 @RestController("Service MiniLMController")
@@ -56,4 +57,32 @@ public class MiniLMController {
 
     return edgeChain.toSingleWithoutScheduler();
   }
+
+  @PostMapping("/batch")
+  public Single<List<MiniLMResponse>> batchEmbeddings(@RequestBody MiniLMEndpoint miniLMEndpoint) {
+
+    EdgeChain<List<MiniLMResponse>> edgeChain =
+        this.miniLMClient.createEmbeddings(miniLMEndpoint.getRawTextList(), miniLMEndpoint);
+
+    if (Objects.nonNull(env.getProperty("postgres.db.host"))) {
+
+      EmbeddingLog embeddingLog = new EmbeddingLog();
+      embeddingLog.setCreatedAt(LocalDateTime.now());
+      embeddingLog.setCallIdentifier(miniLMEndpoint.getCallIdentifier());
+      embeddingLog.setModel(miniLMEndpoint.getMiniLMModel().getName());
+
+      return edgeChain
+          .doOnNext(
+              c -> {
+                embeddingLog.setCompletedAt(LocalDateTime.now());
+                Duration duration =
+                    Duration.between(embeddingLog.getCreatedAt(), embeddingLog.getCompletedAt());
+                embeddingLog.setLatency(duration.toMillis());
+                embeddingLogService.saveOrUpdate(embeddingLog);
+              })
+          .toSingleWithoutScheduler();
+    }
+
+    return edgeChain.toSingleWithoutScheduler();
+  }
 }
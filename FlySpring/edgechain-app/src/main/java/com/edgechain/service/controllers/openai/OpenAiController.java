@@ -299,4 +299,37 @@ public class OpenAiController {
 
     return edgeChain.toSingleWithoutScheduler();
   }
+
+  @PostMapping("/embeddings/batch")
+  public Single<OpenAiEmbeddingResponse> batchEmbeddings(
+      @RequestBody OpenAiEmbeddingEndpoint openAiEndpoint) {
+
+    EdgeChain<OpenAiEmbeddingResponse> edgeChain =
+        openAiClient.createEmbeddings(openAiEndpoint.getRawTextList(), openAiEndpoint);
+
+    if (Objects.nonNull(env.getProperty("postgres.db.host"))) {
+
+      EmbeddingLog embeddingLog = new EmbeddingLog();
+      embeddingLog.setCreatedAt(LocalDateTime.now());
+      embeddingLog.setCallIdentifier(openAiEndpoint.getCallIdentifier());
+      embeddingLog.setModel(openAiEndpoint.getModel());
+
+      return edgeChain
+          .doOnNext(
+              e -> {
+                embeddingLog.setPromptTokens(e.getUsage().getPrompt_tokens());
+                embeddingLog.setCompletedAt(LocalDateTime.now());
+                embeddingLog.setTotalTokens(e.getUsage().getTotal_tokens());
+
+                Duration duration =
+                    Duration.between(embeddingLog.getCreatedAt(), embeddingLog.getCompletedAt());
+                embeddingLog.setLatency(duration.toMillis());
+
+                embeddingLogService.saveOrUpdate(embeddingLog);
+              })
+          .toSingleWithoutScheduler();
+    }
+
+    return edgeChain.toSingleWithoutScheduler();
+  }
 }
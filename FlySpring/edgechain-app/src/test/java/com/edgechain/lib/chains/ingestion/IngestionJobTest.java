@@ -0,0 +1,135 @@
+package com.edgechain.lib.chains.ingestion;
+
+import com.edgechain.lib.embeddings.WordEmbeddings;
+import com.edgechain.lib.endpoint.impl.embeddings.EmbeddingEndpoint;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Observable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IngestionJobTest {
+
+  @Test
+  void run_AfterFailure_ResumesFromLastWrittenBatch(@TempDir Path directory) throws Exception {
+    Files.write(directory.resolve("a.txt"), List.of("1", "2", "3", "4"));
+    Files.write(directory.resolve("b.txt"), List.of("5", "6"));
+    InMemoryCheckpointStore store = new InMemoryCheckpointStore();
+
+    IngestionProgress first =
+        job(
+                directory,
+                store,
+                batch -> {
+                  if (batch.stream().anyMatch(e -> e.getId().equals("4"))) {
+                    throw new IllegalStateException("connection lost");
+                  }
+                  return List.of();
+                })
+            .run();
+
+    assertEquals(1, first.getCompletedFiles());
+    assertEquals(1, first.getFailedFiles());
+    assertEquals(4, first.getChunksWritten());
+    assertEquals(
+        FileCheckpoint.Status.FAILED,
+        store.loadFile("job", directory.resolve("a.txt").toString()).getStatus());
+
+    List<String> written = Collections.synchronizedList(new ArrayList<>());
+    IngestionProgress second =
+        job(
+                directory,
+                store,
+                batch -> {
+                  batch.forEach(e -> written.add(e.getId()));
+                  return List.of();
+                })
+            .run();
+
+    assertEquals(List.of("3", "4"), written);
+    assertEquals(1, second.getCompletedFiles());
+    assertEquals(1, second.getSkippedFiles());
+    assertEquals(2, second.getChunksSkipped());
+    assertEquals(
+        FileCheckpoint.Status.DONE,
+        store.loadFile("job", directory.resolve("a.txt").toString()).getStatus());
+  }
+
+  private static IngestionJob job(
+      Path directory, IngestionCheckpointStore store, IngestionSink sink) {
+    Function<Path, Flowable<String>> lines =
+        file -> Flowable.defer(() -> Flowable.fromIterable(Files.readAllLines(file)));
+
+    IngestionJob job =
+        new IngestionJob(
+            "job",
+            IngestionJob.files(directory),
+            lines,
+            embeddingEndpoint(),
+            file -> sink,
+            store,
+            null);
+    job.setBatchSize(2);
+    job.setEmbedConcurrency(1);
+    return job;
+  }
+
+  private static EmbeddingEndpoint embeddingEndpoint() {
+    EmbeddingEndpoint endpoint = mock(EmbeddingEndpoint.class);
+    when(endpoint.embeddings(anyList(), any()))
+        .thenAnswer(
+            invocation -> {
+              List<String> batch = invocation.getArgument(0);
+              return Observable.just(
+                  batch.stream().map(t -> new WordEmbeddings(t, new float[] {1})).toList());
+            });
+    return endpoint;
+  }
+
+  private static class InMemoryCheckpointStore implements IngestionCheckpointStore {
+
+    private final Map<String, FileCheckpoint> files = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> chunks = new ConcurrentHashMap<>();
+
+    @Override
+    public FileCheckpoint loadFile(String jobId, String file) {
+      return files.get(jobId + ":" + file);
+    }
+
+    @Override
+    public void saveFile(String jobId, String file, FileCheckpoint checkpoint) {
+      files.put(jobId + ":" + file, checkpoint);
+    }
+
+    @Override
+    public Set<String> loadWrittenChunks(String jobId, String file) {
+      return new HashSet<>(chunks.getOrDefault(jobId + ":" + file, Set.of()));
+    }
+
+    @Override
+    public void saveBatch(String jobId, String file, List<String> chunkHashes) {
+      chunks.computeIfAbsent(jobId + ":" + file, k -> ConcurrentHashMap.newKeySet())
+          .addAll(chunkHashes);
+    }
+
+    @Override
+    public void deleteJob(String jobId) {
+      files.keySet().removeIf(key -> key.startsWith(jobId + ":"));
+      chunks.keySet().removeIf(key -> key.startsWith(jobId + ":"));
+    }
+  }
+}
@@ -0,0 +1,119 @@
+package com.edgechain.lib.chains.ingestion;
+
+import com.edgechain.lib.embeddings.WordEmbeddings;
+import com.edgechain.lib.endpoint.impl.embeddings.EmbeddingEndpoint;
+import io.reactivex.rxjava3.core.Observable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IngestionPipelineTest {
+
+  @Test
+  void run_DropsDuplicatesAndBlanks_WritesEveryBatch() {
+    EmbeddingEndpoint endpoint = embeddingEndpoint(null, null);
+    List<List<String>> written = Collections.synchronizedList(new ArrayList<>());
+
+    IngestionPipeline pipeline =
+        new IngestionPipeline(
+            endpoint,
+            batch -> {
+              List<String> ids = batch.stream().map(WordEmbeddings::getId).toList();
+              written.add(ids);
+              return ids;
+            },
+            null);
+    pipeline.setBatchSize(2);
+
+    List<String> ids = pipeline.run(new String[] {"a", "b", " ", "a", "c"});
+
+    assertEquals(List.of("a", "b", "c"), ids.stream().sorted().toList());
+    assertEquals(2, written.size());
+  }
+
+  @Test
+  void run_DropsDuplicatesWithinDedupeWindowOnly() {
+    IngestionPipeline pipeline =
+        new IngestionPipeline(
+            embeddingEndpoint(null, null),
+            batch -> batch.stream().map(WordEmbeddings::getId).toList(),
+            null);
+    pipeline.setBatchSize(1);
+    pipeline.setWriteConcurrency(1);
+    pipeline.setEmbedConcurrency(1);
+    pipeline.setDedupeWindow(2);
+
+    // "b" is still among the last two distinct chunks, "a" no longer is
+    List<String> ids = pipeline.run(new String[] {"a", "b", "c", "b", "a"});
+
+    assertEquals(List.of("a", "b", "c", "a"), ids);
+  }
+
+  @Test
+  void run_EmbedsNextBatchWhilePreviousIsWritten() {
+    CountDownLatch secondEmbedStarted = new CountDownLatch(2);
+    AtomicInteger active = new AtomicInteger();
+    AtomicInteger maxActive = new AtomicInteger();
+    EmbeddingEndpoint endpoint =
+        embeddingEndpoint(
+            () -> {
+              secondEmbedStarted.countDown();
+              maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            },
+            active::decrementAndGet);
+    List<Boolean> overlapped = Collections.synchronizedList(new ArrayList<>());
+
+    IngestionPipeline pipeline =
+        new IngestionPipeline(
+            endpoint,
+            batch -> {
+              // the first write only returns once the second batch is being embedded
+              overlapped.add(await(secondEmbedStarted));
+              return List.of();
+            },
+            null);
+    pipeline.setBatchSize(1);
+    pipeline.setEmbedConcurrency(1);
+
+    pipeline.run(new String[] {"a", "b", "c"});
+
+    assertTrue(overlapped.get(0));
+    assertEquals(1, maxActive.get());
+  }
+
+  private static EmbeddingEndpoint embeddingEndpoint(Runnable onStart, Runnable onEnd) {
+    EmbeddingEndpoint endpoint = mock(EmbeddingEndpoint.class);
+    when(endpoint.embeddings(anyList(), any()))
+        .thenAnswer(
+            invocation -> {
+              List<String> batch = invocation.getArgument(0);
+              return Observable.fromCallable(
+                  () -> {
+                    if (onStart != null) onStart.run();
+                    Thread.sleep(10);
+                    if (onEnd != null) onEnd.run();
+                    return batch.stream().map(t -> new WordEmbeddings(t, new float[] {1})).toList();
+                  });
+            });
+    return endpoint;
+  }
+
+  private static boolean await(CountDownLatch latch) {
+    try {
+      return latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+}
@@ -0,0 +1,58 @@
+package com.edgechain.lib.chains.manifest;
+
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChunkManifestTest {
+
+  @Test
+  void diff_FirstIngestion_EmbedsEveryChunkOnce() {
+    ChunkManifest.Diff diff = ChunkManifest.diff(null, new String[] {"a", "b", "a"}, "model");
+
+    assertEquals(List.of("a", "b"), diff.getChanged());
+    assertTrue(diff.getRemoved().isEmpty());
+    assertEquals("model", diff.getManifest().getModelId());
+  }
+
+  @Test
+  void diff_OnlyNewChunksAreEmbedded_RemovedChunksAreDeleted() {
+    ChunkManifest previous =
+        ChunkManifest.diff(null, new String[] {"a", "b", "c"}, "model").getManifest();
+
+    ChunkManifest.Diff diff =
+        ChunkManifest.diff(previous, new String[] {"a", "b2", "c", "d"}, "model");
+
+    assertEquals(List.of("b2", "d"), diff.getChanged());
+    assertEquals(List.of("b"), diff.getRemoved());
+    assertEquals(4, diff.getManifest().getChunks().size());
+  }
+
+  @Test
+  void diff_ModelChanged_EmbedsEveryChunkAgain() {
+    ChunkManifest previous = ChunkManifest.diff(null, new String[] {"a", "b"}, "old").getManifest();
+
+    ChunkManifest.Diff diff = ChunkManifest.diff(previous, new String[] {"a", "b"}, "new");
+
+    assertEquals(List.of("a", "b"), diff.getChanged());
+    assertTrue(diff.getRemoved().isEmpty());
+  }
+
+  @Test
+  void fileStore_SavesAndLoadsManifest(@TempDir Path directory) {
+    FileChunkManifestStore store = new FileChunkManifestStore(directory);
+    ChunkManifest manifest = ChunkManifest.diff(null, new String[] {"a"}, "model").getManifest();
+
+    assertNull(store.load("table:ns:file.pdf"));
+
+    store.save("table:ns:file.pdf", manifest);
+    ChunkManifest loaded = store.load("table:ns:file.pdf");
+
+    assertEquals("model", loaded.getModelId());
+    assertEquals(manifest.getChunks(), loaded.getChunks());
+  }
+}
@@ -0,0 +1,36 @@
+package com.edgechain.lib.chunk;
+
+import com.edgechain.lib.chunk.enums.LangType;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class SentenceSegmenterTest {
+
+  @Test
+  void of_LoadsEachLanguageModelOnce() {
+    assertSame(SentenceSegmenter.of(LangType.EN), SentenceSegmenter.of(LangType.EN));
+    assertSame(Chunker.sentenceModel(LangType.EN), SentenceSegmenter.of(LangType.EN).getModel());
+  }
+
+  @Test
+  void segmentAll_MatchesSegmentInDocumentOrder() {
+    List<String> documents =
+        IntStream.range(0, 200)
+            .mapToObj(i -> "Document " + i + " starts here. It has a second sentence.")
+            .toList();
+    SentenceSegmenter segmenter = SentenceSegmenter.of(LangType.EN);
+
+    List<String[]> sentences = segmenter.segmentAll(documents);
+
+    assertEquals(documents.size(), sentences.size());
+    for (int i = 0; i < documents.size(); i++) {
+      assertArrayEquals(
+          new String[] {"Document " + i + " starts here.", "It has a second sentence."},
+          sentences.get(i));
+    }
+  }
+}
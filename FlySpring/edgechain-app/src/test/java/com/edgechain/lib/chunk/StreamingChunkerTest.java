@@ -0,0 +1,61 @@
+package com.edgechain.lib.chunk;
+
+import com.edgechain.lib.chunk.enums.LangType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StreamingChunkerTest {
+
+  @Test
+  void bySize_MatchesChunkerWhateverThePieces() {
+    String text = "The quick brown fox jumps over the lazy dog. ".repeat(50);
+    List<String> chunks = new ArrayList<>();
+    StreamingChunker chunker = StreamingChunker.bySize(64, chunks::add);
+
+    // pieces of varying length, as a SAX parser hands them over
+    int start = 0;
+    for (int length = 1; start < text.length(); length = length % 7 + 1) {
+      chunker.append(text.substring(start, Math.min(start + length, text.length())));
+      start += length;
+    }
+    chunker.finish();
+
+    List<String> expected =
+        Arrays.stream(new Chunker(text).byChunkSize(64)).filter(c -> !c.isEmpty()).toList();
+    assertEquals(expected, chunks);
+  }
+
+  @Test
+  void bySize_NormalizesLineBreaksAcrossPieces() {
+    List<String> chunks = new ArrayList<>();
+    StreamingChunker chunker = StreamingChunker.bySize(100, chunks::add);
+
+    chunker.append("café\r");
+    chunker.append("\n\tau lait\n");
+    chunker.append("\n");
+    chunker.finish();
+
+    assertEquals(List.of("cafe au lait"), chunks);
+  }
+
+  @Test
+  void bySentence_MatchesChunkerBeyondOneWindow() {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      text.append("This is sentence number ").append(i).append(". ");
+    }
+    List<String> chunks = new ArrayList<>();
+    StreamingChunker chunker =
+        StreamingChunker.bySentence(Chunker.sentenceModel(LangType.EN), chunks::add);
+
+    for (int start = 0; start < text.length(); start += 100) {
+      chunker.append(text.substring(start, Math.min(start + 100, text.length())));
+    }
+    chunker.finish();
+
+    assertEquals(Arrays.asList(new Chunker(text.toString()).bySentence(LangType.EN)), chunks);
+  }
+}
@@ -0,0 +1,59 @@
+package com.edgechain.lib.configuration;
+
+import com.edgechain.lib.embeddings.FloatVector;
+import com.edgechain.lib.embeddings.WordEmbeddings;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmbeddingsJsonHttpMessageConverterTest {
+
+  private final EmbeddingsJsonHttpMessageConverter converter =
+      new EmbeddingsJsonHttpMessageConverter(new ObjectMapper());
+
+  private final WordEmbeddings embeddings = new WordEmbeddings("a", new float[] {0.5f, -1f});
+
+  @Test
+  void write_PlainArrayByDefault() throws Exception {
+    MockHttpOutputMessage output = new MockHttpOutputMessage();
+    converter.write(embeddings, MediaType.APPLICATION_JSON, output);
+
+    assertTrue(output.getBodyAsString().contains("\"values\":[0.5,-1.0]"));
+  }
+
+  @Test
+  void write_Base64WhenResponseCarriesHeader() throws Exception {
+    MockHttpOutputMessage output = new MockHttpOutputMessage();
+    output.getHeaders().set(FloatVector.ENCODING_HEADER, FloatVector.BASE64_ENCODING);
+    converter.write(embeddings, MediaType.APPLICATION_JSON, output);
+
+    assertTrue(output.getBodyAsString().contains("\"values\":\""));
+  }
+
+  @Test
+  void filter_AcceptsBase64OnInternalRoutesOnly() throws Exception {
+    EmbeddingsEncodingFilter filter = new EmbeddingsEncodingFilter();
+
+    MockHttpServletResponse internal = new MockHttpServletResponse();
+    filter.doFilter(
+        request(WebConfiguration.CONTEXT_PATH + "/miniLM"), internal, new MockFilterChain());
+    assertEquals(FloatVector.BASE64_ENCODING, internal.getHeader(FloatVector.ENCODING_HEADER));
+
+    MockHttpServletResponse other = new MockHttpServletResponse();
+    filter.doFilter(request("/v1/examples"), other, new MockFilterChain());
+    assertNull(other.getHeader(FloatVector.ENCODING_HEADER));
+  }
+
+  private static MockHttpServletRequest request(String uri) {
+    MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+    request.addHeader(FloatVector.ENCODING_HEADER, FloatVector.BASE64_ENCODING);
+    return request;
+  }
+}
@@ -0,0 +1,55 @@
+package com.edgechain.lib.configuration;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PostgreSQLSchemaRegistryTest {
+
+  private final PostgreSQLSchemaRegistry registry = new PostgreSQLSchemaRegistry();
+
+  @Test
+  void ensure_RunsDdlOncePerKey() {
+    AtomicInteger calls = new AtomicInteger();
+
+    registry.ensure("history_context", calls::incrementAndGet);
+    registry.ensure("history_context", calls::incrementAndGet);
+    registry.ensure("chat_completion_logs", calls::incrementAndGet);
+
+    assertEquals(2, calls.get());
+    assertTrue(registry.isVerified("history_context"));
+  }
+
+  @Test
+  void ensure_FailedDdl_IsRetried() {
+    AtomicInteger calls = new AtomicInteger();
+
+    assertThrows(
+        IllegalStateException.class,
+        () ->
+            registry.ensure(
+                "embedding_logs",
+                () -> {
+                  calls.incrementAndGet();
+                  throw new IllegalStateException("down");
+                }));
+    assertFalse(registry.isVerified("embedding_logs"));
+
+    registry.ensure("embedding_logs", calls::incrementAndGet);
+    assertEquals(2, calls.get());
+  }
+
+  @Test
+  void invalidate_RunsDdlAgain() {
+    AtomicInteger calls = new AtomicInteger();
+
+    registry.ensure("embeddings:t_embedding:null:COSINE", calls::incrementAndGet);
+    registry.invalidateAll("embeddings:t_embedding");
+    registry.ensure("embeddings:t_embedding:null:COSINE", calls::incrementAndGet);
+
+    assertEquals(2, calls.get());
+  }
+}
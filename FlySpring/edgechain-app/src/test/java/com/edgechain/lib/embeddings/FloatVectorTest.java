@@ -0,0 +1,51 @@
+package com.edgechain.lib.embeddings;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.cfg.ContextAttributes;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FloatVectorTest {
+
+  @Test
+  void json_IsAPlainArray() throws Exception {
+    ObjectMapper objectMapper = new ObjectMapper();
+
+    String json =
+        objectMapper.writeValueAsString(new WordEmbeddings("a", new float[] {0.5f, -1f}));
+    assertTrue(json.contains("\"values\":[0.5,-1.0]"), json);
+
+    WordEmbeddings read = objectMapper.readValue(json, WordEmbeddings.class);
+    assertInstanceOf(FloatVector.class, read.getValues());
+    assertEquals(List.of(0.5f, -1f), read.getValues());
+  }
+
+  @Test
+  void json_Base64WhenEnabled() throws Exception {
+    ObjectMapper objectMapper = new ObjectMapper();
+    objectMapper.setDefaultAttributes(
+        ContextAttributes.getEmpty().withSharedAttribute(FloatVector.BASE64_ATTRIBUTE, true));
+
+    String json =
+        objectMapper.writeValueAsString(new WordEmbeddings("a", new float[] {0.5f, -1f, 3f}));
+    assertTrue(json.contains("\"values\":\""), json);
+
+    // read back by a mapper without the attribute
+    WordEmbeddings read = new ObjectMapper().readValue(json, WordEmbeddings.class);
+    assertArrayEquals(
+        new float[] {0.5f, -1f, 3f}, ((FloatVector) read.getValues()).array(), 0f);
+  }
+
+  @Test
+  void of_KeepsVectorAndUnboxesLists() {
+    FloatVector vector = new FloatVector(new float[] {1f, 2f});
+
+    assertEquals(vector, FloatVector.of(vector));
+    assertEquals(vector, FloatVector.of(List.of(1f, 2f)));
+    assertEquals(List.of(1f, 2f).hashCode(), vector.hashCode());
+  }
+}
@@ -0,0 +1,132 @@
+package com.edgechain.lib.embeddings.cache;
+
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.subjects.SingleSubject;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EmbeddingCacheTest {
+
+  @Test
+  void get_SecondLookupIsAHit() {
+    EmbeddingCache cache = new EmbeddingCache();
+    AtomicInteger calls = new AtomicInteger();
+
+    for (int i = 0; i < 2; i++) {
+      cache
+          .get(
+              EmbeddingCache.key("model", "hello  world"),
+              () -> Single.fromCallable(() -> List.of((float) calls.incrementAndGet())))
+          .blockingGet();
+    }
+    // normalized to the same key
+    cache.get(EmbeddingCache.key("model", " hello world"), Single::never).blockingGet();
+
+    assertEquals(1, calls.get());
+    assertEquals(1, cache.getStats().getMisses());
+    assertEquals(2, cache.getStats().getHits());
+  }
+
+  @Test
+  void get_ConcurrentMissesShareOneLoad() {
+    EmbeddingCache cache = new EmbeddingCache();
+    SingleSubject<List<Float>> response = SingleSubject.create();
+    AtomicInteger calls = new AtomicInteger();
+
+    Single<List<Float>> first =
+        cache.get("k", () -> response.doOnSubscribe(d -> calls.incrementAndGet())).cache();
+    Single<List<Float>> second =
+        cache.get("k", () -> response.doOnSubscribe(d -> calls.incrementAndGet())).cache();
+    first.subscribe();
+    second.subscribe();
+
+    response.onSuccess(List.of(1f));
+
+    assertEquals(List.of(1f), first.blockingGet());
+    assertEquals(List.of(1f), second.blockingGet());
+    assertEquals(1, calls.get());
+    assertEquals(1, cache.getStats().getMisses());
+  }
+
+  @Test
+  void get_EvictsLeastRecentlyUsed() {
+    EmbeddingCache cache = new EmbeddingCache(2);
+
+    cache.get("a", () -> Single.just(List.of(1f))).blockingGet();
+    cache.get("b", () -> Single.just(List.of(2f))).blockingGet();
+    cache.get("a", Single::never).blockingGet();
+    cache.get("c", () -> Single.just(List.of(3f))).blockingGet();
+
+    assertEquals(1, cache.getStats().getEvictions());
+    assertEquals(2, cache.getStats().getSize());
+    // "b" was evicted, "a" was kept
+    assertEquals(List.of(4f), cache.get("b", () -> Single.just(List.of(4f))).blockingGet());
+    assertEquals(List.of(1f), cache.get("a", Single::never).blockingGet());
+  }
+
+  @Test
+  void getAll_LoadsOnlyMissesInOneCall() {
+    EmbeddingCache cache = new EmbeddingCache();
+    cache.get("a", () -> Single.just(List.of(1f))).blockingGet();
+    List<List<String>> calls = new ArrayList<>();
+
+    List<List<Float>> values =
+        cache
+            .getAll(
+                List.of("a", "b", "c", "b"),
+                keys -> {
+                  calls.add(keys);
+                  return Single.just(
+                      keys.stream().map(k -> List.of((float) k.charAt(0))).toList());
+                })
+            .blockingGet();
+
+    assertEquals(List.of(List.of("b", "c")), calls);
+    assertEquals(List.of(List.of(1f), List.of(98f), List.of(99f), List.of(98f)), values);
+    assertEquals(1, cache.getStats().getHits());
+    assertEquals(2, cache.getStats().getMisses());
+    assertEquals(List.of(99f), cache.get("c", Single::never).blockingGet());
+  }
+
+  @Test
+  void getAll_FailedLoadIsNotCached() {
+    EmbeddingCache cache = new EmbeddingCache();
+
+    assertThrows(
+        IllegalStateException.class,
+        () ->
+            cache
+                .getAll(List.of("a"), keys -> Single.error(new IllegalStateException()))
+                .blockingGet());
+    assertEquals(
+        List.of(List.of(1f)),
+        cache.getAll(List.of("a"), keys -> Single.just(List.of(List.of(1f)))).blockingGet());
+  }
+
+  @Test
+  void mappedFileStore_SurvivesReopen(@TempDir Path directory) throws Exception {
+    Path file = directory.resolve("embeddings.cache");
+
+    try (MappedFileEmbeddingStore store = new MappedFileEmbeddingStore(file)) {
+      store.put("model:a", List.of(0.5f, -1f));
+      store.put("model:b", List.of(2f));
+    }
+
+    try (MappedFileEmbeddingStore store = new MappedFileEmbeddingStore(file)) {
+      assertEquals(2, store.size());
+      assertEquals(List.of(0.5f, -1f), store.get("model:a"));
+      assertNull(store.get("model:c"));
+
+      EmbeddingCache cache = new EmbeddingCache(10, store);
+      assertEquals(List.of(2f), cache.get("model:b", Single::never).blockingGet());
+      assertEquals(1, cache.getStats().getStoreHits());
+    }
+  }
+}
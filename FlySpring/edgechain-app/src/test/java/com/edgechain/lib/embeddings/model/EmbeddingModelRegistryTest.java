@@ -0,0 +1,118 @@
+package com.edgechain.lib.embeddings.model;
+
+import ai.djl.inference.Predictor;
+import ai.djl.repository.zoo.Criteria;
+import ai.djl.repository.zoo.ZooModel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.env.MockEnvironment;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EmbeddingModelRegistryTest {
+
+  @TempDir Path directory;
+
+  @Test
+  void getPool_UnloadsLeastRecentlyUsedModelOverBudget() throws Exception {
+    EmbeddingModelRegistry registry =
+        new EmbeddingModelRegistry(
+            new MockEnvironment()
+                .withProperty(EmbeddingModelRegistry.MEMORY_BUDGET_PROPERTY, "2")
+                .withProperty(EmbeddingModelRegistry.POOL_SIZE_PROPERTY, "1"));
+
+    ZooModel<String, float[]> a = model("a");
+    ZooModel<String, float[]> b = model("b");
+    ZooModel<String, float[]> c = model("c");
+
+    PredictorPool<?, ?> pool = registry.getPool("a", criteria(a));
+    registry.getPool("b", criteria(b));
+    assertSame(pool, registry.getPool("a", criteria(a)));
+
+    // 1 MiB each: loading a third model unloads "b", the least recently used
+    registry.getPool("c", criteria(c));
+
+    assertEquals(List.of("a", "c"), registry.getLoadedModels());
+    verify(b, timeout(5000)).close();
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void embed_KeepsModelInUseLoadedOverBudget() throws Exception {
+    EmbeddingModelRegistry registry =
+        new EmbeddingModelRegistry(
+            new MockEnvironment()
+                .withProperty(EmbeddingModelRegistry.MEMORY_BUDGET_PROPERTY, "1")
+                .withProperty(EmbeddingModelRegistry.POOL_SIZE_PROPERTY, "1"));
+
+    ZooModel<String, float[]> a = model("a");
+    ZooModel<String, float[]> b = model("b");
+
+    CountDownLatch borrowed = new CountDownLatch(1);
+    CountDownLatch done = new CountDownLatch(1);
+    Predictor<String, float[]> predictor = mock(Predictor.class);
+    when(predictor.batchPredict(anyList()))
+        .thenAnswer(
+            invocation -> {
+              borrowed.countDown();
+              done.await();
+              return List.of(new float[] {1f});
+            });
+    when(a.newPredictor()).thenReturn(predictor);
+
+    CompletableFuture<List<float[]>> result =
+        CompletableFuture.supplyAsync(
+            () -> {
+              try {
+                return registry.embed("a", criteria(a), List.of("text"));
+              } catch (Exception e) {
+                throw new CompletionException(e);
+              }
+            });
+    assertTrue(borrowed.await(5, TimeUnit.SECONDS));
+
+    // loading "b" goes over the budget, but "a" is in use
+    registry.getPool("b", criteria(b));
+    assertEquals(List.of("a", "b"), registry.getLoadedModels());
+    verify(a, never()).close();
+
+    // once released, "a" is the least recently used model and is unloaded
+    done.countDown();
+    assertEquals(1, result.get(5, TimeUnit.SECONDS).size());
+    assertEquals(List.of("b"), registry.getLoadedModels());
+    verify(a, timeout(5000)).close();
+  }
+
+  @SuppressWarnings("unchecked")
+  private ZooModel<String, float[]> model(String name) throws Exception {
+    Path path = Files.createDirectories(directory.resolve(name));
+    Files.write(path.resolve("model.pt"), new byte[1024 * 1024]);
+
+    ZooModel<String, float[]> model = mock(ZooModel.class);
+    when(model.getModelPath()).thenReturn(path);
+    return model;
+  }
+
+  @SuppressWarnings("unchecked")
+  private Function<Path, Criteria<String, float[]>> criteria(ZooModel<String, float[]> model)
+      throws Exception {
+    Criteria<String, float[]> criteria = mock(Criteria.class);
+    when(criteria.loadModel()).thenReturn(model);
+    return cached -> criteria;
+  }
+}
@@ -0,0 +1,42 @@
+package com.edgechain.lib.embeddings.model;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class LocalModelCacheTest {
+
+  @Test
+  void resolve_ReturnsStoredModelDirectory(@TempDir Path directory) throws Exception {
+    Path model = Files.createDirectories(directory.resolve("download/all-MiniLM-L6-v2"));
+    Files.writeString(model.resolve("model.pt"), "weights");
+    Files.writeString(Files.createDirectory(model.resolve("tokenizer")).resolve("vocab"), "v");
+
+    LocalModelCache cache = new LocalModelCache(Files.createDirectory(directory.resolve("cache")));
+    assertNull(cache.resolve("djl://model"));
+
+    cache.store("djl://model", model);
+    Path cached = cache.resolve("djl://model");
+
+    assertEquals("all-MiniLM-L6-v2", cached.getFileName().toString());
+    assertEquals("weights", Files.readString(cached.resolve("model.pt")));
+    assertEquals("v", Files.readString(cached.resolve("tokenizer/vocab")));
+  }
+
+  @Test
+  void resolve_CorruptedModelIsDropped(@TempDir Path directory) throws Exception {
+    Path model = Files.createDirectories(directory.resolve("download/model"));
+    Files.writeString(model.resolve("model.pt"), "weights");
+
+    LocalModelCache cache = new LocalModelCache(Files.createDirectory(directory.resolve("cache")));
+    cache.store("model", model);
+    Files.writeString(cache.resolve("model").resolve("model.pt"), "truncated");
+
+    assertNull(cache.resolve("model"));
+    assertFalse(Files.exists(directory.resolve("cache/model")));
+  }
+}
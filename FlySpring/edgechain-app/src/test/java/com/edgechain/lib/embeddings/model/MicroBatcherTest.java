@@ -0,0 +1,118 @@
+package com.edgechain.lib.embeddings.model;
+
+import io.reactivex.rxjava3.core.Single;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MicroBatcherTest {
+
+  @Test
+  void submit_ConcurrentTextsShareOneBatch() {
+    List<Integer> batchSizes = new ArrayList<>();
+    MicroBatcher batcher =
+        new MicroBatcher(
+            "test",
+            inputs -> {
+              batchSizes.add(inputs.size());
+              return inputs.stream().map(s -> new float[] {s.length()}).toList();
+            },
+            1,
+            8,
+            Duration.ofMillis(200),
+            100);
+
+    List<Single<float[]>> results = new ArrayList<>();
+    for (String input : List.of("a", "bb", "ccc")) {
+      Single<float[]> result = batcher.submit(input).cache();
+      result.subscribe();
+      results.add(result);
+    }
+
+    assertArrayEquals(new float[] {1}, results.get(0).blockingGet());
+    assertArrayEquals(new float[] {3}, results.get(2).blockingGet());
+    assertEquals(List.of(3), batchSizes);
+    assertEquals(1, batcher.getStats().getBatchSize().getCount());
+    batcher.close();
+  }
+
+  @Test
+  void submit_RejectsWhenQueueIsFull() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    MicroBatcher batcher =
+        new MicroBatcher(
+            "test",
+            inputs -> {
+              started.countDown();
+              release.await();
+              return inputs.stream().map(s -> new float[0]).toList();
+            },
+            1,
+            1,
+            Duration.ZERO,
+            1);
+
+    // occupies the only worker, then fills the queue
+    batcher.submit("a").subscribe();
+    started.await();
+    batcher.submit("b").subscribe();
+
+    assertThrows(RejectedExecutionException.class, () -> batcher.submit("c").blockingGet());
+    assertEquals(1, batcher.getStats().getRejected());
+
+    release.countDown();
+    batcher.close();
+  }
+
+  @Test
+  void close_FailsTextsBeingBatched() throws Exception {
+    MicroBatcher batcher =
+        new MicroBatcher(
+            "test",
+            inputs -> inputs.stream().map(s -> new float[0]).toList(),
+            1,
+            8,
+            Duration.ofSeconds(30),
+            100);
+
+    List<Single<float[]>> results = new ArrayList<>();
+    for (String input : List.of("a", "b")) {
+      Single<float[]> result = batcher.submit(input).cache();
+      result.subscribe(r -> {}, e -> {});
+      results.add(result);
+    }
+    // both texts left the queue: the dispatcher holds them, waiting for more
+    while (batcher.getStats().getQueueDepth() > 0) {
+      Thread.sleep(1);
+    }
+
+    batcher.close();
+
+    for (Single<float[]> result : results) {
+      assertThrows(
+          RejectedExecutionException.class,
+          () -> result.timeout(5, TimeUnit.SECONDS).blockingGet());
+    }
+    assertThrows(RejectedExecutionException.class, () -> batcher.submit("c").blockingGet());
+  }
+
+  @Test
+  void histogram_PercentileIsBucketBound() {
+    Histogram histogram = new Histogram(1, 10, 100);
+    for (long value : new long[] {1, 5, 5, 50, 500}) {
+      histogram.record(value);
+    }
+
+    assertEquals(10, histogram.getP50());
+    assertEquals(500, histogram.getP99());
+    assertArrayEquals(new long[] {1, 2, 1, 1}, histogram.getCounts());
+  }
+}
@@ -0,0 +1,48 @@
+package com.edgechain.lib.embeddings.model;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PoolingTest {
+
+  // two rows of [3 tokens][2 dimensions]; the last token of the second row is padding
+  private static final float[] HIDDEN = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 100, 100};
+
+  @Test
+  void pool_Cls_TakesFirstTokenOfTheRow() {
+    assertArrayEquals(
+        new float[] {7, 8}, Pooling.pool(Pooling.CLS, HIDDEN, 6, 2, new long[] {1, 1}));
+  }
+
+  @Test
+  void pool_Mean_IgnoresPaddingTokens() {
+    assertArrayEquals(
+        new float[] {3, 4}, Pooling.pool(Pooling.MEAN, HIDDEN, 0, 2, new long[] {1, 1, 1}));
+    assertArrayEquals(
+        new float[] {8, 9}, Pooling.pool(Pooling.MEAN, HIDDEN, 6, 2, new long[] {1, 1, 0}));
+  }
+
+  @Test
+  void pool_WeightedMeanAndMax() {
+    // weights 1 and 2: (7 + 2 * 9) / 3, (8 + 2 * 10) / 3
+    assertArrayEquals(
+        new float[] {25f / 3, 28f / 3},
+        Pooling.pool(Pooling.WEIGHTED_MEAN, HIDDEN, 6, 2, new long[] {1, 1}),
+        1e-6f);
+    assertArrayEquals(
+        new float[] {9, 10}, Pooling.pool(Pooling.MAX, HIDDEN, 6, 2, new long[] {1, 1, 0}));
+  }
+
+  @Test
+  void pool_UnknownMode_Throws() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> Pooling.pool("sum", HIDDEN, 0, 2, new long[] {1}));
+  }
+
+  @Test
+  void normalize_ScalesToUnitLength() {
+    assertArrayEquals(new float[] {0.6f, 0.8f}, Pooling.normalize(new float[] {3, 4}), 1e-6f);
+  }
+}
@@ -0,0 +1,62 @@
+package com.edgechain.lib.embeddings.model;
+
+import ai.djl.inference.Predictor;
+import ai.djl.repository.zoo.ZooModel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PredictorPoolTest {
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void execute_ReusesPredictor() throws Exception {
+    ZooModel<String, float[]> model = mock(ZooModel.class);
+    Predictor<String, float[]> predictor = mock(Predictor.class);
+    when(model.newPredictor()).thenReturn(predictor);
+
+    PredictorPool<String, float[]> pool = new PredictorPool<>(model, 2);
+    for (int i = 0; i < 3; i++) {
+      assertSame(predictor, pool.execute(p -> p));
+    }
+
+    verify(model, times(1)).newPredictor();
+    assertEquals(1, pool.getCreated());
+
+    pool.close();
+    verify(predictor).close();
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void borrow_WaitsWhenAllPredictorsAreInUse() throws Exception {
+    ZooModel<String, float[]> model = mock(ZooModel.class);
+    when(model.newPredictor()).thenAnswer(invocation -> mock(Predictor.class));
+
+    PredictorPool<String, float[]> pool = new PredictorPool<>(model, 1);
+    Predictor<String, float[]> borrowed = pool.borrow();
+
+    CompletableFuture<Predictor<String, float[]>> waiting =
+        CompletableFuture.supplyAsync(
+            () -> {
+              try {
+                return pool.borrow();
+              } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+              }
+            });
+    assertThrows(TimeoutException.class, () -> waiting.get(200, TimeUnit.MILLISECONDS));
+
+    pool.release(borrowed);
+    assertSame(borrowed, waiting.get(5, TimeUnit.SECONDS));
+    assertEquals(1, pool.getCreated());
+  }
+}
@@ -0,0 +1,30 @@
+package com.edgechain.lib.embeddings.request;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OpenAiBatchEmbeddingRequestTest {
+
+  @Test
+  void pack_SplitsOnInputLimit() {
+    List<OpenAiBatchEmbeddingRequest> requests =
+        OpenAiBatchEmbeddingRequest.pack(
+            "model", List.of("a", "b", "c", "d", "e"), String::length, 2, 100);
+
+    assertEquals(3, requests.size());
+    assertEquals(List.of("a", "b"), requests.get(0).getInput());
+    assertEquals(List.of("e"), requests.get(2).getInput());
+  }
+
+  @Test
+  void pack_SplitsOnTokenLimit_KeepsOversizedInputAlone() {
+    List<OpenAiBatchEmbeddingRequest> requests =
+        OpenAiBatchEmbeddingRequest.pack(
+            "model", List.of("aa", "bb", "cccccc", "d"), String::length, 100, 5);
+
+    assertEquals(
+        List.of(List.of("aa", "bb"), List.of("cccccc"), List.of("d")),
+        requests.stream().map(OpenAiBatchEmbeddingRequest::getInput).toList());
+  }
+}
@@ -2,29 +2,44 @@ package com.edgechain.lib.index.client.impl;
 
 import com.edgechain.lib.embeddings.WordEmbeddings;
 import com.edgechain.lib.endpoint.impl.index.PostgresEndpoint;
+import com.edgechain.lib.index.domain.PostgresVector;
 import com.edgechain.lib.index.domain.PostgresWordEmbeddings;
 import com.edgechain.lib.index.enums.PostgresDistanceMetric;
+import com.edgechain.lib.index.enums.PostgresIndexType;
 import com.edgechain.lib.index.enums.PostgresLanguage;
+import com.edgechain.lib.index.repositories.PostgresClientRepository;
 import com.edgechain.lib.response.StringResponse;
 import com.edgechain.lib.rxjava.transformer.observable.EdgeChain;
+import com.edgechain.lib.utils.FloatUtils;
 import com.edgechain.testutil.PostgresTestContainer;
 import com.edgechain.testutil.PostgresTestContainer.PostgresImage;
 import com.zaxxer.hikari.HikariConfig;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import io.reactivex.rxjava3.observers.TestObserver;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.postgresql.util.PGobject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.testcontainers.junit.jupiter.Testcontainers;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.Mockito.mock;
@@ -55,13 +70,22 @@ class PostgresClientTest {
 
   @Autowired private PostgresClient service;
 
-  @Test
-  void allMethods() {
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  @Autowired private PostgresClientRepository repository;
+
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  @BeforeEach
+  void setup() {
     // hikari has own copy of properties so set these here
     hikariConfig.setJdbcUrl(instance.getJdbcUrl());
     hikariConfig.setUsername(instance.getUsername());
     hikariConfig.setPassword(instance.getPassword());
+  }
 
+  @Test
+  void allMethods() {
     createTable();
     createMetadataTable();
 
@@ -82,6 +106,452 @@ class PostgresClientTest {
     getSimilarChunks();
   }
 
+  @Test
+  void postgresVector_RoundTripsAsTypedText() {
+    jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS vector;");
+    PostgresVector vector = new PostgresVector(new float[] {0.25f, -1.5f, 3.0E-5f});
+
+    // bound without a cast, the parameter is typed as vector
+    Object column = jdbcTemplate.queryForObject("SELECT ?;", Object.class, vector);
+
+    // the type is not registered with the driver: the column comes back as its text form
+    PGobject pgObject = assertInstanceOf(PGobject.class, column);
+    assertEquals(PGobject.class, pgObject.getClass());
+    assertEquals("vector", pgObject.getType());
+    assertArrayEquals(vector.toArray(), PostgresVector.decode(column));
+  }
+
+  @Test
+  void deleteAll_PartitionedRemovesJoinRowsOfNamespaceOnly() {
+    PostgresEndpoint table = partitionedEndpoint(null);
+    when(table.getLists()).thenReturn(1);
+    when(table.getDimensions()).thenReturn(2);
+    when(table.getMetric()).thenReturn(PostgresDistanceMetric.COSINE);
+    when(table.getMetadataTableNames()).thenReturn(List.of("title_metadata"));
+    blockingGet(service.createTable(table));
+    blockingGet(service.createMetadataTable(table));
+
+    String deletedId = upsertWithMetadata("ns1");
+    String keptId = upsertWithMetadata("ns2");
+
+    blockingGet(service.deleteAll(partitionedEndpoint("ns1")));
+
+    assertEquals(
+        List.of("ns2"),
+        jdbcTemplate.queryForList("SELECT namespace FROM t_partitioned;", String.class));
+    List<String> joined =
+        jdbcTemplate.queryForList(
+            "SELECT id::text FROM t_partitioned_join_title_metadata;", String.class);
+    assertEquals(List.of(keptId), joined);
+    assertFalse(joined.contains(deletedId));
+
+    // the emptied partition stays attached, so instances which remember it can still upsert
+    upsertWithMetadata("ns1");
+    assertEquals(
+        2, jdbcTemplate.queryForObject("SELECT count(*) FROM t_partitioned;", Integer.class));
+  }
+
+  @Test
+  void migrateToDigestKey_UpsertsAndDeletesByDigest() {
+    PostgresEndpoint table = digestEndpoint(false);
+    when(table.getLists()).thenReturn(1);
+    when(table.getDimensions()).thenReturn(2);
+    when(table.getMetric()).thenReturn(PostgresDistanceMetric.COSINE);
+    blockingGet(service.createTable(table));
+
+    String id = digestUpsert(false, new WordEmbeddings("one", List.of(0.25f, 0.5f)));
+
+    blockingGet(service.migrateToDigestKey(table));
+
+    // the same text conflicts on its digest now: the row is updated, not inserted again
+    String updated = digestUpsert(true, new WordEmbeddings("one", List.of(0.75f, 0.9f)));
+    assertEquals(id, updated);
+    assertArrayEquals(
+        new float[] {0.75f, 0.9f},
+        PostgresVector.decode(
+            jdbcTemplate.queryForObject("SELECT embedding FROM t_digest;", Object.class)),
+        FLOAT_ERROR_MARGIN);
+
+    PostgresEndpoint batch = digestEndpoint(true);
+    when(batch.getFilename()).thenReturn("readme.pdf");
+    when(batch.getNamespace()).thenReturn("testns");
+    when(batch.getPostgresLanguage()).thenReturn(PostgresLanguage.ENGLISH);
+    when(batch.getWordEmbeddingsList())
+        .thenReturn(
+            List.of(
+                new WordEmbeddings("one", List.of(0.1f, 0.2f)),
+                new WordEmbeddings("two", List.of(0.3f, 0.4f))));
+    blockingGet(service.batchUpsert(batch));
+    assertEquals(
+        List.of("one", "two"),
+        jdbcTemplate.queryForList(
+            "SELECT raw_text FROM t_digest ORDER BY raw_text;", String.class));
+
+    PostgresEndpoint delete = digestEndpoint(true);
+    when(delete.getNamespace()).thenReturn("testns");
+    when(delete.getFilename()).thenReturn("readme.pdf");
+    when(delete.getChunkList()).thenReturn(List.of("one"));
+    assertEquals("Deleted ~ 1", blockingGet(service.deleteChunks(delete)).getResponse());
+    assertEquals(
+        List.of("two"), jdbcTemplate.queryForList("SELECT raw_text FROM t_digest;", String.class));
+  }
+
+  @Test
+  void batchUpsert_DedupesWithinBatchAcrossChunks() {
+    PostgresEndpoint table = batchEndpoint();
+    when(table.getLists()).thenReturn(1);
+    when(table.getDimensions()).thenReturn(2);
+    when(table.getMetric()).thenReturn(PostgresDistanceMetric.COSINE);
+    blockingGet(service.createTable(table));
+
+    List<WordEmbeddings> batch =
+        List.of(
+            new WordEmbeddings("a", List.of(0.1f, 0.2f)),
+            new WordEmbeddings("b", List.of(0.3f, 0.4f)),
+            new WordEmbeddings("a", List.of(0.9f, 0.9f)),
+            new WordEmbeddings("c", List.of(0.5f, 0.6f)),
+            new WordEmbeddings("d", List.of(0.7f, 0.8f)));
+    List<String> ids = upsertBatch(batch);
+
+    // the repeated text is sent once, with its last embedding; 4 rows in chunks of 2
+    assertEquals(4, ids.size());
+    assertEquals(
+        List.of("a", "b", "c", "d"),
+        jdbcTemplate.queryForList("SELECT raw_text FROM t_batch ORDER BY raw_text;", String.class));
+    assertArrayEquals(
+        new float[] {0.9f, 0.9f},
+        PostgresVector.decode(
+            jdbcTemplate.queryForObject(
+                "SELECT embedding FROM t_batch WHERE raw_text = 'a';", Object.class)),
+        FLOAT_ERROR_MARGIN);
+
+    // upserting the batch again updates the same rows
+    assertEquals(Set.copyOf(ids), Set.copyOf(upsertBatch(batch)));
+    assertEquals(4, jdbcTemplate.queryForObject("SELECT count(*) FROM t_batch;", Integer.class));
+  }
+
+  private List<String> upsertBatch(List<WordEmbeddings> batch) {
+    PostgresEndpoint mockPe = batchEndpoint();
+    when(mockPe.getFilename()).thenReturn("readme.pdf");
+    when(mockPe.getNamespace()).thenReturn("testns");
+    when(mockPe.getPostgresLanguage()).thenReturn(PostgresLanguage.ENGLISH);
+    when(mockPe.getUpsertChunkSize()).thenReturn(2);
+    when(mockPe.getWordEmbeddingsList()).thenReturn(batch);
+    return blockingGet(service.batchUpsert(mockPe)).stream()
+        .map(StringResponse::getResponse)
+        .toList();
+  }
+
+  private PostgresEndpoint batchEndpoint() {
+    PostgresEndpoint mockPe = mock(PostgresEndpoint.class);
+    when(mockPe.getTableName()).thenReturn("t_batch");
+    return mockPe;
+  }
+
+  @Test
+  void hnsw_CreatesIndexAndScopesEfSearchToQuery() {
+    PostgresEndpoint table = hnswEndpoint();
+    when(table.getDimensions()).thenReturn(2);
+    when(table.getIndexType()).thenReturn(PostgresIndexType.HNSW);
+    blockingGet(service.createTable(table));
+
+    assertEquals(
+        1,
+        jdbcTemplate.queryForObject(
+            "SELECT count(*) FROM pg_indexes WHERE tablename = 't_hnsw' AND indexname ="
+                + " 't_hnsw_hnsw_cosine_idx' AND indexdef LIKE '%USING hnsw%';",
+            Integer.class));
+
+    PostgresEndpoint upsert = hnswEndpoint();
+    when(upsert.getFilename()).thenReturn("readme.pdf");
+    when(upsert.getPostgresLanguage()).thenReturn(PostgresLanguage.ENGLISH);
+    when(upsert.getWordEmbeddingsList())
+        .thenReturn(
+            List.of(
+                new WordEmbeddings("a", List.of(0.1f, 0.2f)),
+                new WordEmbeddings("b", List.of(0.3f, 0.4f)),
+                new WordEmbeddings("c", List.of(0.5f, 0.6f))));
+    blockingGet(service.batchUpsert(upsert));
+
+    // an HNSW scan returns at most ef_search rows
+    assertEquals(1, hnswHits(1));
+    assertEquals(3, hnswHits(40));
+    // SET LOCAL ends with the query's transaction: the default ef_search (40) applies again
+    assertEquals(3, hnswHits(0));
+  }
+
+  private int hnswHits(int efSearch) {
+    return new TransactionTemplate(transactionManager)
+        .execute(
+            status -> {
+              // a table this small is cheaper to scan than to search: force the index
+              jdbcTemplate.execute("SET LOCAL enable_seqscan = off;");
+              return repository
+                  .query(
+                      "t_hnsw",
+                      "testns",
+                      1,
+                      efSearch,
+                      PostgresDistanceMetric.COSINE,
+                      List.of(List.of(0.1f, 0.2f)),
+                      3,
+                      3,
+                      false)
+                  .size();
+            });
+  }
+
+  private PostgresEndpoint hnswEndpoint() {
+    PostgresEndpoint mockPe = mock(PostgresEndpoint.class);
+    when(mockPe.getTableName()).thenReturn("t_hnsw");
+    when(mockPe.getNamespace()).thenReturn("testns");
+    when(mockPe.getMetric()).thenReturn(PostgresDistanceMetric.COSINE);
+    return mockPe;
+  }
+
+  @Test
+  void query_IncludeValuesFalseSkipsEmbeddings() {
+    PostgresEndpoint table = projectionEndpoint();
+    when(table.getLists()).thenReturn(1);
+    when(table.getDimensions()).thenReturn(2);
+    blockingGet(service.createTable(table));
+
+    PostgresEndpoint upsert = projectionEndpoint();
+    when(upsert.getFilename()).thenReturn("readme.pdf");
+    when(upsert.getPostgresLanguage()).thenReturn(PostgresLanguage.ENGLISH);
+    when(upsert.getWordEmbeddingsList())
+        .thenReturn(List.of(new WordEmbeddings("a", List.of(0.25f, 0.5f))));
+    blockingGet(service.batchUpsert(upsert));
+
+    assertFalse(
+        repository
+            .query(
+                "t_projection",
+                "testns",
+                1,
+                0,
+                PostgresDistanceMetric.COSINE,
+                List.of(List.of(0.25f, 0.5f)),
+                1,
+                1,
+                false)
+            .get(0)
+            .containsKey("embedding"));
+
+    PostgresWordEmbeddings withoutValues = projectionQuery(false);
+    assertEquals("a", withoutValues.getRawText());
+    assertNull(withoutValues.getValues());
+    assertArrayEquals(
+        new float[] {0.25f, 0.5f},
+        FloatUtils.toFloatArray(projectionQuery(true).getValues()),
+        FLOAT_ERROR_MARGIN);
+  }
+
+  private PostgresWordEmbeddings projectionQuery(boolean includeValues) {
+    PostgresEndpoint query = projectionEndpoint();
+    when(query.getProbes()).thenReturn(1);
+    when(query.getTopK()).thenReturn(1);
+    when(query.getIncludeValues()).thenReturn(includeValues);
+    when(query.getWordEmbeddingsList())
+        .thenReturn(List.of(new WordEmbeddings("q", List.of(0.25f, 0.5f))));
+    return blockingGet(service.query(query)).get(0);
+  }
+
+  private PostgresEndpoint projectionEndpoint() {
+    PostgresEndpoint mockPe = mock(PostgresEndpoint.class);
+    when(mockPe.getTableName()).thenReturn("t_projection");
+    when(mockPe.getNamespace()).thenReturn("testns");
+    when(mockPe.getMetric()).thenReturn(PostgresDistanceMetric.COSINE);
+    return mockPe;
+  }
+
+  @Test
+  void batchInsertMetadataAndJoinRows_KeepInputOrder() {
+    PostgresEndpoint table = bulkEndpoint();
+    when(table.getLists()).thenReturn(1);
+    when(table.getDimensions()).thenReturn(2);
+    when(table.getMetric()).thenReturn(PostgresDistanceMetric.COSINE);
+    blockingGet(service.createTable(table));
+    blockingGet(service.createMetadataTable(table));
+
+    PostgresEndpoint upsert = bulkEndpoint();
+    when(upsert.getFilename()).thenReturn("readme.pdf");
+    when(upsert.getNamespace()).thenReturn("testns");
+    when(upsert.getPostgresLanguage()).thenReturn(PostgresLanguage.ENGLISH);
+    when(upsert.getWordEmbeddingsList())
+        .thenReturn(
+            List.of(
+                new WordEmbeddings("a", List.of(0.1f, 0.2f)),
+                new WordEmbeddings("b", List.of(0.3f, 0.4f))));
+    List<String> chunkIds =
+        blockingGet(service.batchUpsert(upsert)).stream().map(StringResponse::getResponse).toList();
+
+    PostgresEndpoint metadata = bulkEndpoint();
+    when(metadata.getMetadataList()).thenReturn(List.of("m1", "m2", "m3"));
+    List<String> metadataIds =
+        blockingGet(service.batchInsertMetadata(metadata)).stream()
+            .map(StringResponse::getResponse)
+            .toList();
+
+    // the returned ids are those of the metadata in input order
+    assertEquals(
+        List.of("m1", "m2", "m3"),
+        metadataIds.stream()
+            .map(
+                id ->
+                    jdbcTemplate.queryForObject(
+                        "SELECT metadata FROM t_bulk_title_metadata WHERE metadata_id = ?::uuid;",
+                        String.class,
+                        id))
+            .toList());
+
+    joinAll(List.of(chunkIds.get(0), chunkIds.get(1), chunkIds.get(0)), metadataIds.get(1));
+    assertEquals(List.of("m2", "m2"), joinedMetadata());
+
+    // joining again moves the chunks to the other metadata row
+    joinAll(chunkIds, metadataIds.get(2));
+    assertEquals(List.of("m3", "m3"), joinedMetadata());
+  }
+
+  private void joinAll(List<String> ids, String metadataId) {
+    PostgresEndpoint join = bulkEndpoint();
+    when(join.getIdList()).thenReturn(ids);
+    when(join.getMetadataId()).thenReturn(metadataId);
+    blockingGet(service.batchInsertIntoJoinTable(join));
+  }
+
+  private List<String> joinedMetadata() {
+    return jdbcTemplate.queryForList(
+        "SELECT m.metadata FROM t_bulk_join_title_metadata j JOIN t_bulk_title_metadata m ON"
+            + " j.metadata_id = m.metadata_id;",
+        String.class);
+  }
+
+  private PostgresEndpoint bulkEndpoint() {
+    PostgresEndpoint mockPe = mock(PostgresEndpoint.class);
+    when(mockPe.getTableName()).thenReturn("t_bulk");
+    when(mockPe.getMetadataTableNames()).thenReturn(List.of("title_metadata"));
+    return mockPe;
+  }
+
+  @Test
+  void createTable_FailsOnLayoutMismatch() {
+    blockingGet(service.createTable(layoutEndpoint(2, false)));
+
+    // the registry key covers the layout, so these check the existing table instead of skipping
+    assertThrows(
+        RuntimeException.class, () -> blockingGet(service.createTable(layoutEndpoint(3, false))));
+    assertThrows(
+        RuntimeException.class, () -> blockingGet(service.createTable(layoutEndpoint(2, true))));
+    blockingGet(service.createTable(layoutEndpoint(2, false)));
+  }
+
+  private PostgresEndpoint layoutEndpoint(int dimensions, boolean digestKey) {
+    PostgresEndpoint mockPe = mock(PostgresEndpoint.class);
+    when(mockPe.getTableName()).thenReturn("t_layout");
+    when(mockPe.getLists()).thenReturn(1);
+    when(mockPe.getDimensions()).thenReturn(dimensions);
+    when(mockPe.getMetric()).thenReturn(PostgresDistanceMetric.COSINE);
+    when(mockPe.isDigestKey()).thenReturn(digestKey);
+    return mockPe;
+  }
+
+  @Test
+  void query_MultiVectorL2KeepsClosestHits() {
+    PostgresEndpoint table = l2Endpoint();
+    when(table.getLists()).thenReturn(1);
+    when(table.getDimensions()).thenReturn(2);
+    blockingGet(service.createTable(table));
+
+    PostgresEndpoint upsert = l2Endpoint();
+    when(upsert.getFilename()).thenReturn("readme.pdf");
+    when(upsert.getPostgresLanguage()).thenReturn(PostgresLanguage.ENGLISH);
+    when(upsert.getWordEmbeddingsList())
+        .thenReturn(
+            List.of(
+                new WordEmbeddings("x", List.of(1f, 0f)),
+                new WordEmbeddings("y", List.of(0f, 1f)),
+                new WordEmbeddings("far", List.of(10f, 10f))));
+    blockingGet(service.batchUpsert(upsert));
+
+    PostgresEndpoint query = l2Endpoint();
+    when(query.getProbes()).thenReturn(1);
+    when(query.getTopK()).thenReturn(3);
+    when(query.getUpperLimit()).thenReturn(2);
+    when(query.getWordEmbeddingsList())
+        .thenReturn(
+            List.of(
+                new WordEmbeddings("qx", List.of(1f, 0f)),
+                new WordEmbeddings("qy", List.of(0f, 1f))));
+    List<PostgresWordEmbeddings> result = blockingGet(service.query(query));
+
+    // the L2 score is a distance: each row keeps its closest hit and the nearest rows win
+    assertEquals(
+        List.of("x", "y"),
+        result.stream().map(PostgresWordEmbeddings::getRawText).sorted().toList());
+    result.forEach(r -> assertEquals(0.0, r.getScore(), FLOAT_ERROR_MARGIN));
+  }
+
+  private PostgresEndpoint l2Endpoint() {
+    PostgresEndpoint mockPe = mock(PostgresEndpoint.class);
+    when(mockPe.getTableName()).thenReturn("t_l2");
+    when(mockPe.getNamespace()).thenReturn("testns");
+    when(mockPe.getMetric()).thenReturn(PostgresDistanceMetric.L2);
+    return mockPe;
+  }
+
+  private PostgresEndpoint digestEndpoint(boolean digestKey) {
+    PostgresEndpoint mockPe = mock(PostgresEndpoint.class);
+    when(mockPe.getTableName()).thenReturn("t_digest");
+    when(mockPe.isDigestKey()).thenReturn(digestKey);
+    return mockPe;
+  }
+
+  private String digestUpsert(boolean digestKey, WordEmbeddings we) {
+    PostgresEndpoint mockPe = digestEndpoint(digestKey);
+    when(mockPe.getWordEmbedding()).thenReturn(we);
+    when(mockPe.getFilename()).thenReturn("readme.pdf");
+    when(mockPe.getNamespace()).thenReturn("testns");
+    when(mockPe.getPostgresLanguage()).thenReturn(PostgresLanguage.ENGLISH);
+    return blockingGet(service.upsert(mockPe)).getResponse();
+  }
+
+  /** Upserts a chunk into the namespace and joins it to a new metadata row; returns its id. */
+  private String upsertWithMetadata(String namespace) {
+    WordEmbeddings we = new WordEmbeddings();
+    we.setId("chunk of " + namespace);
+    we.setValues(List.of(0.25f, 0.5f));
+
+    PostgresEndpoint upsert = partitionedEndpoint(namespace);
+    when(upsert.getWordEmbedding()).thenReturn(we);
+    when(upsert.getFilename()).thenReturn("readme.pdf");
+    when(upsert.getPostgresLanguage()).thenReturn(PostgresLanguage.ENGLISH);
+    String id = blockingGet(service.upsert(upsert)).getResponse();
+
+    PostgresEndpoint metadata = partitionedEndpoint(namespace);
+    when(metadata.getMetadataTableNames()).thenReturn(List.of("title_metadata"));
+    when(metadata.getMetadata()).thenReturn("title of " + namespace);
+    when(metadata.getDocumentDate()).thenReturn("November 11, 2015");
+    String metadataId = blockingGet(service.insertMetadata(metadata)).getResponse();
+
+    when(metadata.getId()).thenReturn(id);
+    when(metadata.getMetadataId()).thenReturn(metadataId);
+    blockingGet(service.insertIntoJoinTable(metadata));
+    return id;
+  }
+
+  private PostgresEndpoint partitionedEndpoint(String namespace) {
+    PostgresEndpoint mockPe = mock(PostgresEndpoint.class);
+    when(mockPe.getTableName()).thenReturn("t_partitioned");
+    when(mockPe.isPartitioned()).thenReturn(true);
+    when(mockPe.getNamespace()).thenReturn(namespace);
+    return mockPe;
+  }
+
+  private static <T> T blockingGet(EdgeChain<T> chain) {
+    return chain.toSingle().blockingGet();
+  }
+
   private void createTable() {
     createTable_metric(PostgresDistanceMetric.COSINE, "t_embedding");
   }
@@ -0,0 +1,32 @@
+package com.edgechain.lib.index.domain;
+
+import org.junit.jupiter.api.Test;
+import org.postgresql.util.PGobject;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PostgresVectorTest {
+
+  @Test
+  void textForm_RoundTrips() throws Exception {
+    PostgresVector vector = new PostgresVector(new float[] {0.25f, -1.5f, 3.0E-5f});
+
+    PostgresVector decoded = new PostgresVector();
+    decoded.setValue(vector.getValue());
+
+    assertEquals("vector", vector.getType());
+    assertArrayEquals(vector.toArray(), decoded.toArray());
+  }
+
+  @Test
+  void decode_GenericPGobject() throws Exception {
+    PGobject pgObject = new PGobject();
+    pgObject.setType("vector");
+    pgObject.setValue("[1,2.5,-3]");
+
+    assertArrayEquals(new float[] {1f, 2.5f, -3f}, PostgresVector.decode(pgObject));
+    assertArrayEquals(new float[0], PostgresVector.parse("[]"));
+    assertNull(PostgresVector.decode(null));
+  }
+}
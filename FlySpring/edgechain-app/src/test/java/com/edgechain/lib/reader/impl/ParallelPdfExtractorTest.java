@@ -0,0 +1,64 @@
+package com.edgechain.lib.reader.impl;
+
+import com.edgechain.lib.chunk.PageChunk;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParallelPdfExtractorTest {
+
+  @Test
+  void extractPages_ReturnsPagesInOrder() throws Exception {
+    ForkJoinPool pool = new ForkJoinPool(2);
+    try {
+      List<String> pages =
+          new ParallelPdfExtractor(pool, 2).extractPages(new ByteArrayInputStream(pdf(5)));
+
+      assertEquals(5, pages.size());
+      for (int i = 0; i < pages.size(); i++) {
+        assertEquals("Page " + (i + 1), pages.get(i).strip());
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  void readByChunkSize_KeepsPagesOfEachChunk() throws Exception {
+    List<PageChunk> chunks =
+        new ParallelPdfExtractor().readByChunkSize(new ByteArrayInputStream(pdf(5)), 1000);
+
+    assertEquals(1, chunks.size());
+    assertTrue(chunks.get(0).getText().startsWith("Page 1"));
+    assertTrue(chunks.get(0).getText().endsWith("Page 5"));
+    assertEquals(1, chunks.get(0).getStartPage());
+    assertEquals(5, chunks.get(0).getEndPage());
+  }
+
+  private static byte[] pdf(int pages) throws Exception {
+    try (PDDocument document = new PDDocument();
+        ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+      for (int i = 1; i <= pages; i++) {
+        PDPage page = new PDPage();
+        document.addPage(page);
+        try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+          content.beginText();
+          content.setFont(PDType1Font.HELVETICA, 12);
+          content.newLineAtOffset(72, 700);
+          content.showText("Page " + i);
+          content.endText();
+        }
+      }
+      document.save(out);
+      return out.toByteArray();
+    }
+  }
+}
@@ -0,0 +1,92 @@
+package com.edgechain.lib.retrofit.client;
+
+import com.edgechain.lib.endpoint.impl.index.PostgresEndpoint;
+import com.edgechain.lib.index.client.impl.PostgresClient;
+import com.edgechain.lib.index.domain.PostgresWordEmbeddings;
+import com.edgechain.lib.response.StringResponse;
+import com.edgechain.lib.retrofit.PostgresService;
+import com.edgechain.lib.rxjava.transformer.observable.EdgeChain;
+import com.edgechain.service.controllers.index.PostgresController;
+import com.edgechain.testutil.TestConfigSupport;
+import io.reactivex.rxjava3.core.Flowable;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.bind.annotation.RestController;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InProcessClientInstanceTest {
+
+  private final TestConfigSupport testSupport = new TestConfigSupport();
+
+  private PostgresClient postgresClient;
+
+  @BeforeEach
+  void setup() {
+    testSupport.setupRetrofit();
+    ApplicationContext context = testSupport.setupAppContext();
+
+    postgresClient = mock(PostgresClient.class);
+    PostgresController controller = new PostgresController();
+    ReflectionTestUtils.setField(controller, "postgresClient", postgresClient);
+
+    when(context.getBeansWithAnnotation(RestController.class))
+        .thenReturn(Map.of("postgresController", controller));
+  }
+
+  @AfterEach
+  void teardown() {
+    testSupport.tearDownAppContext();
+    testSupport.tearDownRetrofit();
+  }
+
+  @Test
+  void create_DispatchesToControllerWithoutHttp() {
+    PostgresEndpoint endpoint = new PostgresEndpoint();
+    when(postgresClient.deleteAll(any()))
+        .thenReturn(new EdgeChain<>(new StringResponse("deleted")));
+
+    PostgresService service = InProcessClientInstance.create(PostgresService.class);
+    StringResponse response = service.deleteAll(endpoint).blockingGet();
+
+    assertEquals("deleted", response.getResponse());
+    verify(postgresClient).deleteAll(endpoint);
+  }
+
+  @Test
+  void create_IsLazyUntilSubscribed() {
+    PostgresService service = InProcessClientInstance.create(PostgresService.class);
+    service.deleteAll(new PostgresEndpoint());
+
+    verify(postgresClient, never()).deleteAll(any());
+  }
+
+  @Test
+  void create_StreamsFlowableFromController() {
+    PostgresWordEmbeddings chunk = new PostgresWordEmbeddings();
+    chunk.setRawText("chunk");
+    when(postgresClient.streamAllChunks(any())).thenReturn(Flowable.just(chunk, chunk));
+
+    PostgresService service = InProcessClientInstance.create(PostgresService.class);
+
+    service.streamAllChunks(new PostgresEndpoint()).test(1).assertValueCount(1).assertNotComplete();
+  }
+
+  @Test
+  void create_MethodWithoutController_Errors() {
+    PostgresService service = InProcessClientInstance.create(PostgresService.class);
+
+    assertThrows(
+        UnsupportedOperationException.class,
+        () -> service.probes(new PostgresEndpoint()).blockingGet());
+  }
+}
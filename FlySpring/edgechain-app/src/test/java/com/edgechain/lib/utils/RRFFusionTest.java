@@ -0,0 +1,90 @@
+package com.edgechain.lib.utils;
+
+import com.edgechain.lib.index.domain.RRFWeight;
+import com.edgechain.lib.index.enums.OrderRRFBy;
+import com.edgechain.lib.index.enums.PostgresDistanceMetric;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RRFFusionTest {
+
+  @Test
+  void fuse_TextOnlyMatchCanOutrankVectorHits() {
+    RRFFusion.Candidate vectorOnly = candidate("a", 0.9, 0, null);
+    RRFFusion.Candidate both = candidate("b", 0.8, 0.5, LocalDate.of(2023, 1, 1));
+    RRFFusion.Candidate textOnly = candidate("c", null, 0.9, LocalDate.of(2023, 6, 1));
+
+    List<RRFFusion.Candidate> fused =
+        RRFFusion.fuse(
+            List.of(vectorOnly, both, textOnly),
+            new RRFWeight(),
+            new RRFWeight(),
+            new RRFWeight(),
+            OrderRRFBy.DEFAULT,
+            PostgresDistanceMetric.COSINE,
+            2);
+
+    assertEquals(List.of("c", "a"), fused.stream().map(RRFFusion.Candidate::getId).toList());
+    // text #1, similarity #3 (no vector hit), date #1 with the default weights (1.0, 0.5)
+    assertEquals(1 / 1.5 + 1 / 3.5 + 1 / 1.5, fused.get(0).getRrfScore(), 1e-9);
+  }
+
+  @Test
+  void fuse_OrderBySimilarity_PutsTextOnlyMatchesLast() {
+    List<RRFFusion.Candidate> fused =
+        RRFFusion.fuse(
+            List.of(candidate("t", null, 0.9, null), candidate("v", 0.1, 0, null)),
+            new RRFWeight(),
+            new RRFWeight(),
+            new RRFWeight(),
+            OrderRRFBy.SIMILARITY,
+            PostgresDistanceMetric.COSINE,
+            10);
+
+    assertEquals(List.of("v", "t"), fused.stream().map(RRFFusion.Candidate::getId).toList());
+  }
+
+  @Test
+  void fuse_L2_RanksSmallestDistanceFirst() {
+    List<RRFFusion.Candidate> candidates =
+        List.of(candidate("near", 0.5, 0, null), candidate("far", 4.0, 0, null));
+
+    List<RRFFusion.Candidate> fused =
+        RRFFusion.fuse(
+            candidates,
+            new RRFWeight(),
+            new RRFWeight(),
+            new RRFWeight(),
+            OrderRRFBy.DEFAULT,
+            PostgresDistanceMetric.L2,
+            10);
+
+    assertEquals(List.of("near", "far"), fused.stream().map(RRFFusion.Candidate::getId).toList());
+    // text and date tie in input order, and the smaller distance is similarity #1 as well
+    assertEquals(3 / 1.5, fused.get(0).getRrfScore(), 1e-9);
+
+    List<RRFFusion.Candidate> bySimilarity =
+        RRFFusion.fuse(
+            candidates,
+            new RRFWeight(),
+            new RRFWeight(),
+            new RRFWeight(),
+            OrderRRFBy.SIMILARITY,
+            PostgresDistanceMetric.L2,
+            10);
+
+    assertEquals(
+        List.of("near", "far"), bySimilarity.stream().map(RRFFusion.Candidate::getId).toList());
+  }
+
+  private RRFFusion.Candidate candidate(
+      String id, Double similarity, double textRank, LocalDate documentDate) {
+    RRFFusion.Candidate candidate = new RRFFusion.Candidate(id);
+    candidate.setSimilarity(similarity);
+    candidate.setTextRank(textRank);
+    candidate.setDocumentDate(documentDate);
+    return candidate;
+  }
+}
@@ -165,7 +165,7 @@ public class PostgresClientMetadataRepositoryTest {
                 "example_timestamp",
                 "score",
                 0.5));
-    when(jdbcTemplate.queryForList(anyString())).thenReturn(dummyResult);
+    when(jdbcTemplate.queryForList(anyString(), any(Object[].class))).thenReturn(dummyResult);
 
     // Act
     List<Map<String, Object>> result =
@@ -179,7 +179,7 @@ public class PostgresClientMetadataRepositoryTest {
             topK);
 
     // Assert
-    verify(jdbcTemplate).queryForList(sqlQueryCaptor.capture());
+    verify(jdbcTemplate).queryForList(sqlQueryCaptor.capture(), any(Object[].class));
     assertEquals(dummyResult, result);
   }
 }